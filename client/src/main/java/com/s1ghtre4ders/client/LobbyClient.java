@@ -2,6 +2,11 @@ package com.s1ghtre4ders.client;
 
 import com.s1ghtre4ders.client.models.Player;
 import com.s1ghtre4ders.client.models.PlayerStatus;
+import com.s1ghtre4ders.client.models.PresenceModel;
+import com.s1ghtre4ders.client.net.Command;
+import com.s1ghtre4ders.client.net.CommandDispatcher;
+import com.s1ghtre4ders.client.net.Message;
+import com.s1ghtre4ders.client.net.ServerConnection;
 import com.s1ghtre4ders.client.view.duel.DuelEventBus;
 import com.s1ghtre4ders.client.view.duel.DuelViewController;
 import javafx.application.Application;
@@ -15,7 +20,6 @@ import javafx.scene.layout.*;
 import javafx.stage.Stage;
 
 import java.io.*;
-import java.net.Socket;
 
 /**
  * S1ghtRe4ders Lobby Client
@@ -28,30 +32,45 @@ import java.net.Socket;
  * - DND (Do Not Disturb) toggle
  * - Spectator mode for watching duels
  * - Duel system with QTE dodge mechanics
+ * - Binary wire protocol when the server offers it (text otherwise)
  */
 public class LobbyClient extends Application {
     // ═══════════════════════════════════════════════════════
     // STATIC CONNECTION FIELDS (shared from LoginWindow)
     // ═══════════════════════════════════════════════════════
     private static String currentUsernameStatic = "";
-    private static Socket staticSocket;
-    private static BufferedReader staticIn;
-    private static PrintWriter staticOut;
+    private static ServerConnection staticConnection;
 
-    public static void setConnection(Socket socket, BufferedReader in, PrintWriter out, String username) {
+    public static void setConnection(ServerConnection connection, String username) {
         System.out.println("🔌 LobbyClient.setConnection: Setting static connection for " + username);
-        staticSocket = socket;
-        staticIn = in;
-        staticOut = out;
+        staticConnection = connection;
         currentUsernameStatic = username;
     }
 
+    // Server message handlers (run on the FX thread)
+    private static final int MAX_CHAT_LINES = 500; // older lines scroll away for good
+    private static final CommandDispatcher<LobbyClient> commands = new CommandDispatcher<LobbyClient>()
+            .on(Command.PLAYER_LIST, LobbyClient::updatePlayerList)
+            .on(Command.PLAYER_JOIN, LobbyClient::applyPresenceDelta)
+            .on(Command.PLAYER_LEAVE, LobbyClient::applyPresenceDelta)
+            .on(Command.PLAYER_STATUS, LobbyClient::applyPresenceDelta)
+            .on(Command.ROOM_JOINED, LobbyClient::handleRoomJoined)
+            .on(Command.CHAT, LobbyClient::handleChatMessage)
+            .on(Command.DUEL_REQUESTED, (c, m) -> c.handleDuelRequested(m.arg(0)))
+            .on(Command.DUEL_DECLINED, (c, m) -> c.addChatMessage("❌ " + m.arg(0) + " declined your duel request"))
+            .on(Command.DUEL_EXPIRED, (c, m) -> c.addChatMessage("⌛ Your duel request to " + m.arg(0) + " expired"))
+            .on(Command.DUEL_START, LobbyClient::handleDuelStart)
+            .on(Command.HP_UPDATE, LobbyClient::handleHpUpdate)
+            .on(Command.QTE_START, (c, m) -> c.handleQteStart())
+            .on(Command.TURN_CHANGE, LobbyClient::handleTurnChange)
+            .on(Command.DUEL_END, LobbyClient::handleDuelEnd)
+            .on(Command.ERROR, (c, m) -> c.addChatMessage("⚠️ " + m.arg(0)))
+            .on(Command.PROTO_SWITCH, (c, m) -> System.out.println("🔀 Server switched to binary protocol v" + m.arg(0)));
+
     // ═══════════════════════════════════════════════════════
     // INSTANCE FIELDS
     // ═══════════════════════════════════════════════════════
-    private Socket socket;
-    private BufferedReader in;
-    private PrintWriter out;
+    private ServerConnection connection;
     private Stage primaryStage;
 
     // UI Components
@@ -67,6 +86,7 @@ public class LobbyClient extends Application {
 
     // Data
     private ObservableList<Player> players = FXCollections.observableArrayList();
+    private final PresenceModel presence = new PresenceModel(players);
     private ObservableList<String> chatMessages = FXCollections.observableArrayList();
 
     // User state
@@ -106,9 +126,7 @@ public class LobbyClient extends Application {
         Platform.runLater(() -> {
             try {
                 // Copy static connection fields set by LoginWindow
-                this.socket = staticSocket;
-                this.in = staticIn;
-                this.out = staticOut;
+                this.connection = staticConnection;
                 this.currentUsername = currentUsernameStatic;
 
                 System.out.println("🎮 initializeLobby: Copied connection for user: " + currentUsername);
@@ -260,7 +278,7 @@ public class LobbyClient extends Application {
      */
     private void connect() {
         System.out.println("🔌 connect: Establishing listener thread");
-        if (socket == null || !socket.isConnected()) {
+        if (connection == null || !connection.isConnected()) {
             System.err.println("❌ Socket not connected!");
             showAlert("❌ Not connected to server!");
             return;
@@ -282,8 +300,19 @@ public class LobbyClient extends Application {
     private void listenForMessages() {
         System.out.println("📡 listenForMessages: Starting message loop");
         try {
-            String message;
-            while ((message = in.readLine()) != null) {
+            Message message;
+            while ((message = connection.read()) != null) {
+                if (message.command == Command.PROTO_OFFER) {
+                    // Answer on this thread so nothing else is read before we switch
+                    boolean accepted = connection.acceptOffer(message);
+                    System.out.println("🔀 PROTO_OFFER:" + message.arg(0) + (accepted ? " accepted" : " ignored"));
+                    continue;
+                }
+                if (message.command == Command.PING) {
+                    // Straight back from here: a busy FX thread must not make us look dead
+                    connection.sendQuietly(Message.of(Command.PONG, message.arg(0)));
+                    continue;
+                }
                 handleServerMessage(message);
             }
             System.out.println("📡 listenForMessages: Server closed connection (null read)");
@@ -300,65 +329,69 @@ public class LobbyClient extends Application {
     /**
      * Handle all incoming server messages
      */
-    private void handleServerMessage(String message) {
+    private void handleServerMessage(Message message) {
         System.out.println("📨 SERVER MSG: " + message);
         Platform.runLater(() -> {
-            if (message.startsWith("PLAYER_LIST:")) {
-                updatePlayerList(message);
-            } else if (message.startsWith("CHAT:")) {
-                handleChatMessage(message);
-            } else if (message.startsWith("DUEL_REQUESTED:")) {
-                handleDuelRequested(message.substring(15));
-            } else if (message.startsWith("DUEL_DECLINED:")) {
-                addChatMessage("❌ " + message.substring(14) + " declined your duel request");
-            } else if (message.startsWith("DUEL_START:")) {
-                System.out.println("⚔️ DUEL_START received - parsing data");
-                handleDuelStart(message.substring(11));
-            } else if (message.startsWith("HP_UPDATE:")) {
-                if (duelEventBus != null) {
-                    System.out.println("⚔️ HP_UPDATE forwarding to eventBus");
-                    duelEventBus.onHpUpdate.emit(l -> l.accept(message));
-                } else {
-                    System.out.println("⚠️ HP_UPDATE but duelEventBus is null");
-                }
-            } else if (message.startsWith("QTE_START")) {
-                if (duelEventBus != null) {
-                    System.out.println("⚔️ QTE_START forwarding to eventBus");
-                    duelEventBus.onQteStart.emit(Runnable::run);
-                } else {
-                    System.out.println("⚠️ QTE_START but duelEventBus is null");
-                }
-            } else if (message.startsWith("TURN_CHANGE:")) {
-                boolean isMyTurn = message.substring(12).equals("true");
-                if (duelEventBus != null) {
-                    System.out.println("⚔️ TURN_CHANGE(" + isMyTurn + ") forwarding to eventBus");
-                    duelEventBus.onTurnChange.emit(l -> l.accept(isMyTurn));
-                } else {
-                    System.out.println("⚠️ TURN_CHANGE but duelEventBus is null");
-                }
-            } else if (message.startsWith("DUEL_END:")) {
-                String result = message.substring(9).trim();
-                if (duelEventBus != null) {
-                    System.out.println("⚔️ DUEL_END(" + result + ") forwarding to eventBus");
-                    duelEventBus.onDuelEnd.emit(l -> l.accept(result));
-                } else {
-                    System.out.println("⚠️ DUEL_END but duelEventBus is null");
-                }
-            } else if (message.startsWith("ERROR:")) {
-                addChatMessage("⚠️ " + message.substring(6));
-            } else {
+            if (!commands.dispatch(this, message)) {
                 System.out.println("⚠️ Unknown message type: " + message);
             }
         });
     }
 
+    /**
+     * HP_UPDATE:player:hp - forward to the duel view
+     */
+    private void handleHpUpdate(Message message) {
+        if (duelEventBus != null) {
+            System.out.println("⚔️ HP_UPDATE forwarding to eventBus");
+            String text = message.toString();
+            duelEventBus.onHpUpdate.emit(l -> l.accept(text));
+        } else {
+            System.out.println("⚠️ HP_UPDATE but duelEventBus is null");
+        }
+    }
+
+    private void handleQteStart() {
+        if (duelEventBus != null) {
+            System.out.println("⚔️ QTE_START forwarding to eventBus");
+            duelEventBus.onQteStart.emit(Runnable::run);
+        } else {
+            System.out.println("⚠️ QTE_START but duelEventBus is null");
+        }
+    }
+
+    /**
+     * TURN_CHANGE:true|false - whether it is our turn to attack
+     */
+    private void handleTurnChange(Message message) {
+        boolean isMyTurn = message.arg(0).equals("true");
+        if (duelEventBus != null) {
+            System.out.println("⚔️ TURN_CHANGE(" + isMyTurn + ") forwarding to eventBus");
+            duelEventBus.onTurnChange.emit(l -> l.accept(isMyTurn));
+        } else {
+            System.out.println("⚠️ TURN_CHANGE but duelEventBus is null");
+        }
+    }
+
+    /**
+     * DUEL_END:WIN|LOSE
+     */
+    private void handleDuelEnd(Message message) {
+        String result = message.arg(0).trim();
+        if (duelEventBus != null) {
+            System.out.println("⚔️ DUEL_END(" + result + ") forwarding to eventBus");
+            duelEventBus.onDuelEnd.emit(l -> l.accept(result));
+        } else {
+            System.out.println("⚠️ DUEL_END but duelEventBus is null");
+        }
+    }
+
     /**
      * Handle chat message from server
      */
-    private void handleChatMessage(String message) {
-        String[] parts = message.substring(5).split(":", 2);
-        if (parts.length == 2) {
-            addChatMessage(parts[0] + ": " + parts[1]);
+    private void handleChatMessage(Message message) {
+        if (message.argCount() == 2) {
+            addChatMessage(message.arg(0) + ": " + message.arg(1));
         }
     }
 
@@ -380,11 +413,11 @@ public class LobbyClient extends Application {
         dialog.showAndWait().ifPresent(accepted -> {
             if (accepted) {
                 System.out.println("✅ Duel accepted from " + requester);
-                out.println("DUEL_ACCEPT");
+                connection.sendQuietly(Message.of(Command.DUEL_ACCEPT, requester));
                 addChatMessage("✅ You accepted the duel from " + requester);
             } else {
                 System.out.println("❌ Duel declined from " + requester);
-                out.println("DUEL_DECLINE");
+                connection.sendQuietly(Message.of(Command.DUEL_DECLINE, requester));
                 addChatMessage("❌ You declined the duel from " + requester);
             }
         });
@@ -393,17 +426,16 @@ public class LobbyClient extends Application {
     /**
      * Handle duel start - switch to duel view
      */
-    private void handleDuelStart(String data) {
-        System.out.println("⚔️ handleDuelStart: Received data: " + data);
+    private void handleDuelStart(Message message) {
+        System.out.println("⚔️ handleDuelStart: Received data: " + message);
 
-        String[] parts = data.split(":");
-        if (parts.length != 2) {
-            System.err.println("❌ handleDuelStart: Invalid data format (expected 3 parts, got " + parts.length + ")");
+        if (message.argCount() != 2) {
+            System.err.println("❌ handleDuelStart: Invalid data format (expected 2 fields, got " + message.argCount() + ")");
             return;
         }
 
-        currentDuelId = parts[0];
-        duelRole = Integer.parseInt(parts[1]);
+        currentDuelId = message.arg(0);
+        duelRole = Integer.parseInt(message.arg(1));
         isInDuel = true;
 
         System.out.println("⚔️ handleDuelStart: duelId=" + currentDuelId + ", role=" + duelRole);
@@ -421,11 +453,11 @@ public class LobbyClient extends Application {
 
         duelEventBus.sendAttack = ignored -> {
             System.out.println("🌐 Sending ATTACK to server");
-            out.println("ATTACK");
+            connection.sendQuietly(Message.of(Command.ATTACK));
         };
         duelEventBus.sendQTE = isInput -> {
             System.out.println("🌐 Sending QTE_RESULT:" + isInput + " to server");
-            out.println("QTE_RESULT:" + isInput);
+            connection.sendQuietly(Message.of(Command.QTE_RESULT, isInput));
         };
 
         // Swap scene
@@ -489,7 +521,7 @@ public class LobbyClient extends Application {
         }
 
         System.out.println("⚔️ sendDuelRequest: Requesting duel with " + selected.getUsername());
-        out.println("DUEL_REQUEST:" + selected.getUsername());
+        connection.sendQuietly(Message.of(Command.DUEL_REQUEST, selected.getUsername()));
         addChatMessage("⚔️ You sent a duel request to " + selected.getUsername());
     }
 
@@ -504,7 +536,7 @@ public class LobbyClient extends Application {
                 "-fx-padding: 10; -fx-font-weight: bold;"
         );
 
-        out.println("SET_DND:" + (isDND ? "ON" : "OFF"));
+        connection.sendQuietly(Message.of(Command.SET_DND, isDND ? "ON" : "OFF"));
     }
 
     /**
@@ -524,7 +556,7 @@ public class LobbyClient extends Application {
         }
 
         isSpectating = true;
-        out.println("ENTER_SPECTATE:" + selected.getUsername());
+        connection.sendQuietly(Message.of(Command.ENTER_SPECTATE, selected.getUsername()));
         spectateBtn.setVisible(false);
         exitSpectateBtn.setVisible(true);
         addChatMessage("👁️ You are now spectating " + selected.getUsername());
@@ -535,51 +567,60 @@ public class LobbyClient extends Application {
      */
     private void exitSpectate() {
         isSpectating = false;
-        out.println("EXIT_SPECTATE");
+        connection.sendQuietly(Message.of(Command.EXIT_SPECTATE));
         spectateBtn.setVisible(true);
         exitSpectateBtn.setVisible(false);
         addChatMessage("👁️ You exited spectator mode");
     }
 
     /**
-     * Send chat message
+     * Send chat message ("/join room" switches rooms instead)
      */
     private void sendChat() {
         String msg = chatInput.getText().trim();
-        if (!msg.isEmpty() && out != null) {
-            out.println("CHAT:" + msg);
+        if (!msg.isEmpty() && connection != null) {
+            if (msg.startsWith("/join ")) {
+                connection.sendQuietly(Message.of(Command.JOIN_ROOM, msg.substring(6).trim()));
+            } else {
+                connection.sendQuietly(Message.of(Command.CHAT, msg));
+            }
             chatInput.clear();
         }
     }
 
     /**
-     * Update player list from server
+     * ROOM_JOINED:name - the room's PLAYER_LIST follows, so drop the old room's presence state
      */
-    private void updatePlayerList(String message) {
-        players.clear();
-        String data = message.substring(12);
-
-        if (!data.isEmpty()) {
-            for (String entry : data.split(";")) {
-                if (!entry.isEmpty()) {
-                    String[] parts = entry.split(",");
-                    if (parts.length == 2) {
-                        try {
-                            players.add(new Player(parts[0], PlayerStatus.valueOf(parts[1])));
-                        } catch (IllegalArgumentException e) {
-                            System.err.println("⚠️ Unknown status: " + parts[1]);
-                        }
-                    }
-                }
-            }
+    private void handleRoomJoined(Message message) {
+        presence.reset();
+        addChatMessage("🏠 You are in #" + message.arg(0) + " (type /join <room> to move)");
+    }
+
+    /**
+     * PLAYER_LIST - replace the player list with a server snapshot
+     */
+    private void updatePlayerList(Message message) {
+        presence.applySnapshot(message);
+    }
+
+    /**
+     * PLAYER_JOIN / PLAYER_LEAVE / PLAYER_STATUS - one change on top of the last snapshot
+     */
+    private void applyPresenceDelta(Message message) {
+        if (!presence.applyDelta(message)) {
+            connection.sendQuietly(Message.of(Command.GET_PLAYERS));
         }
     }
 
     /**
-     * Add message to chat
+     * Add message to chat, dropping the oldest lines past MAX_CHAT_LINES
      */
     private void addChatMessage(String message) {
         chatMessages.add(message);
+        int excess = chatMessages.size() - MAX_CHAT_LINES;
+        if (excess > 0) {
+            chatMessages.remove(0, excess);
+        }
         chatListView.scrollTo(chatMessages.size() - 1);
     }
 
@@ -598,10 +639,14 @@ public class LobbyClient extends Application {
      * Close connection on exit
      */
     private void closeConnection() {
+        String report = commands.report();
+        if (!report.isEmpty()) {
+            System.out.print("📊 Command stats:\n" + report);
+        }
         System.out.println("🔌 closeConnection: Closing socket");
         try {
-            if (socket != null && socket.isConnected()) {
-                socket.close();
+            if (connection != null && connection.isConnected()) {
+                connection.close();
                 System.out.println("🔌 closeConnection: Socket closed");
             }
         } catch (IOException e) {
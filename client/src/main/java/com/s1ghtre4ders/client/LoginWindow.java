@@ -1,5 +1,8 @@
 package com.s1ghtre4ders.client;
 
+import com.s1ghtre4ders.client.net.Command;
+import com.s1ghtre4ders.client.net.Message;
+import com.s1ghtre4ders.client.net.ServerConnection;
 import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
@@ -21,9 +24,7 @@ import java.security.MessageDigest;
  */
 public class LoginWindow {
     private Stage primaryStage;
-    private Socket socket;
-    private BufferedReader in;
-    private PrintWriter out;
+    private ServerConnection connection;
     private Label statusLabel;
     private Runnable onLoginSuccess;
 
@@ -158,9 +159,7 @@ public class LoginWindow {
 
         new Thread(() -> {
             try {
-                socket = new Socket("localhost", 5555);
-                in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-                out = new PrintWriter(socket.getOutputStream(), true);
+                connection = new ServerConnection(new Socket("localhost", 5555));
 
                 String passwordHash = hashPassword(password);
                 if (passwordHash == null) {
@@ -169,19 +168,19 @@ public class LoginWindow {
                     return;
                 }
 
-                out.println("LOGIN:" + username + ":" + passwordHash);
+                connection.send(Message.of(Command.LOGIN, username, passwordHash));
 
-                String response = in.readLine();
+                Message response = connection.read();
 
-                if (response != null && response.startsWith("LOGIN_OK:")) {
+                if (response != null && response.command == Command.LOGIN_OK) {
                     setStatus("✅ Login successful!", "#00aa00");
-                    LobbyClient.setConnection(socket, in, out, username);
+                    LobbyClient.setConnection(connection, username);
                     Thread.sleep(800);
                     if (onLoginSuccess != null) {
                         onLoginSuccess.run();
                     }
-                } else if (response != null && response.startsWith("LOGIN_FAIL:")) {
-                    String reason = response.substring(11);
+                } else if (response != null && response.command == Command.LOGIN_FAIL) {
+                    String reason = response.arg(0);
                     setStatus("❌ " + reason, "#cc0000");
                     closeConnection();
                 } else {
@@ -223,9 +222,7 @@ public class LoginWindow {
 
         new Thread(() -> {
             try {
-                socket = new Socket("localhost", 5555);
-                in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-                out = new PrintWriter(socket.getOutputStream(), true);
+                connection = new ServerConnection(new Socket("localhost", 5555));
 
                 String passwordHash = hashPassword(password);
                 if (passwordHash == null) {
@@ -234,11 +231,11 @@ public class LoginWindow {
                     return;
                 }
 
-                out.println("REGISTER:" + username + ":" + passwordHash);
+                connection.send(Message.of(Command.REGISTER, username, passwordHash));
 
-                String response = in.readLine();
+                Message response = connection.read();
 
-                if (response != null && response.startsWith("REGISTER_OK")) {
+                if (response != null && response.command == Command.REGISTER_OK) {
                     setStatus("✅ Account created! You can now login.", "#00aa00");
                     Platform.runLater(() -> {
                         usernameField.clear();
@@ -246,8 +243,8 @@ public class LoginWindow {
                         usernameField.requestFocus();
                     });
                     closeConnection();
-                } else if (response != null && response.startsWith("REGISTER_FAIL:")) {
-                    String reason = response.substring(14);
+                } else if (response != null && response.command == Command.REGISTER_FAIL) {
+                    String reason = response.arg(0);
                     setStatus("❌ " + reason, "#cc0000");
                     closeConnection();
                 } else {
@@ -299,8 +296,8 @@ public class LoginWindow {
      */
     private void closeConnection() {
         try {
-            if (socket != null && !socket.isClosed()) {
-                socket.close();
+            if (connection != null) {
+                connection.close();
             }
         } catch (IOException e) {
             // Silently ignore
@@ -0,0 +1,139 @@
+package com.s1ghtre4ders.client.models;
+
+import com.s1ghtre4ders.client.net.Message;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The client's copy of its room's presence: a PLAYER_LIST snapshot plus the
+ * versioned deltas on top of it (see the server's LobbyPresence).
+ *
+ * Keeps players (the list the UI shows) in step; deltas already included in
+ * the snapshot are ignored, and a missing one means the caller should ask
+ * for a fresh snapshot. Not thread-safe: LobbyClient calls it on the FX
+ * thread only.
+ */
+public class PresenceModel {
+    private final List<Player> players;
+    private final Map<String, Player> index = new HashMap<>();
+    private long version = -1; // -1 = waiting for a PLAYER_LIST snapshot
+
+    public PresenceModel(List<Player> players) {
+        this.players = players;
+    }
+
+    /**
+     * Forget the current state (e.g. after changing rooms) until the next snapshot
+     */
+    public void reset() {
+        version = -1;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Replace everything with a snapshot
+     * Format: PLAYER_LIST:version;name,STATUS;name,STATUS;...
+     */
+    public void applySnapshot(Message message) {
+        List<Player> snapshot = new ArrayList<>();
+        index.clear();
+
+        for (String entry : message.arg(0).split(";")) {
+            if (entry.isEmpty()) {
+                continue;
+            }
+            String[] parts = entry.split(",");
+            if (parts.length == 1) {
+                try {
+                    version = Long.parseLong(parts[0]);
+                } catch (NumberFormatException e) {
+                    System.err.println("⚠️ Bad presence version: " + parts[0]);
+                }
+            } else if (parts.length == 2) {
+                try {
+                    Player player = new Player(parts[0], PlayerStatus.valueOf(parts[1]));
+                    snapshot.add(player);
+                    index.put(player.getUsername(), player);
+                } catch (IllegalArgumentException e) {
+                    System.err.println("⚠️ Unknown status: " + parts[1]);
+                }
+            }
+        }
+
+        players.clear();
+        players.addAll(snapshot);
+    }
+
+    /**
+     * Apply one presence change on top of the last snapshot
+     * Format: PLAYER_JOIN:version:name:STATUS | PLAYER_LEAVE:version:name | PLAYER_STATUS:version:name:STATUS
+     * @return false if a delta was missed: state is dropped and the caller should send GET_PLAYERS
+     */
+    public boolean applyDelta(Message message) {
+        if (message.argCount() < 2) {
+            System.err.println("⚠️ Bad presence delta: " + message);
+            return true;
+        }
+
+        long deltaVersion;
+        try {
+            deltaVersion = Long.parseLong(message.arg(0));
+        } catch (NumberFormatException e) {
+            System.err.println("⚠️ Bad presence version: " + message);
+            return true;
+        }
+
+        if (version < 0 || deltaVersion <= version) {
+            // No snapshot yet, or already included in the snapshot we have
+            return true;
+        }
+        if (deltaVersion != version + 1) {
+            System.out.println("⚠️ Presence gap (have v" + version + ", got v" + deltaVersion + ") - resyncing");
+            version = -1;
+            return false;
+        }
+        version = deltaVersion;
+
+        String name = message.arg(1);
+        try {
+            switch (message.command) {
+                case PLAYER_JOIN: {
+                    Player player = new Player(name, PlayerStatus.valueOf(message.arg(2)));
+                    Player previous = index.put(name, player);
+                    if (previous != null) {
+                        players.remove(previous);
+                    }
+                    players.add(player);
+                    break;
+                }
+                case PLAYER_LEAVE: {
+                    Player player = index.remove(name);
+                    if (player != null) {
+                        players.remove(player);
+                    }
+                    break;
+                }
+                case PLAYER_STATUS: {
+                    Player player = index.get(name);
+                    if (player != null) {
+                        player.setStatus(PlayerStatus.valueOf(message.arg(2)));
+                        // Re-set the same item so a ListView redraws its cell
+                        players.set(players.indexOf(player), player);
+                    }
+                    break;
+                }
+                default:
+                    break;
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("⚠️ Bad presence delta: " + message);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,100 @@
+package com.s1ghtre4ders.client.net;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Length-prefixed binary framing (protocol version 2).
+ *
+ * Frame layout (big-endian):
+ *   u32 length   - bytes that follow, i.e. opcode + fields (at most MAX_FRAME)
+ *   u8  opcode   - Command.opcode
+ *   fields       - each u32 byteLength + UTF-8 bytes, as many as fit in length
+ *
+ * Fields are opaque byte strings, so names and chat text may contain colons
+ * or newlines, and no line scanning or split() is needed to parse them.
+ * Version 1 had u16 lengths, which a PLAYER_LIST of a few thousand players
+ * already outgrew.
+ */
+public final class BinaryCodec {
+    public static final int VERSION = 2;
+    public static final int MAX_FRAME = 16 * 1024 * 1024;
+
+    private BinaryCodec() {
+    }
+
+    /**
+     * @throws IllegalArgumentException if the frame would be longer than MAX_FRAME
+     */
+    public static byte[] encode(Message message) {
+        int argCount = message.argCount();
+        byte[][] encodedArgs = new byte[argCount][];
+        long length = 1;
+        for (int i = 0; i < argCount; i++) {
+            encodedArgs[i] = message.arg(i).getBytes(StandardCharsets.UTF_8);
+            length += 4 + encodedArgs[i].length;
+        }
+        if (length > MAX_FRAME) {
+            throw new IllegalArgumentException("frame too large: " + length + " bytes for " + message.command);
+        }
+
+        byte[] frame = new byte[4 + (int) length];
+        putInt(frame, 0, (int) length);
+        frame[4] = message.command.opcode;
+        int pos = 5;
+        for (byte[] arg : encodedArgs) {
+            putInt(frame, pos, arg.length);
+            System.arraycopy(arg, 0, frame, pos + 4, arg.length);
+            pos += 4 + arg.length;
+        }
+        return frame;
+    }
+
+    /**
+     * Decode the body of one frame (everything after the u32 length prefix)
+     */
+    public static Message decode(byte[] body, int offset, int length) throws IOException {
+        if (length < 1) {
+            throw new IOException("empty binary frame");
+        }
+        Command command = Command.byOpcode(body[offset]);
+        if (command == null) {
+            throw new IOException("unknown opcode 0x" + Integer.toHexString(body[offset] & 0xFF));
+        }
+
+        int pos = offset + 1;
+        int end = offset + length;
+        int count = 0;
+        for (long p = pos; p < end; count++) {
+            if (p + 4 > end) {
+                throw new IOException("truncated field in " + command);
+            }
+            p += 4 + (getInt(body, (int) p) & 0xFFFFFFFFL);
+            if (p > end) {
+                throw new IOException("truncated field in " + command);
+            }
+        }
+
+        String[] args = new String[count];
+        for (int i = 0; i < count; i++) {
+            int argLength = getInt(body, pos);
+            args[i] = new String(body, pos + 4, argLength, StandardCharsets.UTF_8);
+            pos += 4 + argLength;
+        }
+        return Message.of(command, args);
+    }
+
+    /**
+     * Read a u32 length prefix or field length (big-endian)
+     */
+    public static int getInt(byte[] b, int at) {
+        return (b[at] & 0xFF) << 24 | (b[at + 1] & 0xFF) << 16 | (b[at + 2] & 0xFF) << 8 | (b[at + 3] & 0xFF);
+    }
+
+    private static void putInt(byte[] b, int at, int value) {
+        b[at] = (byte) (value >>> 24);
+        b[at + 1] = (byte) (value >>> 16);
+        b[at + 2] = (byte) (value >>> 8);
+        b[at + 3] = (byte) value;
+    }
+}
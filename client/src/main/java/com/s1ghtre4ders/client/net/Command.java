@@ -0,0 +1,82 @@
+package com.s1ghtre4ders.client.net;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Every command on the wire, with its binary opcode.
+ *
+ * arity is the number of fields the client expects when it parses this command
+ * from a text line; the last field takes the rest of the line. Opcodes must stay
+ * in sync with the server's Command.
+ */
+public enum Command {
+    // Not a real command: text line with an unrecognised token (raw line in arg 0)
+    UNKNOWN(0x00, 1),
+
+    // Client -> server
+    LOGIN(0x01, 2),
+    REGISTER(0x02, 2),
+    CHAT(0x03, 2),              // client -> server: CHAT:text, server -> client: CHAT:sender:text
+    SET_DND(0x04, 1),
+    ENTER_SPECTATE(0x05, 1),
+    EXIT_SPECTATE(0x06, 0),
+    DUEL_REQUEST(0x07, 1),
+    DUEL_ACCEPT(0x08, 1),
+    DUEL_DECLINE(0x09, 1),
+    ATTACK(0x0A, 0),
+    QTE_RESULT(0x0B, 1),
+    GET_PLAYERS(0x0C, 0),
+    PROTO_ACCEPT(0x0D, 1),
+    PONG(0x0E, 1),              // echoes the PING sequence number
+    JOIN_ROOM(0x0F, 1),
+
+    // Server -> client
+    LOGIN_OK(0x20, 1),
+    LOGIN_FAIL(0x21, 1),
+    REGISTER_OK(0x22, 1),
+    REGISTER_FAIL(0x23, 1),
+    ERROR(0x24, 1),
+    PLAYER_LIST(0x25, 1),
+    PLAYER_JOIN(0x26, 3),
+    PLAYER_LEAVE(0x27, 2),
+    PLAYER_STATUS(0x28, 3),
+    DUEL_REQUESTED(0x29, 1),
+    DUEL_DECLINED(0x2A, 1),
+    DUEL_START(0x2B, 2),
+    HP_UPDATE(0x2C, 2),
+    QTE_START(0x2D, 0),
+    TURN_CHANGE(0x2E, 1),
+    DUEL_END(0x2F, 1),
+    PROTO_OFFER(0x30, 1),
+    PROTO_SWITCH(0x31, 1),
+    PING(0x32, 1),              // PING:seq, heartbeat - answer with PONG:seq
+    ROOM_JOINED(0x33, 1),
+    DUEL_EXPIRED(0x34, 1);
+
+    public final byte opcode;
+    public final int arity;
+
+    private static final Map<String, Command> BY_NAME = new HashMap<>();
+    private static final Command[] BY_OPCODE = new Command[256];
+
+    static {
+        for (Command c : values()) {
+            BY_NAME.put(c.name(), c);
+            BY_OPCODE[c.opcode & 0xFF] = c;
+        }
+    }
+
+    Command(int opcode, int arity) {
+        this.opcode = (byte) opcode;
+        this.arity = arity;
+    }
+
+    public static Command byName(String name) {
+        return BY_NAME.get(name);
+    }
+
+    public static Command byOpcode(byte opcode) {
+        return BY_OPCODE[opcode & 0xFF];
+    }
+}
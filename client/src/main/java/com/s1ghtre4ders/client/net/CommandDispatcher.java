@@ -0,0 +1,93 @@
+package com.s1ghtre4ders.client.net;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Command -> handler table, indexed by opcode, with per-command counters.
+ *
+ * The command is parsed once by the codec; dispatch is a single array lookup
+ * instead of a chain of comparisons. Every dispatch records a call count and
+ * the time spent in the handler, so report() shows which commands dominate
+ * CPU. Register everything up front; dispatch is then safe from any thread.
+ *
+ * @param <C> whatever the handlers act on (e.g. the lobby window)
+ */
+public final class CommandDispatcher<C> {
+    @FunctionalInterface
+    public interface Handler<C> {
+        void handle(C context, Message message);
+    }
+
+    private final Handler<C>[] handlers;
+    private final Stats[] stats;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public CommandDispatcher() {
+        this.handlers = (Handler<C>[]) new Handler[256];
+        this.stats = new Stats[256];
+    }
+
+    public CommandDispatcher<C> on(Command command, Handler<C> handler) {
+        int slot = command.opcode & 0xFF;
+        handlers[slot] = handler;
+        stats[slot] = new Stats();
+        return this;
+    }
+
+    /**
+     * @return false if no handler is registered for the message's command
+     */
+    public boolean dispatch(C context, Message message) {
+        int slot = message.command.opcode & 0xFF;
+        Handler<C> handler = handlers[slot];
+        if (handler == null) {
+            return false;
+        }
+        long start = System.nanoTime();
+        try {
+            handler.handle(context, message);
+        } finally {
+            stats[slot].record(System.nanoTime() - start);
+        }
+        return true;
+    }
+
+    /**
+     * One line per command that has been dispatched at least once, busiest (by total time) first
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        Command[] commands = Command.values();
+        Arrays.sort(commands, (a, b) -> Long.compare(totalNanos(b), totalNanos(a)));
+        for (Command command : commands) {
+            Stats s = stats[command.opcode & 0xFF];
+            if (s == null || s.count.sum() == 0) {
+                continue;
+            }
+            long count = s.count.sum();
+            long total = s.nanos.sum();
+            sb.append(String.format("  %-15s n=%-8d total=%.1fms avg=%.1fus max=%.1fus%n",
+                    command, count, total / 1e6, total / 1e3 / count, s.maxNanos.get() / 1e3));
+        }
+        return sb.toString();
+    }
+
+    private long totalNanos(Command command) {
+        Stats s = stats[command.opcode & 0xFF];
+        return s != null ? s.nanos.sum() : 0;
+    }
+
+    private static final class Stats {
+        final LongAdder count = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        void record(long elapsed) {
+            count.increment();
+            nanos.add(elapsed);
+            maxNanos.accumulate(elapsed);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.s1ghtre4ders.client.net;
+
+import java.io.*;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Client side of the lobby socket, in whichever wire format was negotiated.
+ *
+ * Starts on newline-delimited text. When the server sends PROTO_OFFER with a
+ * version we speak, acceptOffer() answers PROTO_ACCEPT (as text) and switches
+ * outbound to binary frames; inbound switches right after the server's
+ * PROTO_SWITCH line. Servers that never offer keep the connection on text.
+ *
+ * read() is meant for one reader thread; send() may be called from any thread.
+ * Inbound lines and frames may be up to BinaryCodec.MAX_FRAME bytes either
+ * way, so a big room's PLAYER_LIST fits on text as well as on binary.
+ */
+public class ServerConnection implements Closeable {
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+    private final byte[] prefix = new byte[4];
+    private byte[] buffer = new byte[256];
+    private boolean binaryIn = false;  // reader thread only
+    private boolean binaryOut = false; // guarded by this
+
+    public ServerConnection(Socket socket) throws IOException {
+        this.socket = socket;
+        this.in = new BufferedInputStream(socket.getInputStream());
+        this.out = new BufferedOutputStream(socket.getOutputStream());
+    }
+
+    /**
+     * Send one message and flush it
+     */
+    public synchronized void send(Message message) throws IOException {
+        if (binaryOut) {
+            out.write(BinaryCodec.encode(message));
+        } else {
+            out.write((TextCodec.encode(message) + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        out.flush();
+    }
+
+    /**
+     * Send without throwing; a broken socket shows up on the reader thread anyway
+     */
+    public void sendQuietly(Message message) {
+        try {
+            send(message);
+        } catch (IOException e) {
+            System.err.println("❌ Send failed (" + message.command + "): " + e.getMessage());
+        }
+    }
+
+    /**
+     * Block until the next message arrives
+     * @return the message, or null once the server closed the connection
+     */
+    public Message read() throws IOException {
+        Message message = binaryIn ? readBinary() : readText();
+        if (message != null && message.command == Command.PROTO_SWITCH) {
+            binaryIn = true;
+        }
+        return message;
+    }
+
+    /**
+     * Answer a PROTO_OFFER
+     * @return true if we took it (everything we send from now on is binary)
+     */
+    public synchronized boolean acceptOffer(Message offer) throws IOException {
+        if (!Integer.toString(BinaryCodec.VERSION).equals(offer.arg(0).trim())) {
+            return false;
+        }
+        send(Message.of(Command.PROTO_ACCEPT, Integer.toString(BinaryCodec.VERSION)));
+        binaryOut = true;
+        return true;
+    }
+
+    public boolean isConnected() {
+        return socket.isConnected() && !socket.isClosed();
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+
+    private Message readText() throws IOException {
+        int length = 0;
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b == -1) {
+                return null;
+            }
+            if (length == BinaryCodec.MAX_FRAME) {
+                throw new IOException("line exceeds " + BinaryCodec.MAX_FRAME + " bytes");
+            }
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            buffer[length++] = (byte) b;
+        }
+        if (length > 0 && buffer[length - 1] == '\r') {
+            length--;
+        }
+        return TextCodec.decode(new String(buffer, 0, length, StandardCharsets.UTF_8));
+    }
+
+    private Message readBinary() throws IOException {
+        if (in.readNBytes(prefix, 0, 4) < 4) {
+            return null;
+        }
+        int length = BinaryCodec.getInt(prefix, 0);
+        if (length < 0 || length > BinaryCodec.MAX_FRAME) {
+            throw new IOException("frame of " + (length & 0xFFFFFFFFL) + " bytes exceeds " + BinaryCodec.MAX_FRAME);
+        }
+        if (length > buffer.length) {
+            buffer = new byte[length];
+        }
+        int read = 0;
+        while (read < length) {
+            int n = in.read(buffer, read, length - read);
+            if (n == -1) {
+                return null;
+            }
+            read += n;
+        }
+        return BinaryCodec.decode(buffer, 0, length);
+    }
+}
@@ -0,0 +1,37 @@
+package com.s1ghtre4ders.client.net;
+
+/**
+ * Classic newline-delimited text protocol: COMMAND or COMMAND:field:field...
+ */
+public final class TextCodec {
+    private TextCodec() {
+    }
+
+    /**
+     * Parse one line (without its newline). Unrecognised commands come back as
+     * UNKNOWN with the raw line as the only field.
+     */
+    public static Message decode(String line) {
+        int colon = line.indexOf(':');
+        String token = colon == -1 ? line : line.substring(0, colon);
+        Command command = Command.byName(token);
+        if (command == null || command == Command.UNKNOWN) {
+            return Message.of(Command.UNKNOWN, line);
+        }
+        if (command.arity == 0 || colon == -1) {
+            return Message.of(command);
+        }
+        return Message.of(command, line.substring(colon + 1).split(":", command.arity));
+    }
+
+    public static String encode(Message message) {
+        if (message.command == Command.UNKNOWN) {
+            return message.arg(0);
+        }
+        StringBuilder sb = new StringBuilder(message.command.name());
+        for (int i = 0; i < message.argCount(); i++) {
+            sb.append(':').append(message.arg(i));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,33 @@
+plugins {
+    application
+    java
+}
+
+java {
+    toolchain {
+        languageVersion.set(JavaLanguageVersion.of(21))
+    }
+}
+
+application {
+    mainClass.set("com.s1ghtre4ders.loadgen.LoadGenerator")
+}
+
+repositories {
+    mavenCentral()
+}
+
+// Headless bots speak the real client protocol: compile the client's
+// JavaFX-free net package alongside the load generator
+sourceSets {
+    main {
+        java {
+            srcDir("../client/src/main/java")
+            include("com/s1ghtre4ders/client/net/**", "com/s1ghtre4ders/loadgen/**")
+        }
+    }
+}
+
+tasks.withType<JavaCompile> {
+    options.encoding = "UTF-8"
+}
@@ -0,0 +1,70 @@
+package com.s1ghtre4ders.loadgen;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Weighted choice of what a bot does on each think tick, from a spec like
+ * "chat=40,dnd=10,spectate=10,players=10,duel=30" (weights need not add to 100).
+ */
+final class ActionMix {
+    enum Action {CHAT, DND, SPECTATE, PLAYERS, DUEL, IDLE}
+
+    private final Action[] actions;
+    private final int[] cumulative;
+    private final int total;
+
+    ActionMix(String spec) {
+        Map<Action, Integer> weights = new EnumMap<>(Action.class);
+        for (String entry : spec.split(",")) {
+            entry = entry.trim();
+            if (entry.isEmpty()) {
+                continue;
+            }
+            int eq = entry.indexOf('=');
+            if (eq == -1) {
+                throw new IllegalArgumentException("Bad mix entry (want action=weight): " + entry);
+            }
+            int weight = Integer.parseInt(entry.substring(eq + 1).trim());
+            if (weight > 0) {
+                weights.put(Action.valueOf(entry.substring(0, eq).trim().toUpperCase()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            weights.put(Action.IDLE, 1);
+        }
+        actions = weights.keySet().toArray(new Action[0]);
+        cumulative = new int[actions.length];
+        int sum = 0;
+        for (int i = 0; i < actions.length; i++) {
+            sum += weights.get(actions[i]);
+            cumulative[i] = sum;
+        }
+        total = sum;
+    }
+
+    Action pick() {
+        int roll = ThreadLocalRandom.current().nextInt(total);
+        for (int i = 0; i < cumulative.length; i++) {
+            if (roll < cumulative[i]) {
+                return actions[i];
+            }
+        }
+        return actions[actions.length - 1];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        int previous = 0;
+        for (int i = 0; i < actions.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(actions[i].name().toLowerCase()).append('=').append(cumulative[i] - previous);
+            previous = cumulative[i];
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,305 @@
+package com.s1ghtre4ders.loadgen;
+
+import com.s1ghtre4ders.client.net.Command;
+import com.s1ghtre4ders.client.net.Message;
+import com.s1ghtre4ders.client.net.ServerConnection;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * S1ghtRe4ders Load Bot
+ *
+ * One headless lobby client: REGISTER (an existing account is fine), LOGIN,
+ * then one scripted action per think time until the run ends. Answers PING
+ * and PROTO_OFFER like the real client.
+ *
+ * Bots come in pairs. Only the first of a pair issues DUEL_REQUEST (to its
+ * partner), the partner accepts, and both play the duel out: ATTACK on their
+ * turn, QTE_RESULT on QTE_START. Nothing else is scripted while in a duel.
+ *
+ * Latency is request -> the server message that proves it was handled:
+ * - LOGIN -> LOGIN_OK, REGISTER -> REGISTER_OK/FAIL, GET_PLAYERS -> PLAYER_LIST
+ * - CHAT -> our own line echoed by the room (send time is in the text)
+ * - SET_DND / ENTER_SPECTATE / EXIT_SPECTATE -> our PLAYER_STATUS delta
+ * - DUEL_REQUEST -> DUEL_REQUESTED at the partner, DUEL_ACCEPT -> DUEL_START
+ * - ATTACK -> QTE_START at the defender, QTE_RESULT -> our HP_UPDATE
+ * so presence and announcement latencies include the server's broadcast tick.
+ */
+final class Bot {
+    private static final String CHAT_PREFIX = "lg:";
+    private static final String[] QTE_QUALITIES = {"NONE", "HALF", "MISS"};
+    private static final long DUEL_REQUEST_RETRY_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private enum Status {AVAILABLE, DND, SPECTATOR}
+
+    final String username;
+    private final LoadGenerator run;
+    private final boolean challenger;
+    volatile Bot partner; // set right after the second bot of the pair is created
+
+    private ServerConnection connection;
+    private volatile boolean loggedIn;
+    private volatile boolean closed;
+    private volatile boolean inDuel;
+    private volatile Status status = Status.AVAILABLE;
+
+    // Outstanding requests (System.nanoTime() when sent, 0 = none)
+    private volatile long registerSentAt;
+    private volatile long loginSentAt;
+    private volatile long playersSentAt;
+    private volatile long statusSentAt;
+    private volatile Command statusCommand;
+    private volatile String statusExpected;
+    private volatile long duelRequestSentAt;
+    private volatile long acceptSentAt;
+    private volatile long attackSentAt;
+    private volatile long qteSentAt;
+
+    Bot(LoadGenerator run, String username, boolean challenger) {
+        this.run = run;
+        this.username = username;
+        this.challenger = challenger;
+    }
+
+    boolean isLoggedIn() {
+        return loggedIn;
+    }
+
+    /**
+     * Connect and read until the socket closes (blocking: call on its own thread)
+     */
+    void run() {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(run.host, run.port), 5000);
+            socket.setTcpNoDelay(true);
+            connection = new ServerConnection(socket);
+            run.connected();
+            registerSentAt = System.nanoTime();
+            send(Message.of(Command.REGISTER, username, run.password));
+
+            Message message;
+            while ((message = connection.read()) != null) {
+                run.received();
+                handle(message);
+            }
+            run.disconnected(this, loggedIn ? "closed by server" : "closed before login");
+        } catch (IOException e) {
+            run.disconnected(this, (loggedIn ? "" : "connect/login: ") + e.getMessage());
+        } finally {
+            closed = true;
+            if (loggedIn) {
+                loggedIn = false;
+                run.loggedOut();
+            }
+        }
+    }
+
+    void close() {
+        closed = true;
+        try {
+            if (connection != null) {
+                connection.close();
+            }
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void send(Message message) throws IOException {
+        connection.send(message);
+        run.sent();
+    }
+
+    private void sendQuietly(Message message) {
+        try {
+            send(message);
+        } catch (IOException e) {
+            close();
+        }
+    }
+
+    private void handle(Message message) throws IOException {
+        long now = System.nanoTime();
+        switch (message.command) {
+            case PING -> send(Message.of(Command.PONG, message.arg(0)));
+            case PROTO_OFFER -> {
+                if (run.binary) {
+                    connection.acceptOffer(message);
+                }
+            }
+            case REGISTER_OK, REGISTER_FAIL -> {
+                run.record(Command.REGISTER, registerSentAt, now);
+                loginSentAt = System.nanoTime();
+                send(Message.of(Command.LOGIN, username, run.password));
+            }
+            case LOGIN_OK -> {
+                run.record(Command.LOGIN, loginSentAt, now);
+                loggedIn = true;
+                run.loggedIn();
+                scheduleNext();
+            }
+            case LOGIN_FAIL -> {
+                run.error("LOGIN_FAIL " + message.arg(0));
+                close();
+            }
+            case ERROR -> {
+                run.error(message.arg(0));
+                if (!loggedIn) {
+                    run.refused(message.arg(0)); // admission control turns us away with ERROR before any login
+                    close();
+                }
+            }
+            case CHAT -> {
+                if (username.equals(message.arg(0)) && message.arg(1).startsWith(CHAT_PREFIX)) {
+                    run.record(Command.CHAT, Long.parseLong(message.arg(1).substring(CHAT_PREFIX.length())), now);
+                }
+            }
+            case PLAYER_STATUS -> {
+                if (username.equals(message.arg(1)) && statusSentAt != 0 && message.arg(2).equals(statusExpected)) {
+                    run.record(statusCommand, statusSentAt, now);
+                    statusSentAt = 0;
+                }
+            }
+            case PLAYER_LIST -> {
+                if (playersSentAt != 0) {
+                    run.record(Command.GET_PLAYERS, playersSentAt, now);
+                    playersSentAt = 0;
+                }
+            }
+            case DUEL_REQUESTED -> {
+                Bot from = partner;
+                if (from != null && from.username.equals(message.arg(0))) {
+                    run.record(Command.DUEL_REQUEST, from.duelRequestSentAt, now);
+                }
+                acceptSentAt = System.nanoTime();
+                send(Message.of(Command.DUEL_ACCEPT, message.arg(0)));
+            }
+            case DUEL_START -> {
+                inDuel = true;
+                status = Status.AVAILABLE;
+                duelRequestSentAt = 0;
+                if (acceptSentAt != 0) {
+                    run.record(Command.DUEL_ACCEPT, acceptSentAt, now);
+                    acceptSentAt = 0;
+                }
+            }
+            case TURN_CHANGE -> {
+                if ("true".equals(message.arg(0))) {
+                    run.schedule(this::attack, run.duelThinkMs());
+                }
+            }
+            case QTE_START -> {
+                Bot attacker = partner;
+                if (attacker != null) {
+                    run.record(Command.ATTACK, attacker.attackSentAt, now);
+                }
+                run.schedule(this::answerQte, run.duelThinkMs());
+            }
+            case HP_UPDATE -> {
+                if (username.equals(message.arg(0)) && qteSentAt != 0) {
+                    run.record(Command.QTE_RESULT, qteSentAt, now);
+                    qteSentAt = 0;
+                }
+            }
+            case DUEL_END -> {
+                inDuel = false;
+                status = Status.AVAILABLE;
+                if ("WIN".equals(message.arg(0))) {
+                    run.duelFinished();
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void scheduleNext() {
+        if (!closed) {
+            run.schedule(this::act, run.thinkMs());
+        }
+    }
+
+    /**
+     * One scripted lobby action, then wait a think time for the next
+     */
+    private void act() {
+        if (closed || !run.isRunning()) {
+            return;
+        }
+        if (!inDuel) {
+            switch (run.mix.pick()) {
+                case CHAT -> sendQuietly(Message.of(Command.CHAT, CHAT_PREFIX + System.nanoTime()));
+                case DND -> toggleDnd();
+                case SPECTATE -> toggleSpectate();
+                case PLAYERS -> {
+                    playersSentAt = System.nanoTime();
+                    sendQuietly(Message.of(Command.GET_PLAYERS));
+                }
+                case DUEL -> requestDuel();
+                case IDLE -> {
+                }
+            }
+        }
+        scheduleNext();
+    }
+
+    private void toggleDnd() {
+        if (status == Status.DND) {
+            changeStatus(Command.SET_DND, Status.AVAILABLE, "LOBBY_AVAILABLE", "OFF");
+        } else {
+            changeStatus(Command.SET_DND, Status.DND, "LOBBY_DND", "ON");
+        }
+    }
+
+    private void toggleSpectate() {
+        if (status == Status.SPECTATOR) {
+            changeStatus(Command.EXIT_SPECTATE, Status.AVAILABLE, "LOBBY_AVAILABLE");
+        } else {
+            String target = partner != null ? partner.username : username;
+            changeStatus(Command.ENTER_SPECTATE, Status.SPECTATOR, "SPECTATOR", target);
+        }
+    }
+
+    private void changeStatus(Command command, Status next, String expected, String... args) {
+        statusCommand = command;
+        statusExpected = expected;
+        statusSentAt = System.nanoTime();
+        status = next;
+        sendQuietly(Message.of(command, args));
+    }
+
+    /**
+     * Challenger only, and only when the partner can take it (DND or busy partners
+     * would refuse) and our last challenge is not still on its way
+     */
+    private void requestDuel() {
+        Bot target = partner;
+        if (!challenger || target == null || !target.loggedIn || target.inDuel || target.status == Status.DND) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (duelRequestSentAt != 0 && now - duelRequestSentAt < DUEL_REQUEST_RETRY_NANOS) {
+            return;
+        }
+        duelRequestSentAt = now;
+        sendQuietly(Message.of(Command.DUEL_REQUEST, target.username));
+    }
+
+    private void attack() {
+        if (inDuel && !closed) {
+            attackSentAt = System.nanoTime();
+            sendQuietly(Message.of(Command.ATTACK));
+        }
+    }
+
+    private void answerQte() {
+        if (inDuel && !closed) {
+            String quality = QTE_QUALITIES[ThreadLocalRandom.current().nextInt(QTE_QUALITIES.length)];
+            qteSentAt = System.nanoTime();
+            sendQuietly(Message.of(Command.QTE_RESULT, quality));
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.s1ghtre4ders.loadgen;
+
+import com.s1ghtre4ders.client.net.Command;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * S1ghtRe4ders Load Generator
+ *
+ * Opens N headless protocol clients (see Bot) against a LobbyServer and runs
+ * a scripted mix of lobby traffic, then prints throughput and p50/p99/p999
+ * latency per message type and the peak number of logged-in clients.
+ *
+ * Example: ./gradlew :loadgen:run --args="--clients=2000 --durationSec=120"
+ *
+ * Options (--key=value):
+ * - host, port                 server to hit (localhost:5555)
+ * - clients                    bots to open (100), paired up for duels
+ * - connectRate                new connections per second (200)
+ * - durationSec                length of the run, counted from the first connect (60)
+ * - thinkMs                    mean pause between a bot's actions, +-50% jitter (1000)
+ * - duelThinkMs                pause before ATTACK / QTE_RESULT in a duel (300)
+ * - mix                        action weights: chat, dnd, spectate, players, duel, idle
+ *                              (chat=40,dnd=10,spectate=10,players=10,duel=30)
+ * - binary                     take the server's binary protocol offer (true)
+ * - userPrefix, password       bot accounts are userPrefix0..N-1, registered on first use (bot, loadgen)
+ * - reportSec                  progress line every N seconds (5)
+ * - ceiling                    connection ceiling mode (false): idle bots keep connecting
+ *                              until the server refuses one or a connect/login fails,
+ *                              then the run holds for 5s and reports the peak
+ *
+ * Keep the server's rate limits in mind (5 chats/s per connection by default):
+ * a think time far below 1000ms mostly measures the limiter.
+ */
+public final class LoadGenerator {
+    private static final long CEILING_HOLD_SEC = 5;
+
+    final String host;
+    final int port;
+    final String password;
+    final boolean binary;
+    final ActionMix mix;
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors() / 2), r -> {
+                Thread t = new Thread(r, "loadgen-script");
+                t.setDaemon(true);
+                return t;
+            });
+
+    private final int clients;
+    private final double connectRate;
+    private final long durationSec;
+    private final long thinkMs;
+    private final long duelThinkMs;
+    private final String userPrefix;
+    private final long reportSec;
+    private final boolean ceiling;
+
+    private final Map<Command, LatencyHistogram> latencies = new EnumMap<>(Command.class);
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder duels = new LongAdder();
+    private final AtomicInteger open = new AtomicInteger();
+    private final AtomicInteger online = new AtomicInteger();
+    private final AtomicInteger peakOnline = new AtomicInteger();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> disconnects = new ConcurrentHashMap<>();
+    private final AtomicReference<String> ceilingReason = new AtomicReference<>();
+    private final List<Bot> bots = new ArrayList<>();
+    private volatile boolean running = true;
+    private long startNanos;
+
+    private LoadGenerator(Map<String, String> options) {
+        host = options.getOrDefault("host", "localhost");
+        port = Integer.parseInt(options.getOrDefault("port", "5555"));
+        password = options.getOrDefault("password", "loadgen");
+        binary = Boolean.parseBoolean(options.getOrDefault("binary", "true"));
+        ceiling = Boolean.parseBoolean(options.getOrDefault("ceiling", "false"));
+        clients = Integer.parseInt(options.getOrDefault("clients", ceiling ? "100000" : "100"));
+        connectRate = Double.parseDouble(options.getOrDefault("connectRate", "200"));
+        durationSec = Long.parseLong(options.getOrDefault("durationSec", ceiling ? "600" : "60"));
+        thinkMs = Long.parseLong(options.getOrDefault("thinkMs", "1000"));
+        duelThinkMs = Long.parseLong(options.getOrDefault("duelThinkMs", "300"));
+        userPrefix = options.getOrDefault("userPrefix", "bot");
+        reportSec = Long.parseLong(options.getOrDefault("reportSec", "5"));
+        mix = new ActionMix(ceiling ? "idle=1" : options.getOrDefault("mix", "chat=40,dnd=10,spectate=10,players=10,duel=30"));
+        for (Command command : new Command[]{Command.REGISTER, Command.LOGIN, Command.CHAT, Command.SET_DND,
+                Command.ENTER_SPECTATE, Command.EXIT_SPECTATE, Command.GET_PLAYERS, Command.DUEL_REQUEST,
+                Command.DUEL_ACCEPT, Command.ATTACK, Command.QTE_RESULT}) {
+            latencies.put(command, new LatencyHistogram());
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                System.err.println("⚠️ Ignoring unknown argument: " + arg);
+                continue;
+            }
+            int eq = arg.indexOf('=');
+            options.put(eq == -1 ? arg.substring(2) : arg.substring(2, eq), eq == -1 ? "true" : arg.substring(eq + 1));
+        }
+        new LoadGenerator(options).execute();
+    }
+
+    private void execute() throws InterruptedException {
+        System.out.println("========================================");
+        System.out.println("🤖 S1ghtRe4ders Load Generator");
+        System.out.println("========================================");
+        System.out.printf("🎯 %s:%d, %d clients at %.0f/s for %ds, %s%n", host, port, clients, connectRate, durationSec,
+                ceiling ? "connection ceiling mode" : "mix " + mix + ", think " + thinkMs + "ms");
+
+        startNanos = System.nanoTime();
+        long deadline = startNanos + TimeUnit.SECONDS.toNanos(durationSec);
+        scheduler.scheduleAtFixedRate(this::progress, reportSec, reportSec, TimeUnit.SECONDS);
+
+        for (int i = 0; i < clients && System.nanoTime() < deadline && ceilingReason.get() == null; i++) {
+            long due = startNanos + (long) (i * 1e9 / connectRate);
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            Bot bot = new Bot(this, userPrefix + i, i % 2 == 0);
+            if (i % 2 == 1) {
+                Bot challenger = bots.get(i - 1);
+                challenger.partner = bot;
+                bot.partner = challenger;
+            }
+            bots.add(bot);
+            Thread.ofVirtual().name("bot-" + i).start(bot::run);
+        }
+
+        if (ceiling && ceilingReason.get() != null) {
+            TimeUnit.SECONDS.sleep(CEILING_HOLD_SEC);
+        } else {
+            long wait = deadline - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+        }
+
+        running = false;
+        double elapsedSec = (System.nanoTime() - startNanos) / 1e9;
+        int stillOnline = online.get();
+        for (Bot bot : bots) {
+            bot.close();
+        }
+        scheduler.shutdownNow();
+        report(elapsedSec, stillOnline);
+    }
+
+    // ---- Called by bots ----
+
+    boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Run a bot step later on the script pool; dropped once the run is over
+     */
+    void schedule(Runnable step, long delayMs) {
+        if (!running) {
+            return;
+        }
+        try {
+            scheduler.schedule(step, delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // shutting down
+        }
+    }
+
+    long thinkMs() {
+        return jitter(thinkMs);
+    }
+
+    long duelThinkMs() {
+        return jitter(duelThinkMs);
+    }
+
+    private static long jitter(long meanMs) {
+        return meanMs <= 1 ? meanMs : ThreadLocalRandom.current().nextLong(meanMs / 2, meanMs * 3 / 2 + 1);
+    }
+
+    void connected() {
+        open.incrementAndGet();
+    }
+
+    void loggedIn() {
+        peakOnline.accumulateAndGet(online.incrementAndGet(), Math::max);
+    }
+
+    void loggedOut() {
+        online.decrementAndGet();
+    }
+
+    void sent() {
+        sent.increment();
+    }
+
+    void received() {
+        received.increment();
+    }
+
+    void duelFinished() {
+        duels.increment();
+    }
+
+    /**
+     * @param sentAt System.nanoTime() when the request left, 0 = not ours
+     */
+    void record(Command command, long sentAt, long receivedAt) {
+        LatencyHistogram histogram = latencies.get(command);
+        if (histogram != null && sentAt != 0 && running) {
+            histogram.recordNanos(receivedAt - sentAt);
+        }
+    }
+
+    void error(String text) {
+        errors.computeIfAbsent(text, t -> new LongAdder()).increment();
+    }
+
+    /**
+     * Server turned a connection away (admission control)
+     */
+    void refused(String reason) {
+        if (ceiling) {
+            ceilingReason.compareAndSet(null, "server refused: " + reason);
+        }
+    }
+
+    void disconnected(Bot bot, String reason) {
+        open.decrementAndGet();
+        if (!running) {
+            return;
+        }
+        disconnects.computeIfAbsent(reason, r -> new LongAdder()).increment();
+        if (ceiling && !bot.isLoggedIn()) {
+            ceilingReason.compareAndSet(null, reason);
+        }
+    }
+
+    // ---- Reporting ----
+
+    private void progress() {
+        double elapsedSec = (System.nanoTime() - startNanos) / 1e9;
+        System.out.printf("⏱️ t=%.0fs open=%d online=%d (peak %d) sent=%d recv=%d duels=%d%n",
+                elapsedSec, open.get(), online.get(), peakOnline.get(), sent.sum(), received.sum(), duels.sum());
+    }
+
+    private void report(double elapsedSec, int stillOnline) {
+        System.out.println();
+        System.out.printf("📊 %.1fs, %d bots opened, %d online at the end, peak %d online%n",
+                elapsedSec, bots.size(), stillOnline, peakOnline.get());
+        System.out.printf("📨 sent %d (%.0f/s), received %d (%.0f/s), %d duels finished%n",
+                sent.sum(), sent.sum() / elapsedSec, received.sum(), received.sum() / elapsedSec, duels.sum());
+        System.out.println();
+        System.out.printf("%-15s %9s %9s %10s %10s %10s %10s %10s%n",
+                "request", "count", "per sec", "mean ms", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (Map.Entry<Command, LatencyHistogram> entry : latencies.entrySet()) {
+            LatencyHistogram h = entry.getValue();
+            if (h.count() == 0) {
+                continue;
+            }
+            System.out.printf("%-15s %9d %9.1f %10.2f %10.2f %10.2f %10.2f %10.2f%n",
+                    entry.getKey(), h.count(), h.count() / elapsedSec, h.meanMicros() / 1000.0,
+                    h.percentileMicros(0.5) / 1000.0, h.percentileMicros(0.99) / 1000.0,
+                    h.percentileMicros(0.999) / 1000.0, h.maxMicros() / 1000.0);
+        }
+        printCounts("⚠️ Errors from server", errors);
+        printCounts("🔌 Disconnects", disconnects);
+        if (ceiling) {
+            String reason = ceilingReason.get();
+            System.out.println();
+            System.out.printf("🚧 Connection ceiling: %d logged-in clients (%s)%n", peakOnline.get(),
+                    reason != null ? "stopped by " + reason : "not reached, raise --clients or --durationSec");
+        }
+    }
+
+    private static void printCounts(String title, Map<String, LongAdder> counts) {
+        if (counts.isEmpty()) {
+            return;
+        }
+        System.out.println();
+        System.out.println(title + ":");
+        counts.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()))
+                .limit(10)
+                .forEach(e -> System.out.printf("  %7d  %s%n", e.getValue().sum(), e.getKey()));
+    }
+}
@@ -5,7 +5,7 @@ plugins {
 
 java {
     toolchain {
-        languageVersion.set(JavaLanguageVersion.of(17))
+        languageVersion.set(JavaLanguageVersion.of(21))
     }
 }
 
@@ -18,7 +18,83 @@ repositories {
 }
 
 dependencies {
-    // (no extra deps yet – pure Java)
+    testImplementation(platform("org.junit:junit-bom:5.10.0"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+}
+
+sourceSets {
+    // Tests talk to the server through the real client codecs: compile the
+    // client's JavaFX-free net package alongside them (as the loadgen does)
+    test {
+        java {
+            srcDir("../client/src/main/java")
+            include("com/s1ghtre4ders/server/**", "com/s1ghtre4ders/client/net/**")
+        }
+    }
+    // JMH micro benchmarks and plain-Java load benchmarks (src/bench/java), kept out
+    // of the server jar; client-side costs are measured on the client's JavaFX-free
+    // net and model code
+    create("bench") {
+        java {
+            srcDir("../client/src/main/java")
+            include("com/s1ghtre4ders/server/**", "com/s1ghtre4ders/client/net/**", "com/s1ghtre4ders/client/models/**")
+        }
+        compileClasspath += sourceSets.main.get().output
+        runtimeClasspath += sourceSets.main.get().output
+    }
+}
+
+val jmhVersion = "1.37"
+
+dependencies {
+    "benchImplementation"("org.openjdk.jmh:jmh-core:$jmhVersion")
+    "benchAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:$jmhVersion")
+}
+
+// Servers started by tests write accounts.json (and friends) here, not into the module
+tasks.test {
+    useJUnitPlatform()
+    val work = layout.buildDirectory.dir("test-work").get().asFile
+    workingDir = work
+    doFirst {
+        work.deleteRecursively()
+        work.mkdirs()
+    }
+}
+
+tasks.register<JavaExec>("benchLogging") {
+    group = "verification"
+    description = "Messages per second through a hot path with logging off, suppressed and on"
+    classpath = sourceSets["bench"].runtimeClasspath
+    mainClass.set("com.s1ghtre4ders.server.log.LogBenchmark")
+}
+
+// One JMH run of every server micro benchmark (fork, heap, GC and iterations are
+// pinned on the classes), with allocation per op from the gc profiler; the table
+// also lands in build/reports/bench/bench-results.txt for diffing. --args takes
+// JMH regexps and options, e.g. --args="Presence -p size=10000".
+tasks.register<JavaExec>("bench") {
+    group = "verification"
+    description = "Protocol, presence, duel and account JMH benchmarks (--args=\"regexp\")"
+    classpath = sourceSets["bench"].runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    workingDir = layout.buildDirectory.dir("reports/bench").get().asFile
+    argumentProviders.add(CommandLineArgumentProvider {
+        listOf("-prof", "gc", "-rf", "text", "-rff", "bench-results.txt")
+    })
+    doFirst { workingDir.mkdirs() }
+}
+
+// Connections held by --io=thread vs --io=virtual before latency degrades
+// (starts a server JVM per mode); table in build/reports/bench/connections-results.txt
+tasks.register<JavaExec>("benchConnections") {
+    group = "verification"
+    description = "Idle connections each thread-per-connection mode holds before p99 latency degrades (--args=\"steps modes\")"
+    classpath = sourceSets["bench"].runtimeClasspath
+    mainClass.set("com.s1ghtre4ders.server.ConnectionModeBenchmark")
+    workingDir = layout.buildDirectory.dir("reports/bench").get().asFile
+    doFirst { workingDir.mkdirs() }
 }
 
 tasks.withType<Jar> {
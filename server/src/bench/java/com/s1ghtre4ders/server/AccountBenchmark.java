@@ -0,0 +1,73 @@
+package com.s1ghtre4ders.server;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AccountStore: parsing accounts.json (startup) and validateLogin (every
+ * LOGIN), against 10,000 generated accounts. Runs where there is no
+ * accounts.json, so nothing on disk is read or written.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g", "-XX:+UseParallelGC"})
+@Warmup(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AccountBenchmark {
+    private static final int ACCOUNTS = 10_000;
+
+    private AccountStore store;
+    private final String[] names = new String[ACCOUNTS];
+    private final String[] hashes = new String[ACCOUNTS];
+    private String file;
+    private int i;
+
+    @Setup
+    public void setUp() {
+        store = new AccountStore();
+        StringBuilder json = new StringBuilder("{\"accounts\":[");
+        for (int n = 0; n < ACCOUNTS; n++) {
+            names[n] = "player" + n;
+            hashes[n] = AccountStore.hashPassword("secret" + n);
+            json.append(n == 0 ? "" : ",").append("\n  {\"username\":\"").append(names[n])
+                    .append("\",\"hash\":\"").append(hashes[n]).append("\"}");
+        }
+        file = json.append("\n]}").toString();
+        store.parseJSON(file);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int parseJSON() {
+        store.parseJSON(file);
+        return store.getAccountCount();
+    }
+
+    @Benchmark
+    public boolean validateLoginOk() {
+        int n = i++ % ACCOUNTS;
+        return store.validateLogin(names[n], hashes[n]);
+    }
+
+    @Benchmark
+    public boolean validateLoginWrongPassword() {
+        return store.validateLogin(names[i++ % ACCOUNTS], "nope");
+    }
+
+    @Benchmark
+    public boolean validateLoginUnknownUser() {
+        int n = i++;
+        return store.validateLogin("ghost" + (n & 1023), hashes[n % ACCOUNTS]);
+    }
+}
@@ -0,0 +1,184 @@
+package com.s1ghtre4ders.server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How many concurrent connections --io=thread and --io=virtual hold before
+ * latency degrades.
+ *
+ * Each mode gets a fresh server JVM (no login deadline, admission caps out of
+ * the way). The benchmark then opens idle sockets step by step, and at every
+ * step times PROBES request/reply round trips on one more socket: GET_PLAYERS
+ * before logging in, which the server answers with one ERROR line. A mode
+ * stops at the first step whose p99 passes DEGRADED_MS or whose sockets could
+ * not all be opened. Every connection costs the server a reader thread of the
+ * chosen kind, which is the difference being measured.
+ *
+ * Run: ./gradlew :server:benchConnections [--args="1000,2000,4000,8000 thread,virtual"]
+ * The table also lands in build/reports/bench/connections-results.txt.
+ */
+public final class ConnectionModeBenchmark {
+    private static final int[] STEPS = {1_000, 2_000, 4_000, 8_000};
+    private static final String[] MODES = {"thread", "virtual"};
+    private static final int PROBES = 200;
+    private static final double DEGRADED_MS = 50;
+    private static final int CONNECT_TIMEOUT_MS = 5_000;
+    private static final long STARTUP_TIMEOUT_SEC = 30;
+    private static final byte[] PROBE = "GET_PLAYERS\n".getBytes(StandardCharsets.UTF_8);
+
+    private ConnectionModeBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] steps = args.length > 0 ? Arrays.stream(args[0].split(",")).mapToInt(Integer::parseInt).toArray() : STEPS;
+        String[] modes = args.length > 1 ? args[1].split(",") : MODES;
+        System.out.printf("S1ghtRe4ders connection modes (%s, %s, %d cores)%n",
+                System.getProperty("java.vm.name"), System.getProperty("java.vm.version"),
+                Runtime.getRuntime().availableProcessors());
+
+        List<String> lines = new ArrayList<>();
+        for (String mode : modes) {
+            lines.addAll(run(mode, steps));
+        }
+        Files.write(Path.of("connections-results.txt"), lines);
+        System.out.println("Results written to " + Path.of("connections-results.txt").toAbsolutePath());
+    }
+
+    /**
+     * One mode against a server JVM of its own
+     * @return table rows
+     */
+    private static List<String> run(String mode, int[] steps) throws Exception {
+        List<String> rows = new ArrayList<>();
+        int port = freePort();
+        Path workDir = Files.createTempDirectory("s1ght-bench-" + mode);
+        Process server = startServer(mode, port, steps[steps.length - 1], workDir);
+        List<Socket> idle = new ArrayList<>();
+        try {
+            awaitListening(port, server);
+            for (int step : steps) {
+                long start = System.nanoTime();
+                String failure = openUpTo(idle, step, port);
+                double openSec = (System.nanoTime() - start) / 1e9;
+                String row;
+                if (failure != null) {
+                    row = String.format(Locale.ROOT, "%-8s %,7d connections  could not open: %s", mode, step, failure);
+                } else {
+                    double[] p = probe(port);
+                    row = String.format(Locale.ROOT, "%-8s %,7d connections  p50 %7.2f ms  p99 %7.2f ms  max %7.2f ms  (opened in %.1fs)",
+                            mode, step, p[0], p[1], p[2], openSec);
+                    if (p[1] > DEGRADED_MS) {
+                        failure = "p99 over " + DEGRADED_MS + " ms";
+                    }
+                }
+                System.out.println(row);
+                rows.add(row);
+                if (failure != null) {
+                    break;
+                }
+            }
+        } finally {
+            for (Socket socket : idle) {
+                socket.close();
+            }
+            server.destroy();
+            server.waitFor(10, TimeUnit.SECONDS);
+        }
+        return rows;
+    }
+
+    private static Process startServer(String mode, int port, int maxConnections, Path workDir) throws IOException {
+        String java = ProcessHandle.current().info().command().orElse("java");
+        return new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                "com.s1ghtre4ders.server.LobbyServer",
+                "--io=" + mode,
+                "--port=" + port,
+                "--maxConnections=" + (maxConnections + 16),
+                "--maxUnauthenticated=" + (maxConnections + 16),
+                "--handshakeTimeoutSec=0",
+                "--metricsPort=0",
+                "--commandStatsSec=0",
+                "--logLevel=WARN")
+                .directory(workDir.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(workDir.resolve("server.log").toFile())
+                .start();
+    }
+
+    private static void awaitListening(int port, Process server) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(STARTUP_TIMEOUT_SEC);
+        while (System.nanoTime() < deadline) {
+            if (!server.isAlive()) {
+                throw new IllegalStateException("server exited with " + server.exitValue());
+            }
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress("127.0.0.1", port), CONNECT_TIMEOUT_MS);
+                return;
+            } catch (IOException e) {
+                TimeUnit.MILLISECONDS.sleep(100);
+            }
+        }
+        throw new IllegalStateException("server did not listen on " + port + " within " + STARTUP_TIMEOUT_SEC + "s");
+    }
+
+    /**
+     * @return null, or why not every socket could be opened
+     */
+    private static String openUpTo(List<Socket> idle, int count, int port) {
+        while (idle.size() < count) {
+            Socket socket = new Socket();
+            try {
+                socket.connect(new InetSocketAddress("127.0.0.1", port), CONNECT_TIMEOUT_MS);
+            } catch (IOException e) {
+                return idle.size() + " open, then " + e.getMessage();
+            }
+            idle.add(socket);
+        }
+        return null;
+    }
+
+    /**
+     * @return p50, p99 and max round trip in milliseconds
+     */
+    private static double[] probe(int port) throws IOException {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress("127.0.0.1", port), CONNECT_TIMEOUT_MS);
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(CONNECT_TIMEOUT_MS);
+            OutputStream out = socket.getOutputStream();
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            long[] rtt = new long[PROBES];
+            for (int i = 0; i < PROBES; i++) {
+                long start = System.nanoTime();
+                out.write(PROBE);
+                out.flush();
+                if (in.readLine() == null) {
+                    throw new IOException("server closed the probe socket");
+                }
+                rtt[i] = System.nanoTime() - start;
+            }
+            Arrays.sort(rtt);
+            return new double[] {rtt[PROBES / 2] / 1e6, rtt[PROBES * 99 / 100] / 1e6, rtt[PROBES - 1] / 1e6};
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.s1ghtre4ders.server;
+
+import com.s1ghtre4ders.client.models.PresenceModel;
+import com.s1ghtre4ders.server.LobbyServer.PlayerInfo;
+import com.s1ghtre4ders.server.LobbyServer.PlayerStatus;
+import com.s1ghtre4ders.server.protocol.Message;
+import com.s1ghtre4ders.server.protocol.TextCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Player list cost at 100, 1,000 and 10,000 players in one room:
+ * - snapshot: building PLAYER_LIST (what replaced broadcastPlayerList)
+ * - snapshotFrame: snapshot plus its text encoding, i.e. one outbound frame
+ * - statusDelta: one status change drained into a delta, the steady-state path
+ * - clientSnapshot: the client applying that snapshot (LobbyClient's PresenceModel)
+ * - clientStatusDelta: the client applying one PLAYER_STATUS delta
+ *
+ * Snapshots are measured in text, the encoding every client can read.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g", "-XX:+UseParallelGC"})
+@Warmup(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PresenceBenchmark {
+    private static final PlayerStatus[] STATUSES = PlayerStatus.values();
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    private LobbyPresence presence;
+    private String[] names;
+    private final List<Message> batch = new ArrayList<>();
+    private final Message[] snapshot = new Message[1];
+    private com.s1ghtre4ders.client.net.Message received;
+    private PresenceModel client;
+    private int i;
+
+    @Setup
+    public void setUp() {
+        presence = new LobbyPresence(new ConcurrentHashMap<>());
+        Random random = new Random(size);
+        names = new String[size];
+        for (int n = 0; n < size; n++) {
+            names[n] = "player" + n;
+            presence.join(new PlayerInfo(names[n], STATUSES[random.nextInt(STATUSES.length)]), m -> { });
+        }
+        presence.drainDeltas(batch);
+        presence.sendSnapshot(m -> snapshot[0] = m);
+        received = clientMessage(snapshot[0]);
+        client = new PresenceModel(new ArrayList<>());
+        client.applySnapshot(received);
+    }
+
+    @Benchmark
+    public Message snapshot() {
+        presence.sendSnapshot(m -> snapshot[0] = m);
+        return snapshot[0];
+    }
+
+    @Benchmark
+    public byte[] snapshotFrame() {
+        presence.sendSnapshot(m -> snapshot[0] = m);
+        return (TextCodec.encode(snapshot[0]) + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public int statusDelta() {
+        int n = i++;
+        presence.setStatus(names[n % size], STATUSES[n & 3]);
+        batch.clear();
+        return presence.drainDeltas(batch);
+    }
+
+    @Benchmark
+    public long clientSnapshot() {
+        client.applySnapshot(received);
+        return client.version();
+    }
+
+    @Benchmark
+    public long clientStatusDelta() {
+        int n = i++;
+        client.applyDelta(com.s1ghtre4ders.client.net.Message.of(
+                com.s1ghtre4ders.client.net.Command.PLAYER_STATUS,
+                Long.toString(client.version() + 1), names[n % size], STATUSES[n & 3].name()));
+        return client.version();
+    }
+
+    /**
+     * The server's message as the client reads it off the wire
+     */
+    private static com.s1ghtre4ders.client.net.Message clientMessage(Message message) {
+        return com.s1ghtre4ders.client.net.TextCodec.decode(TextCodec.encode(message));
+    }
+}
@@ -0,0 +1,225 @@
+package com.s1ghtre4ders.server.duel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * DuelManager throughput with no-op callbacks: one exchange is attack (opens
+ * the QTE window and schedules its timeout) plus qteResult (closes it, which
+ * runs applyDamage and the turn change, and cancels the window's timeout).
+ * Finished duels are replaced, so the cost of createDuel is spread over ~28
+ * exchanges. These run with 0 lanes, i.e. the duel logic alone.
+ *
+ * lanes(K) pushes BATCH exchanges spread over DUELS duels through K duel
+ * lanes and waits for the last one; the score is per exchange, so it measures
+ * mailbox handoff plus logic, and how that scales with K. Results are NONE
+ * (no damage) so the duels never end.
+ *
+ * logAppend is one DuelLog record into a memory-mapped segment (temp
+ * directory, segments rolling over every 4 MB), loggedAttackQteResult the
+ * first benchmark with the log on (6 records per exchange).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g", "-XX:+UseParallelGC"})
+@Warmup(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DuelBenchmark {
+    private static final int DUELS = 256;
+    private static final int BATCH = 20_000;
+
+    /**
+     * One manager with the duel log off and the duel it is fighting
+     */
+    @State(Scope.Thread)
+    public static class Logic {
+        DuelManager manager;
+        Fight fight;
+        int i;
+
+        @Setup
+        public void setUp() {
+            manager = new DuelManager(0, null);
+            fight = new Fight(manager);
+        }
+
+        @TearDown
+        public void tearDown() {
+            manager.shutdown();
+        }
+    }
+
+    /**
+     * The same with a DuelLog in a fresh temp directory
+     */
+    @State(Scope.Thread)
+    public static class Logged {
+        final long keyHi = DuelLog.keyHi("bench");
+        final long keyLo = DuelLog.keyLo("bench");
+        DuelLog log;
+        DuelManager manager;
+        Fight fight;
+        int i;
+
+        @Setup
+        public void setUp() throws IOException {
+            Path dir = Files.createTempDirectory("duel-log-bench");
+            log = new DuelLog(dir, 4 * 1024 * 1024, 4);
+            manager = new DuelManager(0, log);
+            fight = new Fight(manager);
+        }
+
+        @TearDown
+        public void tearDown() {
+            manager.shutdown();
+        }
+    }
+
+    /**
+     * DUELS open duels on a manager with the given number of lanes
+     */
+    @State(Scope.Thread)
+    public static class Lanes {
+        @Param({"1", "2", "4"})
+        public int lanes;
+
+        DuelManager manager;
+        final AtomicLong resolved = new AtomicLong();
+        final DuelManager.Duel[] duels = new DuelManager.Duel[DUELS];
+        final boolean[] bobAttacks = new boolean[DUELS]; // NONE results never end a duel, so turns just alternate
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            manager = new DuelManager(lanes, null);
+            DuelManager.Callbacks counting = new Fight(null) {
+                @Override
+                public void onTakeDamage(String playerId, int damage) {
+                    resolved.incrementAndGet();
+                }
+            };
+            for (int d = 0; d < DUELS; d++) {
+                duels[d] = manager.createDuel("lane-bench-" + d, "alice", "bob", counting);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            manager.shutdown();
+        }
+    }
+
+    @Benchmark
+    public int attackQteResult(Logic s) {
+        DuelManager.Duel duel = s.fight.current();
+        String attacker = duel.state.getAttackerId();
+        String defender = duel.state.getDefenderId();
+        s.manager.attack(duel.duelId, attacker);
+        s.manager.qteResult(duel.duelId, defender, (s.i++ & 1) == 0 ? "HALF" : "MISS");
+        return duel.state.getHp(defender);
+    }
+
+    @Benchmark
+    public int qteResultNoWindow(Logic s) {
+        DuelManager.Duel duel = s.fight.current();
+        s.manager.qteResult(duel.duelId, duel.state.getDefenderId(), "NONE"); // rejected: no QTE open
+        return duel.state.getHp(duel.state.player1Id);
+    }
+
+    @Benchmark
+    public int logAppend(Logged s) {
+        int i = s.i++;
+        s.log.append(s.keyHi, s.keyLo, DuelLog.DAMAGE, 2, 0, 15, i & 0x7F);
+        return i;
+    }
+
+    @Benchmark
+    public int loggedAttackQteResult(Logged s) {
+        DuelManager.Duel duel = s.fight.current();
+        s.manager.attack(duel.duelId, duel.state.getAttackerId());
+        s.manager.qteResult(duel.duelId, duel.state.getDefenderId(), (s.i++ & 1) == 0 ? "HALF" : "MISS");
+        return duel.state.getHp(duel.state.player1Id);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long lanes(Lanes s) {
+        long target = s.resolved.get() + BATCH;
+        for (int n = 0; n < BATCH; n++) {
+            int d = n % DUELS;
+            String attacker = s.bobAttacks[d] ? "bob" : "alice";
+            String defender = s.bobAttacks[d] ? "alice" : "bob";
+            s.bobAttacks[d] = !s.bobAttacks[d];
+            s.manager.attack(s.duels[d].duelId, attacker);
+            s.manager.qteResult(s.duels[d].duelId, defender, "NONE");
+        }
+        while (s.resolved.get() < target) {
+            Thread.onSpinWait();
+        }
+        return target;
+    }
+
+    /**
+     * The duel being fought; a new one starts when it ends
+     */
+    private static class Fight implements DuelManager.Callbacks {
+        private final DuelManager manager;
+        private DuelManager.Duel duel;
+        private int number;
+
+        /**
+         * @param manager null = just the no-op callbacks, no duel
+         */
+        Fight(DuelManager manager) {
+            this.manager = manager;
+            if (manager != null) {
+                next();
+            }
+        }
+
+        DuelManager.Duel current() {
+            if (duel.state.getPhase() == DuelState.Phase.ENDED) {
+                next();
+            }
+            return duel;
+        }
+
+        private void next() {
+            number++;
+            duel = manager.createDuel("bench-" + number, "alice", "bob", this);
+        }
+
+        @Override
+        public void onQteStart(String defenderId) {
+        }
+
+        @Override
+        public void onTakeDamage(String playerId, int damage) {
+        }
+
+        @Override
+        public void onTurnChange(String attackerId, String defenderId) {
+        }
+
+        @Override
+        public void onDuelEnd(String winnerId) {
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.s1ghtre4ders.server.log;
+
+import com.s1ghtre4ders.server.protocol.Message;
+import com.s1ghtre4ders.server.protocol.TextCodec;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Messages per second through a stand-in for ClientConnection.onMessage
+ * (decode one line, log it) with several reader threads:
+ * - baseline:  no logging at all
+ * - println:   the old synchronous System.out.println with concatenation
+ * - suppressed: Log.debug at the default INFO level
+ * - async:     Log.debug enabled, drained by the background writer
+ *
+ * Output goes to a null stream so the console's own speed doesn't drown the
+ * numbers; on a real terminal the println case is far worse.
+ *
+ * Run: ./gradlew :server:benchLogging [--args="threads seconds"]
+ */
+public final class LogBenchmark {
+    private static final String[] LINES = {"QTE_RESULT:HALF", "ATTACK", "CHAT:gg wp", "SET_DND:ON"};
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        PrintStream console = new PrintStream(System.out, true, StandardCharsets.UTF_8);
+        System.setOut(new PrintStream(OutputStream.nullOutputStream(), false, StandardCharsets.UTF_8));
+
+        console.printf("Logging benchmark: %d threads, %ds per mode%n", threads, seconds);
+        for (Mode mode : Mode.values()) {
+            run(mode, threads, 1); // warm-up
+            long perSecond = run(mode, threads, seconds) / seconds;
+            console.printf("  %-11s %,14d msg/s%n", mode.name().toLowerCase(), perSecond);
+        }
+        Log.flush();
+        console.printf("  (async writer dropped %,d lines when its buffer was full)%n", Log.dropped());
+    }
+
+    private enum Mode {
+        BASELINE,
+        PRINTLN,
+        SUPPRESSED,
+        ASYNC
+    }
+
+    private static long run(Mode mode, int threads, int seconds) throws InterruptedException {
+        Log.setLevel(mode == Mode.ASYNC ? Log.Level.DEBUG : Log.Level.INFO);
+        LongAdder handled = new LongAdder();
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch done = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; t++) {
+            String username = "player" + t;
+            Thread worker = new Thread(() -> {
+                long count = 0;
+                int i = 0;
+                while (running.get()) {
+                    Message message = TextCodec.decode(LINES[i++ & 3]);
+                    switch (mode) {
+                        case PRINTLN -> System.out.println("📨 [" + username + "] " + message);
+                        case SUPPRESSED, ASYNC -> Log.debug("📨 [{}] {}", username, message);
+                        default -> {
+                        }
+                    }
+                    count++;
+                }
+                handled.add(count);
+                done.countDown();
+            }, "bench-" + t);
+            worker.start();
+        }
+
+        Thread.sleep(seconds * 1000L);
+        running.set(false);
+        done.await();
+        Log.flush();
+        return handled.sum();
+    }
+}
@@ -0,0 +1,80 @@
+package com.s1ghtre4ders.server.net;
+
+import com.s1ghtre4ders.server.protocol.BinaryCodec;
+import com.s1ghtre4ders.server.protocol.Command;
+import com.s1ghtre4ders.server.protocol.Message;
+import com.s1ghtre4ders.server.protocol.TextCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Broadcast fan-out of one chat line to 100, 1,000 and 5,000 recipients; one
+ * op is one whole broadcast:
+ * - perRecipient: every connection encodes the line itself, as each
+ *   PrintWriter did before Frame
+ * - encodeOnce: one Frame, every connection reads its cached bytes
+ * - encodeOnceMixed: the same with every other recipient on binary, so both
+ *   encodings are built once and shared
+ * The gc.alloc.rate.norm column is the allocation the fan-out causes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g", "-XX:+UseParallelGC"})
+@Warmup(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FrameBenchmark {
+    private static final Message LINE = Message.of(Command.CHAT, "alice", "gg wp, see you in the arena");
+
+    @Param({"100", "1000", "5000"})
+    public int recipients;
+
+    @Benchmark
+    public long perRecipient() {
+        long written = 0;
+        for (int r = 0; r < recipients; r++) {
+            written += (TextCodec.encode(LINE) + "\n").getBytes(StandardCharsets.UTF_8).length;
+        }
+        return written;
+    }
+
+    @Benchmark
+    public long perRecipientBinary() {
+        long written = 0;
+        for (int r = 0; r < recipients; r++) {
+            written += BinaryCodec.encode(LINE).length;
+        }
+        return written;
+    }
+
+    @Benchmark
+    public long encodeOnce() {
+        Frame frame = Frame.of(LINE);
+        long written = 0;
+        for (int r = 0; r < recipients; r++) {
+            written += frame.bytes(false).length;
+        }
+        return written;
+    }
+
+    @Benchmark
+    public long encodeOnceMixed() {
+        Frame frame = Frame.of(LINE);
+        long written = 0;
+        for (int r = 0; r < recipients; r++) {
+            written += frame.bytes((r & 1) == 0).length;
+        }
+        return written;
+    }
+}
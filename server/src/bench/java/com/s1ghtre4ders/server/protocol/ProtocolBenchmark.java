@@ -0,0 +1,89 @@
+package com.s1ghtre4ders.server.protocol;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inbound path of ClientConnection.handleMessage: decode one client message
+ * (text line or binary frame body) and dispatch it through a CommandDispatcher
+ * built like the lobby's, with handlers that only touch the message. The
+ * dispatcher records its per-command histogram exactly as in production.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g", "-XX:+UseParallelGC"})
+@Warmup(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProtocolBenchmark {
+    private static final String[] LINES = {
+            "CHAT:gg wp, see you in the arena",
+            "ATTACK",
+            "QTE_RESULT:HALF",
+            "SET_DND:ON",
+            "GET_PLAYERS",
+            "DUEL_REQUEST:bob",
+            "PONG:42",
+            "LOGIN:alice:5e884898da28047151d0e56f8dc6292773603d0d6aabbdd62a11ef721d1542d8"
+    };
+    private static final int MASK = LINES.length - 1;
+
+    private final Message[] messages = new Message[LINES.length];
+    private final byte[][] bodies = new byte[LINES.length][];
+    private final long[] context = new long[1];
+    private CommandDispatcher<long[]> dispatcher;
+    private int i;
+
+    @Setup
+    public void setUp() {
+        for (int n = 0; n < LINES.length; n++) {
+            messages[n] = TextCodec.decode(LINES[n]);
+            byte[] frame = BinaryCodec.encode(messages[n]);
+            bodies[n] = Arrays.copyOfRange(frame, 4, frame.length); // without the u32 length prefix
+        }
+        dispatcher = new CommandDispatcher<>("bench_command_seconds");
+        for (Command command : Command.values()) {
+            if (command != Command.UNKNOWN && (command.opcode & 0xFF) < 0x20) {
+                dispatcher.on(command, (c, m) -> c[0] += m.argCount());
+            }
+        }
+    }
+
+    @Benchmark
+    public Message decodeText() {
+        return TextCodec.decode(LINES[i++ & MASK]);
+    }
+
+    @Benchmark
+    public Message decodeBinary() throws Exception {
+        byte[] body = bodies[i++ & MASK];
+        return BinaryCodec.decode(body, 0, body.length);
+    }
+
+    @Benchmark
+    public boolean dispatch() {
+        return dispatcher.dispatch(context, messages[i++ & MASK]);
+    }
+
+    @Benchmark
+    public boolean handleMessageText() {
+        return dispatcher.dispatch(context, TextCodec.decode(LINES[i++ & MASK]));
+    }
+
+    @Benchmark
+    public boolean handleMessageBinary() throws Exception {
+        byte[] body = bodies[i++ & MASK];
+        return dispatcher.dispatch(context, BinaryCodec.decode(body, 0, body.length));
+    }
+}
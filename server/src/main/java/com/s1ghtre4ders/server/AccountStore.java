@@ -1,10 +1,16 @@
 package com.s1ghtre4ders.server;
 
+import com.s1ghtre4ders.server.log.Log;
+import com.s1ghtre4ders.server.metrics.Counter;
+import com.s1ghtre4ders.server.metrics.Histogram;
+import com.s1ghtre4ders.server.metrics.Metrics;
+
 import java.io.*;
 import java.nio.file.*;
 import java.security.MessageDigest;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * S1ghtRe4ders Account Store
@@ -18,10 +24,19 @@ import java.util.concurrent.ConcurrentHashMap;
 public class AccountStore {
     private static final String ACCOUNTS_FILE = "accounts.json";
     private final Map<String, String> accounts; // username -> passwordHash
+    private final ReentrantLock saveLock = new ReentrantLock(); // not synchronized: avoids pinning virtual threads during file I/O
+
+    private final Counter loginsOk = Metrics.counter("account_logins_total", "Login attempts", "result", "ok");
+    private final Counter loginsFailed = Metrics.counter("account_logins_total", "Login attempts", "result", "failed");
+    private final Counter registrationsOk = Metrics.counter("account_registrations_total", "Registration attempts", "result", "ok");
+    private final Counter registrationsFailed = Metrics.counter("account_registrations_total", "Registration attempts", "result", "failed");
+    private final Histogram loginTime = Metrics.histogram("account_login_seconds", "Time to validate one login");
+    private final Histogram saveTime = Metrics.histogram("account_save_seconds", "Time to write accounts.json");
 
     public AccountStore() {
         this.accounts = new ConcurrentHashMap<>();
         loadAccounts();
+        Metrics.gauge("accounts", "Registered accounts", () -> accounts.size());
     }
 
     /**
@@ -33,13 +48,12 @@ public class AccountStore {
             if (file.exists()) {
                 String content = new String(Files.readAllBytes(file.toPath()));
                 parseJSON(content);
-                System.out.println("📖 Loaded " + accounts.size() + " accounts from " + ACCOUNTS_FILE);
+                Log.info("📖 Loaded {} accounts from {}", accounts.size(), ACCOUNTS_FILE);
             } else {
-                System.out.println("📁 No accounts file found; creating new one on first registration");
+                Log.info("📁 No accounts file found; creating new one on first registration");
             }
         } catch (IOException e) {
-            System.err.println("❌ Error loading accounts: " + e.getMessage());
-            e.printStackTrace();
+            Log.error("❌ Error loading accounts: " + e.getMessage(), e);
         }
     }
 
@@ -47,7 +61,7 @@ public class AccountStore {
      * Parse JSON accounts file
      * Format: {"accounts":[{"username":"Alice","hash":"abc..."},{"username":"Bob","hash":"def..."}]}
      */
-    private void parseJSON(String json) {
+    void parseJSON(String json) { // package-private for AccountBenchmark
         try {
             // Normalize whitespace
             json = json.trim();
@@ -57,7 +71,7 @@ public class AccountStore {
             int end = json.lastIndexOf("]");
 
             if (start == -1 || end == -1 || start >= end) {
-                System.out.println("⚠️ Invalid JSON format");
+                Log.warn("⚠️ Invalid JSON format");
                 return;
             }
 
@@ -96,7 +110,7 @@ public class AccountStore {
                 }
             }
         } catch (Exception e) {
-            System.err.println("❌ Error parsing JSON: " + e.getMessage());
+            Log.error("❌ Error parsing JSON: {}", e.getMessage());
         }
     }
 
@@ -118,13 +132,19 @@ public class AccountStore {
      * @return true if registration successful, false if username exists or invalid
      */
     public boolean register(String username, String passwordHash) {
+        boolean registered = tryRegister(username, passwordHash);
+        (registered ? registrationsOk : registrationsFailed).increment();
+        return registered;
+    }
+
+    private boolean tryRegister(String username, String passwordHash) {
         if (username == null || username.trim().isEmpty()) {
-            System.out.println("⚠️ Registration failed: empty username");
+            Log.info("⚠️ Registration failed: empty username");
             return false;
         }
 
         if (passwordHash == null || passwordHash.isEmpty()) {
-            System.out.println("⚠️ Registration failed: empty password hash");
+            Log.info("⚠️ Registration failed: empty password hash");
             return false;
         }
 
@@ -132,13 +152,13 @@ public class AccountStore {
         String normalizedUsername = username.toLowerCase().trim();
 
         if (accounts.containsKey(normalizedUsername)) {
-            System.out.println("⚠️ Registration failed: username '" + normalizedUsername + "' already exists");
+            Log.info("⚠️ Registration failed: username '{}' already exists", normalizedUsername);
             return false;
         }
 
         accounts.put(normalizedUsername, passwordHash);
         saveAccounts();
-        System.out.println("✅ Registered new account: " + normalizedUsername);
+        Log.debug("✅ Registered new account: {}", normalizedUsername);
         return true;
     }
 
@@ -147,6 +167,14 @@ public class AccountStore {
      * @return true if username exists and password hash matches
      */
     public boolean validateLogin(String username, String passwordHash) {
+        long start = System.nanoTime();
+        boolean valid = checkLogin(username, passwordHash);
+        loginTime.recordSince(start);
+        (valid ? loginsOk : loginsFailed).increment();
+        return valid;
+    }
+
+    private boolean checkLogin(String username, String passwordHash) {
         if (username == null || passwordHash == null) {
             return false;
         }
@@ -155,7 +183,7 @@ public class AccountStore {
         String normalizedUsername = username.toLowerCase().trim();
 
         if (!accounts.containsKey(normalizedUsername)) {
-            System.out.println("⚠️ Login failed: username '" + normalizedUsername + "' not found");
+            Log.debug("⚠️ Login failed: username '{}' not found", normalizedUsername);
             return false;
         }
 
@@ -163,7 +191,7 @@ public class AccountStore {
         boolean isValid = storedHash.equals(passwordHash);
 
         if (!isValid) {
-            System.out.println("⚠️ Login failed: incorrect password for '" + normalizedUsername + "'");
+            Log.debug("⚠️ Login failed: incorrect password for '{}'", normalizedUsername);
         }
 
         return isValid;
@@ -172,7 +200,9 @@ public class AccountStore {
     /**
      * Save all accounts to JSON file
      */
-    private synchronized void saveAccounts() {
+    private void saveAccounts() {
+        saveLock.lock();
+        long start = System.nanoTime();
         try {
             StringBuilder json = new StringBuilder();
             json.append("{\"accounts\":[");
@@ -194,7 +224,10 @@ public class AccountStore {
 
             Files.write(Paths.get(ACCOUNTS_FILE), json.toString().getBytes());
         } catch (IOException e) {
-            System.err.println("❌ Error saving accounts: " + e.getMessage());
+            Log.error("❌ Error saving accounts: {}", e.getMessage());
+        } finally {
+            saveTime.recordSince(start);
+            saveLock.unlock();
         }
     }
 
@@ -218,8 +251,7 @@ public class AccountStore {
             }
             return hexString.toString();
         } catch (Exception e) {
-            System.err.println("❌ Error hashing password: " + e.getMessage());
-            e.printStackTrace();
+            Log.error("❌ Error hashing password: " + e.getMessage(), e);
             return null;
         }
     }
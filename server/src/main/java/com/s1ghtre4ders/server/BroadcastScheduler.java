@@ -0,0 +1,222 @@
+package com.s1ghtre4ders.server;
+
+import com.s1ghtre4ders.server.log.Log;
+import com.s1ghtre4ders.server.net.Frame;
+import com.s1ghtre4ders.server.protocol.Command;
+import com.s1ghtre4ders.server.protocol.Message;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * S1ghtRe4ders Broadcast Scheduler
+ *
+ * Collects lobby noise - presence changes and CHAT:SERVER announcements -
+ * and publishes it once per tick (--broadcastTickMs, default 50): one frame
+ * per room that changed, shared by that room's members, plus one frame on the
+ * global channel (server notices, every client) if anything was announced
+ * there. Under churn the broadcast rate is bounded by the clock, not by the
+ * number of events.
+ *
+ * A tick of 0 disables batching: every change goes out immediately.
+ *
+ * Work that should wait for "a bit later" (e.g. a rate-limited snapshot
+ * request) can be deferred to the next tick instead of getting its own timer.
+ *
+ * A tick drains its batches under the scheduler lock - which is also what
+ * hands out presence versions - and lets go of it before the fan-out, so
+ * exclusive() only ever waits for batches to be built, not sent. Fan-outs
+ * take a second lock, handed over before the first is released, so batches
+ * still leave in version order. Room membership changes run under
+ * exclusive(); a room's fan-out holds that room (see LobbyRoom.broadcast), so
+ * a member who moves on gets the old room's batch before leaving or not at all.
+ */
+public class BroadcastScheduler {
+    private final Consumer<Frame> broadcaster;
+    private final BiConsumer<LobbyRoom, Frame> roomBroadcaster;
+    private final long tickMs;
+    private final Queue<Message> announcements = new ConcurrentLinkedQueue<>(); // global channel
+    private final Queue<Runnable> deferred = new ConcurrentLinkedQueue<>();
+    private final Set<LobbyRoom> dirtyRooms = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean globalDirty = new AtomicBoolean(false);
+    private final ReentrantLock flushLock = new ReentrantLock(); // batch building and exclusive()
+    private final ReentrantLock fanOutLock = new ReentrantLock(); // keeps fan-outs in version order
+    private ScheduledExecutorService ticker;
+
+    /**
+     * @param broadcaster     sends a frame to every logged-in client (global channel)
+     * @param roomBroadcaster sends a frame to one room's members
+     */
+    public BroadcastScheduler(Consumer<Frame> broadcaster, BiConsumer<LobbyRoom, Frame> roomBroadcaster, long tickMs) {
+        this.broadcaster = broadcaster;
+        this.roomBroadcaster = roomBroadcaster;
+        this.tickMs = tickMs;
+    }
+
+    /**
+     * Start publishing a room's presence changes
+     */
+    public void track(LobbyRoom room) {
+        room.presence.setOnDirty(() -> changed(room));
+    }
+
+    public void start() {
+        if (tickMs <= 0) {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "broadcast-tick");
+            t.setDaemon(true);
+            return t;
+        });
+        ticker.scheduleAtFixedRate(this::flush, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdown() {
+        if (ticker != null) {
+            ticker.shutdown();
+        }
+        flush();
+    }
+
+    /**
+     * Queue a server notice for every client (sent as CHAT:SERVER:text)
+     */
+    public void announce(String text) {
+        announcements.add(Message.of(Command.CHAT, "SERVER", text));
+        globalDirty.set(true);
+        if (tickMs <= 0) {
+            flush();
+        }
+    }
+
+    /**
+     * Queue a server chat line for one room
+     */
+    public void announce(LobbyRoom room, String text) {
+        room.queueAnnouncement(Message.of(Command.CHAT, "SERVER", text));
+        changed(room);
+    }
+
+    /**
+     * Run task with no tick in progress (room moves, status changes)
+     */
+    public void exclusive(Runnable task) {
+        flushLock.lock();
+        try {
+            task.run();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Run task right after the next tick's batch (immediately when batching is off)
+     */
+    public void defer(Runnable task) {
+        if (tickMs <= 0) {
+            task.run();
+            return;
+        }
+        deferred.add(task);
+    }
+
+    public boolean isBatching() {
+        return tickMs > 0;
+    }
+
+    private void changed(LobbyRoom room) {
+        dirtyRooms.add(room);
+        if (tickMs <= 0) {
+            flush();
+        }
+    }
+
+    /**
+     * Publish everything collected since the last tick as one batch
+     */
+    void flush() {
+        List<Runnable> sends = new ArrayList<>();
+        flushLock.lock();
+        try {
+            drainBatches(sends);
+        } catch (RuntimeException e) {
+            Log.error("❌ Broadcast tick failed: " + e.getMessage(), e);
+        }
+        // Take the fan-out lock before letting go, so the next tick's batches queue behind these.
+        // Unbatched flushes run on whatever thread changed something, often from inside
+        // exclusive(), and keep the scheduler lock.
+        fanOutLock.lock();
+        boolean handOff = isBatching();
+        if (handOff) {
+            flushLock.unlock();
+        }
+        try {
+            for (Runnable send : sends) {
+                send.run();
+            }
+        } catch (RuntimeException e) {
+            Log.error("❌ Broadcast fan-out failed: " + e.getMessage(), e);
+        } finally {
+            fanOutLock.unlock();
+            if (!handOff) {
+                flushLock.unlock();
+            }
+        }
+        if (!deferred.isEmpty()) {
+            exclusive(this::runDeferred);
+        }
+    }
+
+    /**
+     * Build this tick's frames (under flushLock); sends gets one fan-out per frame
+     */
+    private void drainBatches(List<Runnable> sends) {
+        for (LobbyRoom room : dirtyRooms) {
+            dirtyRooms.remove(room);
+            List<Message> batch = new ArrayList<>();
+            room.drainTo(batch);
+            if (!batch.isEmpty()) {
+                Frame frame = Frame.of(batch);
+                sends.add(() -> roomBroadcaster.accept(room, frame));
+            }
+        }
+        if (globalDirty.getAndSet(false)) {
+            List<Message> batch = new ArrayList<>();
+            Message announcement;
+            while ((announcement = announcements.poll()) != null) {
+                batch.add(announcement);
+            }
+            if (!batch.isEmpty()) {
+                Frame frame = Frame.of(batch);
+                sends.add(() -> broadcaster.accept(frame));
+            }
+        }
+    }
+
+    private void runDeferred() {
+        // Only what was queued before this tick; re-deferred tasks wait for the next one
+        for (int n = deferred.size(); n > 0; n--) {
+            Runnable task = deferred.poll();
+            if (task == null) {
+                break;
+            }
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                Log.error("❌ Deferred broadcast task failed: " + e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.s1ghtre4ders.server;
+
+import com.s1ghtre4ders.server.net.Frame;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * S1ghtRe4ders Chat History
+ *
+ * The last N chat lines of one LobbyRoom in a fixed-size ring, kept as the
+ * very Frames that were broadcast, so their wire bytes are already encoded
+ * and shared. A newcomer gets the whole history as one concatenated frame
+ * (one write); that frame is built once and reused by every join until the
+ * next line arrives, so replay costs no allocation per line or per joiner.
+ *
+ * record() and replay() run under the same lock as the broadcast or the join
+ * they belong to (see LobbyRoom), so a line is either in a joiner's replay or
+ * in their live feed, never both and never neither.
+ */
+public class ChatHistory {
+    private final Frame[] ring;
+    private final ReentrantLock lock = new ReentrantLock();
+    private int next;         // slot the next line goes into, guarded by lock
+    private int size;         // guarded by lock
+    private Frame replay;     // cached concatenation, null = rebuild; guarded by lock
+
+    /**
+     * @param capacity lines kept; 0 keeps nothing
+     */
+    public ChatHistory(int capacity) {
+        this.ring = new Frame[Math.max(0, capacity)];
+    }
+
+    ReentrantLock lock() {
+        return lock;
+    }
+
+    /**
+     * Remember a line, evicting the oldest when full (hold lock())
+     */
+    void record(Frame line) {
+        if (ring.length == 0) {
+            return;
+        }
+        ring[next] = line;
+        next = (next + 1) % ring.length;
+        if (size < ring.length) {
+            size++;
+        }
+        replay = null;
+    }
+
+    /**
+     * Everything remembered, oldest first, as one frame; null if empty (hold lock())
+     */
+    Frame replay() {
+        if (size == 0) {
+            return null;
+        }
+        if (replay == null) {
+            Frame[] lines = new Frame[size];
+            int oldest = (next - size + ring.length) % ring.length;
+            for (int i = 0; i < size; i++) {
+                lines[i] = ring[(oldest + i) % ring.length];
+            }
+            replay = Frame.concat(lines);
+        }
+        return replay;
+    }
+}
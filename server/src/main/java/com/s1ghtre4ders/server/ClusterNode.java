@@ -0,0 +1,299 @@
+package com.s1ghtre4ders.server;
+
+import com.s1ghtre4ders.server.LobbyServer.ClientConnection;
+import com.s1ghtre4ders.server.LobbyServer.PlayerInfo;
+import com.s1ghtre4ders.server.LobbyServer.PlayerStatus;
+import com.s1ghtre4ders.server.cluster.ClusterBus;
+import com.s1ghtre4ders.server.cluster.ClusterMessage;
+import com.s1ghtre4ders.server.cluster.ClusterMessage.Type;
+import com.s1ghtre4ders.server.log.Log;
+import com.s1ghtre4ders.server.metrics.Metrics;
+import com.s1ghtre4ders.server.net.Frame;
+import com.s1ghtre4ders.server.protocol.Command;
+import com.s1ghtre4ders.server.protocol.Message;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * S1ghtRe4ders Cluster Node
+ *
+ * Ties this lobby to the other nodes of a cluster (see cluster.ClusterBus).
+ * Standalone unless --clusterPort is set; every method is a no-op then.
+ *
+ * Presence directory: a node publishes PLAYER_UP when one of its players logs
+ * in, changes room or changes status, and PLAYER_DOWN when they leave. Peers
+ * keep a PlayerInfo per remote player (home = their node) in LobbyServer's
+ * player map and in the LobbyPresence of the room with the same name, so
+ * snapshots, deltas and duel checks see the whole cluster. Only the home node
+ * changes a player: status changes for remote players go home as SET_STATUS.
+ * When a link comes up the node resends all its players; when a peer's link
+ * drops, its players are forgotten.
+ *
+ * Routing: sendToPlayer falls back to DELIVER on the player's home node; room
+ * chat and announcements are forwarded to every peer.
+ *
+ * Duels across nodes: DUEL_REQUEST is forwarded to the target's node, where it
+ * waits like a local challenge. The node that gets DUEL_ACCEPT hosts the duel
+ * in its DuelManager and sends DUEL_BIND to the requester's node, which from
+ * then on forwards that player's ATTACK / QTE_RESULT as DUEL_ACTION (and
+ * DUEL_ABORT on disconnect), until DUEL_UNBIND once the duel is over. Duel
+ * events reach the requester as DELIVERs.
+ * When a duel starts, DUEL_WITHDRAW drops both duelists' other challenges on
+ * every node.
+ *
+ * Logins are checked against the directory, so the same name logging in on two
+ * nodes within one propagation delay is not caught. Likewise a duel claims its
+ * players (PlayerInfo.claimDuel) on the hosting node only: one challenger
+ * accepted on two different nodes within a propagation delay ends up in both.
+ */
+final class ClusterNode implements ClusterBus.Listener {
+    private ClusterBus bus; // null = standalone
+
+    /**
+     * Join the cluster described by --nodeId, --clusterPort and --peers
+     */
+    void start(ServerConfig config, int lobbyPort) {
+        int clusterPort = config.getInt("clusterPort", 0);
+        if (clusterPort <= 0) {
+            return;
+        }
+        String nodeId = config.get("nodeId", "node-" + lobbyPort);
+        ClusterBus bus = new ClusterBus(nodeId, clusterPort, ClusterBus.parsePeers(config.get("peers", "")));
+        try {
+            bus.start(this);
+        } catch (IOException e) {
+            Log.error("❌ Cluster port " + clusterPort + " unavailable, running standalone", e);
+            return;
+        }
+        this.bus = bus;
+        Metrics.gauge("cluster_remote_players", "Players connected to other nodes", this::remotePlayers);
+        Log.info("🕸️ Node {} on cluster port {}, peers {}", nodeId, clusterPort, bus.peers());
+    }
+
+    private long remotePlayers() {
+        long count = 0;
+        for (PlayerInfo info : LobbyServer.players.values()) {
+            if (info.home != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // ---- Outbound: called by LobbyServer for its own players ----
+
+    /**
+     * A local player logged in, changed room or changed status
+     */
+    void playerUp(PlayerInfo info) {
+        if (bus != null) {
+            bus.broadcast(up(info));
+        }
+    }
+
+    void playerDown(String username) {
+        if (bus != null) {
+            bus.broadcast(ClusterMessage.of(Type.PLAYER_DOWN, username));
+        }
+    }
+
+    /**
+     * Send to a player connected to another node
+     * @return false if the player is not known as remote
+     */
+    boolean deliver(String username, Message message) {
+        PlayerInfo info = LobbyServer.players.get(username);
+        if (bus == null || info == null || info.home == null) {
+            return false;
+        }
+        bus.send(info.home, ClusterMessage.carrying(Type.DELIVER, username, message));
+        return true;
+    }
+
+    void roomChat(LobbyRoom room, Message message) {
+        if (bus != null) {
+            bus.broadcast(ClusterMessage.carrying(Type.ROOM_CHAT, room.name, message));
+        }
+    }
+
+    /**
+     * @param room null = global channel
+     */
+    void announce(LobbyRoom room, String text) {
+        if (bus != null) {
+            bus.broadcast(ClusterMessage.of(Type.ANNOUNCE, room != null ? room.name : "", text));
+        }
+    }
+
+    void setStatus(PlayerInfo remote, PlayerStatus status) {
+        bus.send(remote.home, ClusterMessage.of(Type.SET_STATUS, remote.username, status.name()));
+    }
+
+    void requestDuel(String requester, PlayerInfo remoteTarget) {
+        bus.send(remoteTarget.home, ClusterMessage.of(Type.DUEL_REQUEST, requester, remoteTarget.username));
+    }
+
+    /**
+     * This node hosts duelId; tell the remote player's node where to send input
+     */
+    void bindDuel(PlayerInfo remote, String duelId) {
+        bus.send(remote.home, ClusterMessage.of(Type.DUEL_BIND, remote.username, duelId));
+    }
+
+    /**
+     * The remote player's duelId is over; their node stops forwarding input for it
+     */
+    void unbindDuel(PlayerInfo remote, String duelId) {
+        bus.send(remote.home, ClusterMessage.of(Type.DUEL_UNBIND, remote.username, duelId));
+    }
+
+    void duelAction(String host, String duelId, String username, Command action, String arg) {
+        if (bus != null) {
+            bus.send(host, ClusterMessage.of(Type.DUEL_ACTION, duelId, username, action.name(), arg));
+        }
+    }
+
+    void abortDuel(String host, String duelId, String leaver) {
+        if (bus != null) {
+            bus.send(host, ClusterMessage.of(Type.DUEL_ABORT, duelId, leaver));
+        }
+    }
+
+    /**
+     * A duel started for username: drop the challenges from and to them that wait on other nodes
+     */
+    void withdrawChallenges(String username) {
+        if (bus != null) {
+            bus.broadcast(ClusterMessage.of(Type.DUEL_WITHDRAW, username));
+        }
+    }
+
+    private static ClusterMessage up(PlayerInfo info) {
+        return ClusterMessage.of(Type.PLAYER_UP, info.username, info.room.name, info.status.name());
+    }
+
+    // ---- Inbound: runs on the sending peer's reader thread ----
+
+    @Override
+    public void onPeerUp(String nodeId) {
+        int count = 0;
+        for (PlayerInfo info : LobbyServer.players.values()) {
+            if (info.home == null && info.room != null) {
+                bus.send(nodeId, up(info));
+                count++;
+            }
+        }
+        Log.info("🕸️ Link to {} up, sent {} players", nodeId, count);
+    }
+
+    @Override
+    public void onPeerDown(String nodeId) {
+        for (PlayerInfo info : new ArrayList<>(LobbyServer.players.values())) {
+            if (nodeId.equals(info.home)) {
+                remotePlayerDown(info.username);
+            }
+        }
+    }
+
+    @Override
+    public void onMessage(String fromNode, ClusterMessage message) {
+        switch (message.type) {
+            case PLAYER_UP -> remotePlayerUp(fromNode, message.field(0), message.field(1),
+                    PlayerStatus.valueOf(message.field(2)));
+            case PLAYER_DOWN -> remotePlayerDown(message.field(0));
+            case DELIVER -> {
+                ClientConnection client = LobbyServer.clients.find(message.field(0));
+                Message carried = message.carried();
+                if (client != null && carried != null) {
+                    client.sendMessage(carried);
+                }
+            }
+            case ROOM_CHAT -> {
+                LobbyRoom room = LobbyServer.rooms.get(message.field(0));
+                Message carried = message.carried();
+                if (room != null && carried != null) {
+                    LobbyServer.chatToRoom(room, Frame.of(carried));
+                }
+            }
+            case ANNOUNCE -> {
+                if (message.field(0).isEmpty()) {
+                    LobbyServer.broadcasts.announce(message.field(1));
+                } else {
+                    LobbyRoom room = LobbyServer.rooms.get(message.field(0));
+                    if (room != null) {
+                        LobbyServer.broadcasts.announce(room, message.field(1));
+                    }
+                }
+            }
+            case SET_STATUS -> LobbyServer.setStatus(message.field(0), PlayerStatus.valueOf(message.field(1)));
+            case DUEL_REQUEST -> LobbyServer.duelRequested(message.field(0), message.field(1));
+            case DUEL_BIND -> {
+                ClientConnection client = LobbyServer.clients.find(message.field(0));
+                if (client != null) {
+                    client.bindDuel(message.field(1), fromNode);
+                }
+            }
+            case DUEL_ACTION -> {
+                String duelId = message.field(0);
+                String username = message.field(1);
+                if (Command.ATTACK.name().equals(message.field(2))) {
+                    LobbyServer.duelManager.attack(duelId, username);
+                } else if (Command.QTE_RESULT.name().equals(message.field(2))) {
+                    LobbyServer.duelManager.qteResult(duelId, username, message.field(3));
+                }
+            }
+            case DUEL_ABORT -> {
+                LobbyServer.duelManager.endDuel(message.field(0), message.field(1));
+                LobbyServer.releaseDuel(message.field(0));
+            }
+            case DUEL_WITHDRAW -> LobbyServer.withdrawChallenges(message.field(0));
+            case DUEL_UNBIND -> {
+                ClientConnection client = LobbyServer.clients.find(message.field(0));
+                if (client != null) {
+                    client.unbindDuel(message.field(1));
+                }
+            }
+            default -> Log.warn("⚠️ Unexpected cluster message from {}: {}", fromNode, message);
+        }
+    }
+
+    /**
+     * Add or move a remote player in the directory
+     */
+    private void remotePlayerUp(String home, String username, String roomName, PlayerStatus status) {
+        LobbyServer.broadcasts.exclusive(() -> {
+            PlayerInfo info = LobbyServer.players.get(username);
+            if (info != null && info.home == null) {
+                Log.warn("⚠️ {} is logged in here and on {}, ignoring {}'s copy", username, home, home);
+                return;
+            }
+            if (info == null) {
+                info = new PlayerInfo(username, status, home);
+                LobbyServer.players.put(username, info);
+            } else if (!info.room.name.equals(roomName)) {
+                info.room.presence.leave(username);
+                LobbyServer.closeIfEmpty(info.room);
+            } else {
+                info.room.presence.setStatus(username, status);
+                return;
+            }
+            info.status = status;
+            info.room = LobbyServer.room(roomName);
+            info.room.presence.join(info, snapshot -> { });
+        });
+    }
+
+    private void remotePlayerDown(String username) {
+        LobbyServer.broadcasts.exclusive(() -> {
+            PlayerInfo info = LobbyServer.players.get(username);
+            if (info == null || info.home == null) {
+                return;
+            }
+            LobbyServer.players.remove(username, info);
+            info.room.presence.leave(username);
+            LobbyServer.closeIfEmpty(info.room);
+        });
+        LobbyServer.withdrawChallenges(username);
+    }
+}
@@ -0,0 +1,68 @@
+package com.s1ghtre4ders.server;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * S1ghtRe4ders Connection Registry
+ *
+ * All live connections plus a username -> connection index for logged-in players.
+ * - O(1) lookup for direct sends (duel events, whispers)
+ * - O(1) add/remove on connect/disconnect (no copy-on-write)
+ * - Broadcast iteration is weakly consistent: it never copies and never throws
+ *   if clients come and go mid-loop
+ */
+public class ConnectionRegistry<C> {
+    private final Set<C> connections = ConcurrentHashMap.newKeySet();
+    private final Map<String, C> byUsername = new ConcurrentHashMap<>();
+
+    public void add(C connection) {
+        connections.add(connection);
+    }
+
+    /**
+     * Index an authenticated connection by username
+     * @return false if that username is already bound to another connection
+     */
+    public boolean bind(String username, C connection) {
+        C existing = byUsername.putIfAbsent(username, connection);
+        return existing == null || existing == connection;
+    }
+
+    /**
+     * Forget a connection (and its username, if it still owns it)
+     */
+    public void remove(C connection, String username) {
+        connections.remove(connection);
+        if (username != null) {
+            byUsername.remove(username, connection);
+        }
+    }
+
+    public C find(String username) {
+        return username != null ? byUsername.get(username) : null;
+    }
+
+    /**
+     * Live view of every connection, including ones that have not logged in yet
+     */
+    public Iterable<C> all() {
+        return connections;
+    }
+
+    /**
+     * Live view of logged-in connections only
+     */
+    public Iterable<C> authenticated() {
+        return byUsername.values();
+    }
+
+    public int size() {
+        return connections.size();
+    }
+
+    public int authenticatedCount() {
+        return byUsername.size();
+    }
+}
@@ -0,0 +1,182 @@
+package com.s1ghtre4ders.server;
+
+import com.s1ghtre4ders.server.timer.TimerWheel;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * S1ghtRe4ders Duel Challenges
+ *
+ * Pending DUEL_REQUESTs for players connected to this node, indexed both ways:
+ * by challenger (everyone they are waiting on) and by target (everyone waiting
+ * on them, oldest first). Accept, decline and disconnect cleanup look up one
+ * player's challenges directly instead of scanning every pending one, and a
+ * player can have several incoming challenges at once.
+ *
+ * Each challenge holds one timeout on the shared TimerWheel; when the TTL runs
+ * out the challenge is dropped and onExpire is called (LobbyServer sends
+ * DUEL_EXPIRED to the challenger). Answering or cleaning up a challenge cancels
+ * its timeout. A challenger on another node is indexed here all the same, since
+ * the challenge lives on the target's node (see ClusterNode).
+ *
+ * Both maps change together under one lock; onExpire runs outside it, on the
+ * timer thread.
+ */
+public class DuelChallenges {
+    /**
+     * One pending challenge
+     */
+    public static final class Challenge {
+        public final String challenger;
+        public final String target;
+        private TimerWheel.Timeout expiry; // guarded by the owner's lock
+
+        private Challenge(String challenger, String target) {
+            this.challenger = challenger;
+            this.target = target;
+        }
+    }
+
+    private final TimerWheel timers;
+    private final long ttlNanos;
+    private final Consumer<Challenge> onExpire;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Map<String, Challenge>> byChallenger = new HashMap<>(); // challenger -> target -> challenge
+    private final Map<String, Map<String, Challenge>> byTarget = new HashMap<>();     // target -> challenger -> challenge, oldest first
+    private int size;
+
+    /**
+     * @param ttlSec   how long a challenge waits for an answer; 0 = until answered or either side leaves
+     * @param onExpire called with each challenge that timed out
+     */
+    public DuelChallenges(TimerWheel timers, long ttlSec, Consumer<Challenge> onExpire) {
+        this.timers = timers;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(Math.max(0, ttlSec));
+        this.onExpire = onExpire;
+    }
+
+    /**
+     * Park a challenge and start its TTL
+     * @return false if challenger already has one pending for target
+     */
+    public boolean offer(String challenger, String target) {
+        Challenge challenge = new Challenge(challenger, target);
+        lock.lock();
+        try {
+            Map<String, Challenge> outgoing = byChallenger.computeIfAbsent(challenger, k -> new HashMap<>());
+            if (outgoing.containsKey(target)) {
+                return false;
+            }
+            outgoing.put(target, challenge);
+            byTarget.computeIfAbsent(target, k -> new LinkedHashMap<>()).put(challenger, challenge);
+            size++;
+            if (ttlNanos > 0) {
+                challenge.expiry = timers.schedule(() -> expire(challenge), ttlNanos, TimeUnit.NANOSECONDS);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Take one of target's incoming challenges out, as accept or decline does
+     * @param challenger which one; null or empty = the oldest
+     * @return the challenge, or null if there is none
+     */
+    public Challenge answer(String target, String challenger) {
+        lock.lock();
+        try {
+            Map<String, Challenge> incoming = byTarget.get(target);
+            if (incoming == null) {
+                return null;
+            }
+            Challenge challenge = challenger == null || challenger.isEmpty()
+                    ? incoming.values().iterator().next()
+                    : incoming.get(challenger);
+            if (challenge != null) {
+                unlink(challenge);
+            }
+            return challenge;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drop every challenge from or to a player who left or went into a duel
+     * @return the dropped challenges
+     */
+    public List<Challenge> removeAll(String username) {
+        lock.lock();
+        try {
+            List<Challenge> gone = new ArrayList<>();
+            Map<String, Challenge> outgoing = byChallenger.get(username);
+            if (outgoing != null) {
+                gone.addAll(outgoing.values());
+            }
+            Map<String, Challenge> incoming = byTarget.get(username);
+            if (incoming != null) {
+                gone.addAll(incoming.values());
+            }
+            for (Challenge challenge : gone) {
+                unlink(challenge);
+            }
+            return gone;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void expire(Challenge challenge) {
+        lock.lock();
+        try {
+            Map<String, Challenge> outgoing = byChallenger.get(challenge.challenger);
+            if (outgoing == null || outgoing.get(challenge.target) != challenge) {
+                return; // answered or cleaned up while the timeout was on its way
+            }
+            unlink(challenge);
+        } finally {
+            lock.unlock();
+        }
+        onExpire.accept(challenge);
+    }
+
+    /**
+     * Remove from both indexes and cancel the TTL (hold lock)
+     */
+    private void unlink(Challenge challenge) {
+        remove(byChallenger, challenge.challenger, challenge.target);
+        remove(byTarget, challenge.target, challenge.challenger);
+        size--;
+        if (challenge.expiry != null) {
+            challenge.expiry.cancel();
+        }
+    }
+
+    private static void remove(Map<String, Map<String, Challenge>> index, String key, String other) {
+        Map<String, Challenge> inner = index.get(key);
+        if (inner != null) {
+            inner.remove(other);
+            if (inner.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.s1ghtre4ders.server;
+
+import com.s1ghtre4ders.server.LobbyServer.PlayerInfo;
+import com.s1ghtre4ders.server.LobbyServer.PlayerStatus;
+import com.s1ghtre4ders.server.log.Log;
+import com.s1ghtre4ders.server.protocol.Command;
+import com.s1ghtre4ders.server.protocol.Message;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * S1ghtRe4ders Lobby Presence
+ *
+ * Owns who is in one LobbyRoom and in which status, and tells the room's
+ * clients about changes as versioned deltas instead of full list rebroadcasts.
+ *
+ * Protocol (server -> client):
+ * - PLAYER_LIST:version;name,STATUS;name,STATUS;...   full snapshot (on join / on request)
+ * - PLAYER_JOIN:version:name:STATUS
+ * - PLAYER_LEAVE:version:name
+ * - PLAYER_STATUS:version:name:STATUS
+ *
+ * Every delta bumps the version by exactly one. A client that sees a version
+ * other than last+1 has missed something and resyncs with GET_PLAYERS.
+ *
+ * Mutations only mark a player dirty; drainDeltas() (driven by the
+ * BroadcastScheduler) compares each dirty player against what clients were last
+ * told and emits at most one delta per player, so join+DND+leave inside one
+ * tick costs nothing on the wire. Deltas are idempotent, so a snapshot that
+ * already contains a not-yet-published change stays consistent.
+ */
+public class LobbyPresence {
+    private final Map<String, PlayerInfo> players;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Set<String> dirty = new LinkedHashSet<>();               // guarded by lock
+    private final Map<String, PlayerStatus> published = new HashMap<>();  // what clients know, guarded by lock
+    private long version = 0;
+    private Runnable onDirty = () -> {};
+
+    public LobbyPresence(Map<String, PlayerInfo> players) {
+        this.players = players;
+    }
+
+    /**
+     * Called (outside the lock) after every change that needs publishing
+     */
+    public void setOnDirty(Runnable onDirty) {
+        this.onDirty = onDirty;
+    }
+
+    /**
+     * Add a player and hand the joiner a snapshot; everyone else hears about it on the next drain
+     */
+    public void join(PlayerInfo info, Consumer<Message> joiner) {
+        lock.lock();
+        try {
+            players.put(info.username, info);
+            dirty.add(info.username);
+            joiner.accept(snapshotLocked());
+        } finally {
+            lock.unlock();
+        }
+        if (Log.isDebugEnabled()) {
+            Log.debug("📢 {} joined ({} here)", info.username, players.size());
+        }
+        onDirty.run();
+    }
+
+    public void leave(String username) {
+        lock.lock();
+        try {
+            if (players.remove(username) == null) {
+                return;
+            }
+            dirty.add(username);
+        } finally {
+            lock.unlock();
+        }
+        if (Log.isDebugEnabled()) {
+            Log.debug("📢 {} left ({} here)", username, players.size());
+        }
+        onDirty.run();
+    }
+
+    /**
+     * Change a player's status; nothing is published if nothing changed
+     */
+    public void setStatus(String username, PlayerStatus status) {
+        lock.lock();
+        try {
+            PlayerInfo info = players.get(username);
+            if (info == null || info.status == status) {
+                return;
+            }
+            info.status = status;
+            dirty.add(username);
+        } finally {
+            lock.unlock();
+        }
+        onDirty.run();
+    }
+
+    public boolean isEmpty() {
+        return players.isEmpty();
+    }
+
+    /**
+     * Send the current snapshot to a single client (GET_PLAYERS)
+     */
+    public void sendSnapshot(Consumer<Message> target) {
+        lock.lock();
+        try {
+            target.accept(snapshotLocked());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Append one collapsed delta per dirty player to batch
+     * @return number of deltas appended
+     */
+    public int drainDeltas(List<Message> batch) {
+        lock.lock();
+        try {
+            int count = 0;
+            for (String username : dirty) {
+                PlayerInfo info = players.get(username);
+                PlayerStatus now = info != null ? info.status : null;
+                PlayerStatus before = published.get(username);
+                if (now == before) {
+                    continue;
+                }
+
+                String v = Long.toString(++version);
+                if (before == null) {
+                    batch.add(Message.of(Command.PLAYER_JOIN, v, username, now.name()));
+                    published.put(username, now);
+                } else if (now == null) {
+                    batch.add(Message.of(Command.PLAYER_LEAVE, v, username));
+                    published.remove(username);
+                } else {
+                    batch.add(Message.of(Command.PLAYER_STATUS, v, username, now.name()));
+                    published.put(username, now);
+                }
+                count++;
+            }
+            dirty.clear();
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Message snapshotLocked() {
+        StringBuilder sb = new StringBuilder(16 + players.size() * 32);
+        sb.append(version).append(";");
+        for (PlayerInfo info : players.values()) {
+            sb.append(info.username).append(",").append(info.status).append(";");
+        }
+        return Message.of(Command.PLAYER_LIST, sb.toString());
+    }
+}
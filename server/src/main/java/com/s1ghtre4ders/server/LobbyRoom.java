@@ -0,0 +1,139 @@
+package com.s1ghtre4ders.server;
+
+import com.s1ghtre4ders.server.LobbyServer.ClientConnection;
+import com.s1ghtre4ders.server.net.Frame;
+import com.s1ghtre4ders.server.protocol.Message;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * S1ghtRe4ders Lobby Room
+ *
+ * A named part of the lobby. Every logged-in player is in exactly one room
+ * (they start in "lobby"); chat, presence deltas, PLAYER_LIST snapshots and
+ * announcements about its players reach only the room's members, so the cost
+ * of a broadcast grows with the room, not with the server.
+ *
+ * Each room has its own LobbyPresence, and therefore its own presence version
+ * sequence. Membership changes go through LobbyServer while the
+ * BroadcastScheduler is held (see BroadcastScheduler.exclusive), and joining,
+ * leaving and every fan-out take the room's lock, so a client never sees a
+ * delta of the room it just left after the ROOM_JOINED of the next.
+ *
+ * Player chat goes through chat(), which also keeps the last lines in the
+ * room's ChatHistory; a new member is sent that history before any live line.
+ */
+public class LobbyRoom {
+    final String name;
+    final LobbyPresence presence = new LobbyPresence(new ConcurrentHashMap<>());
+    private final Set<ClientConnection> members = ConcurrentHashMap.newKeySet();
+    private final Queue<Message> announcements = new ConcurrentLinkedQueue<>();
+    private final ChatHistory history;
+
+    LobbyRoom(String name, int historyLines) {
+        this.name = name;
+        this.history = new ChatHistory(historyLines);
+    }
+
+    /**
+     * Add a member: recent chat first (one frame), then live broadcasts
+     */
+    void add(ClientConnection member) {
+        history.lock().lock();
+        try {
+            Frame replay = history.replay();
+            if (replay != null) {
+                member.sendFrame(replay);
+            }
+            members.add(member);
+        } finally {
+            history.lock().unlock();
+        }
+    }
+
+    /**
+     * Remove a member; waits for a fan-out in progress, which then still reached it
+     */
+    void remove(ClientConnection member) {
+        history.lock().lock();
+        try {
+            members.remove(member);
+        } finally {
+            history.lock().unlock();
+        }
+    }
+
+    /**
+     * No members here and no players on other nodes either
+     */
+    boolean isEmpty() {
+        return members.isEmpty() && presence.isEmpty();
+    }
+
+    int size() {
+        return members.size();
+    }
+
+    /**
+     * Queue a server chat line for this room's next broadcast tick
+     */
+    void queueAnnouncement(Message message) {
+        announcements.add(message);
+    }
+
+    /**
+     * Append this room's presence deltas and announcements to batch
+     */
+    void drainTo(List<Message> batch) {
+        presence.drainDeltas(batch);
+        Message announcement;
+        while ((announcement = announcements.poll()) != null) {
+            batch.add(announcement);
+        }
+    }
+
+    /**
+     * Send a player chat line to every member and remember it for newcomers
+     * @return number of recipients
+     */
+    int chat(Frame line) {
+        history.lock().lock();
+        try {
+            history.record(line);
+            return sendToMembers(line);
+        } finally {
+            history.lock().unlock();
+        }
+    }
+
+    /**
+     * Send a frame (encoded once) to every member of this room
+     * @return number of recipients
+     */
+    int broadcast(Frame frame) {
+        history.lock().lock();
+        try {
+            return sendToMembers(frame);
+        } finally {
+            history.lock().unlock();
+        }
+    }
+
+    private int sendToMembers(Frame frame) {
+        int recipients = 0;
+        for (ClientConnection member : members) {
+            member.sendFrame(frame);
+            recipients++;
+        }
+        return recipients;
+    }
+
+    @Override
+    public String toString() {
+        return "#" + name;
+    }
+}
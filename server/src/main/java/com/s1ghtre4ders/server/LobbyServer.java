@@ -1,19 +1,42 @@
 package com.s1ghtre4ders.server;
 
+import com.s1ghtre4ders.server.duel.DuelLog;
 import com.s1ghtre4ders.server.duel.DuelManager;
+import com.s1ghtre4ders.server.log.Log;
+import com.s1ghtre4ders.server.metrics.Counter;
+import com.s1ghtre4ders.server.metrics.Histogram;
+import com.s1ghtre4ders.server.metrics.Metrics;
+import com.s1ghtre4ders.server.metrics.MetricsServer;
+import com.s1ghtre4ders.server.net.AdmissionControl;
+import com.s1ghtre4ders.server.net.BackpressurePolicy;
+import com.s1ghtre4ders.server.net.ConnectionHandler;
+import com.s1ghtre4ders.server.net.Frame;
+import com.s1ghtre4ders.server.net.NioServer;
+import com.s1ghtre4ders.server.net.SocketTransport;
+import com.s1ghtre4ders.server.net.Transport;
+import com.s1ghtre4ders.server.protocol.BinaryCodec;
+import com.s1ghtre4ders.server.protocol.Command;
+import com.s1ghtre4ders.server.protocol.CommandDispatcher;
+import com.s1ghtre4ders.server.protocol.Message;
+import com.s1ghtre4ders.server.timer.TimerWheel;
 import java.util.UUID;
 import java.io.*;
 import java.net.*;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.regex.Pattern;
 
 /**
  * S1ghtRe4ders Lobby Server
  *
  * A TCP-based multiplayer lobby server supporting:
  * - Player login (LOGIN/REGISTER)
- * - Real-time player list broadcasting
+ * - Real-time presence (snapshot on join, versioned deltas after)
+ * - Lobby rooms (chat and presence scoped to a room)
  * - Lobby chat
  * - Player status tracking (LOBBY_AVAILABLE, LOBBY_DND, SPECTATOR, IN_DUEL)
  * - Duel system (turn-based combat with QTE dodge)
@@ -30,242 +53,786 @@ import java.util.concurrent.ConcurrentHashMap;
  * - DUEL_DECLINE
  * - ATTACK
  * - QTE_RESULT:quality (MISS|HALF|NONE)
+ * - GET_PLAYERS (snapshot of the requester's room; see LobbyPresence for deltas)
+ * - JOIN_ROOM:name (answered with ROOM_JOINED:name and that room's PLAYER_LIST)
+ * - PROTO_ACCEPT:version (answer to PROTO_OFFER, see below)
+ * - PONG:seq (answer to PING:seq)
+ *
+ * Wire formats: every connection starts on the newline-delimited text form
+ * above. Right after LOGIN_OK the server sends PROTO_OFFER:2; a client that
+ * speaks that version replies PROTO_ACCEPT:2 (still as text) and from then on
+ * writes length-prefixed binary frames (see protocol.BinaryCodec). The server
+ * answers with PROTO_SWITCH:2 as its last text line and switches its own output
+ * too. Older clients ignore the offer and stay on text. --binaryProtocol=false turns
+ * the offer off.
+ *
+ * I/O modes (--io=...):
+ * - thread: one blocking reader thread per client (default)
+ * - virtual: same blocking code, but each client runs on a virtual thread
+ * - nio: a few selector event loops shared by all clients (--eventLoops=N)
+ *
+ * Rooms (see LobbyRoom): everyone starts in #lobby and is in exactly one room.
+ * Chat, presence deltas, PLAYER_LIST and announcements about a player go to
+ * that player's room only; duel announcements go to the room the duel was
+ * accepted in, and duels can only be requested within a room. Rooms are
+ * created on first JOIN_ROOM (announced on the global channel, which every
+ * client hears) and dropped when their last member leaves.
+ *
+ * Cluster (see ClusterNode): with --clusterPort=N, --nodeId=name and
+ * --peers=id@host:port,... several servers share one lobby. Players connect to
+ * any node; presence, rooms, chat, direct sends and duels span all of them, and
+ * a duel between players on two nodes runs on the node where it was accepted.
+ *
+ * Duel challenges (see DuelChallenges): a player can have several incoming
+ * DUEL_REQUESTs; DUEL_ACCEPT:name / DUEL_DECLINE:name answers one of them
+ * (without a name, the oldest). A challenge left unanswered for
+ * --duelRequestTtlSec (default 30, 0 = no limit) is dropped and the challenger
+ * gets DUEL_EXPIRED:target. Once a duel starts, both duelists' other
+ * challenges are dropped too, with DUEL_EXPIRED to whoever was waiting on them;
+ * so are the challenges of a player who disconnects. A duelist who disconnects
+ * aborts their duel: the opponent gets DUEL_END:WIN and is back in the lobby.
+ *
+ * Duel lanes: each duel is pinned to one of --duelLanes=K single-threaded
+ * lanes (default half the cores, 0 = run on the reader thread), which run its
+ * opening (DUEL_START, first TURN_CHANGE), attacks, QTE results, timeouts and
+ * abort, and the callbacks that send the results, in order (see duel.DuelLanes).
+ *
+ * Duel log: every duel event is appended to memory-mapped segment files in
+ * --duelLog=dir (off unless set), --duelLogSegmentMb each (at most 2047, one
+ * mapping per segment), keeping the newest --duelLogSegments;
+ * duel.DuelLogReader replays a duel from there.
+ *
+ * Chat history: each room keeps its last --chatHistory=N player chat lines
+ * (default 50, 0 = off) and replays them, as one write, to whoever enters it.
+ *
+ * Presence changes and CHAT:SERVER announcements are batched per broadcast
+ * tick (--broadcastTickMs=N, 0 = send immediately).
+ *
+ * Slow consumers (see net.BackpressurePolicy): a client whose outbound queue
+ * passes --outboundLimit frames, --outboundMaxBytes or --outboundMaxAgeMs has
+ * its stale PLAYER_LIST snapshots collapsed (--collapseSnapshots) and player
+ * chat dropped (--dropChatWhenSlow); if that is not enough it is disconnected.
+ *
+ * Rate limits: each connection has a token bucket for CHAT, DUEL_REQUEST and
+ * GET_PLAYERS (--chatRate/--chatBurst, --duelRequestRate/--duelRequestBurst,
+ * --getPlayersRate/--getPlayersBurst; rate 0 = unlimited). Chat and duel
+ * requests over the limit are rejected (with at most one ERROR per second);
+ * extra GET_PLAYERS collapse into one snapshot on a later broadcast tick.
+ *
+ * Admission control: at most --maxConnections sockets in total and at most
+ * --maxUnauthenticated that have not logged in yet; extra connects are refused
+ * with one ERROR line before any thread or transport exists. A connection must
+ * log in within --handshakeTimeoutSec (0 = no limit) or it is closed.
+ *
+ * Heartbeat: every --heartbeatSec=N seconds (0 = off) a logged-in client gets
+ * PING:seq and should answer PONG:seq; the round trip is its RTT. A client
+ * that sends nothing at all, pongs included, for --idleTimeoutSec is dropped,
+ * so dead TCP peers leave the lobby instead of lingering as ghosts. The
+ * timeout is at least three heartbeat periods; shorter values are raised at
+ * startup with a warning. All heartbeats share one TimerWheel.
+ *
+ * Inbound commands go through a CommandDispatcher table; per-command counts and
+ * handler times (plus backpressure, admission counters and RTTs) are logged every
+ * --commandStatsSec=N seconds (0 = off).
+ *
+ * Metrics (connections, per-command rates and handler times, broadcast
+ * fan-out, RTTs, duels, logins...) live in the metrics.Metrics registry and are
+ * served on http://127.0.0.1:--metricsPort/metrics (Prometheus) and /stats
+ * (plain text); --metricsPort=0 turns the endpoint off.
+ *
+ * Logging goes through the async Log facade; per-message chatter (inbound
+ * messages, direct sends, duel steps) is DEBUG, so the default --logLevel=INFO
+ * keeps it off the hot path.
  */
 public class LobbyServer {
     private static final int PORT = 5555;
+    private static final int OUTBOUND_LIMIT = 1024; // queued messages per client before it counts as slow
+    private static final long OUTBOUND_MAX_BYTES = 1024 * 1024;
+    private static final long OUTBOUND_MAX_AGE_MS = 5000;
+    private static final long BROADCAST_TICK_MS = 50;
+    private static final long COMMAND_STATS_SEC = 60;
+    private static final long THROTTLE_NOTICE_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int MAX_CONNECTIONS = 10_000;
+    private static final int MAX_UNAUTHENTICATED = 256;
+    private static final long HANDSHAKE_TIMEOUT_SEC = 10;
+    private static final long HEARTBEAT_SEC = 15;
+    private static final int METRICS_PORT = 9555;
+    private static final long IDLE_TIMEOUT_SEC = 45;
+    private static final int MIN_IDLE_HEARTBEATS = 3; // pings a client may miss before it counts as idle
+    private static final long TIMER_TICK_MS = 100;
+    private static final int TIMER_BUCKETS = 512;
+    private static final int CHAT_HISTORY = 50;
+    private static final long DUEL_REQUEST_TTL_SEC = 30;
+    private static final String DUEL_LOG_DIR = ""; // no duel log unless --duelLog=dir
+    private static final int DUEL_LOG_SEGMENT_MB = 64;
+    private static final int DUEL_LOG_SEGMENTS = 16;
     private static final AccountStore accountStore = new AccountStore();
-    private static final CopyOnWriteArrayList<ClientConnection> clients = new CopyOnWriteArrayList<>();
-    private static final Map<String, PlayerInfo> players = new ConcurrentHashMap<>();
-    private static final DuelManager duelManager = new DuelManager();
-    private static final Map<String, String> pendingDuelRequests = new ConcurrentHashMap<>();
-    private static final Map<String, String> activeDuels = new ConcurrentHashMap<>();
+    static final ConnectionRegistry<ClientConnection> clients = new ConnectionRegistry<>();
+    static final Map<String, PlayerInfo> players = new ConcurrentHashMap<>(); // local and remote (see ClusterNode)
+    private static final String DEFAULT_ROOM = "lobby";
+    private static final Pattern ROOM_NAME = Pattern.compile("[a-z0-9_-]{1,24}");
+    static final Map<String, LobbyRoom> rooms = new ConcurrentHashMap<>(); // changed under broadcasts.exclusive
+    private static LobbyRoom lobby; // set up in main() from config
+    private static int chatHistory = CHAT_HISTORY; // lines kept per room
+    static BroadcastScheduler broadcasts; // set up in main() from config
+    static final ClusterNode cluster = new ClusterNode(); // started in main() from config
+    private static BackpressurePolicy backpressure; // set up in main() from config
+    private static AdmissionControl admission; // set up in main() from config
+    private static long handshakeTimeoutNanos; // 0 = no deadline
+    private static final TimerWheel timers = new TimerWheel("timer-wheel", TIMER_TICK_MS, TIMER_BUCKETS);
+    private static long heartbeatNanos; // 0 = no heartbeat
+    private static long idleTimeoutNanos;
+    private static boolean offerBinary = true;
+    private static double chatRate = 5, chatBurst = 10;                // per second / bucket size
+    private static double duelRequestRate = 0.5, duelRequestBurst = 3;
+    private static double getPlayersRate = 1, getPlayersBurst = 3;
+    static DuelManager duelManager; // set up in main() from config
+    static DuelChallenges challenges; // set up in main() from config
+    static final Map<String, String> activeDuels = new ConcurrentHashMap<>();
+    private static final Histogram broadcastTime = Metrics.histogram("lobby_broadcast_seconds",
+            "Time to queue one broadcast frame for every logged-in client");
+    private static final Counter broadcastDeliveries = Metrics.counter("lobby_broadcast_deliveries_total",
+            "Frames queued by broadcasts, one per recipient");
+    private static final Histogram rttTime = Metrics.histogram("lobby_rtt_seconds",
+            "Client round-trip time measured with PING/PONG");
+    private static final Counter chatLimited = rateLimitedCounter(Command.CHAT);
+    private static final Counter duelRequestLimited = rateLimitedCounter(Command.DUEL_REQUEST);
+    private static final Counter getPlayersLimited = rateLimitedCounter(Command.GET_PLAYERS);
+    private static final CommandDispatcher<ClientConnection> commands = new CommandDispatcher<ClientConnection>("lobby_command_seconds")
+            .on(Command.LOGIN, ClientConnection::handleLogin)
+            .on(Command.REGISTER, ClientConnection::handleRegister)
+            .on(Command.CHAT, ClientConnection::handleChat)
+            .on(Command.SET_DND, ClientConnection::handleSetDND)
+            .on(Command.ENTER_SPECTATE, ClientConnection::handleEnterSpectate)
+            .on(Command.EXIT_SPECTATE, (c, m) -> c.handleExitSpectate())
+            .on(Command.DUEL_REQUEST, ClientConnection::handleDuelRequest)
+            .on(Command.DUEL_ACCEPT, ClientConnection::handleDuelAccept)
+            .on(Command.DUEL_DECLINE, ClientConnection::handleDuelDecline)
+            .on(Command.ATTACK, (c, m) -> c.handleAttack())
+            .on(Command.QTE_RESULT, ClientConnection::handleQTEResult)
+            .on(Command.GET_PLAYERS, (c, m) -> c.handleGetPlayers())
+            .on(Command.JOIN_ROOM, ClientConnection::handleJoinRoom)
+            .on(Command.PROTO_ACCEPT, ClientConnection::handleProtoAccept)
+            .on(Command.PONG, ClientConnection::handlePong);
 
     public static void main(String[] args) {
-        System.out.println("========================================");
-        System.out.println("🎮 S1ghtRe4ders Lobby Server");
-        System.out.println("========================================");
-        System.out.println("📡 Listening on port " + PORT);
-        System.out.println();
+        ServerConfig config = ServerConfig.fromArgs(args);
+        Log.setLevel(Log.parseLevel(config.get("logLevel", "INFO")));
+        int port = config.getInt("port", PORT);
+        String ioMode = config.get("io", "thread");
+        backpressure = new BackpressurePolicy(
+                config.getInt("outboundLimit", OUTBOUND_LIMIT),
+                config.getLong("outboundMaxBytes", OUTBOUND_MAX_BYTES),
+                config.getLong("outboundMaxAgeMs", OUTBOUND_MAX_AGE_MS),
+                config.getBoolean("dropChatWhenSlow", true),
+                config.getBoolean("collapseSnapshots", true));
+        admission = new AdmissionControl(
+                config.getInt("maxConnections", MAX_CONNECTIONS),
+                config.getInt("maxUnauthenticated", MAX_UNAUTHENTICATED));
+        handshakeTimeoutNanos = TimeUnit.SECONDS.toNanos(Math.max(0, config.getLong("handshakeTimeoutSec", HANDSHAKE_TIMEOUT_SEC)));
+        offerBinary = config.getBoolean("binaryProtocol", true);
+        chatRate = config.getDouble("chatRate", chatRate);
+        chatBurst = config.getDouble("chatBurst", chatBurst);
+        duelRequestRate = config.getDouble("duelRequestRate", duelRequestRate);
+        duelRequestBurst = config.getDouble("duelRequestBurst", duelRequestBurst);
+        getPlayersRate = config.getDouble("getPlayersRate", getPlayersRate);
+        getPlayersBurst = config.getDouble("getPlayersBurst", getPlayersBurst);
+        heartbeatNanos = TimeUnit.SECONDS.toNanos(Math.max(0, config.getLong("heartbeatSec", HEARTBEAT_SEC)));
+        idleTimeoutNanos = idleTimeout(config.getLong("idleTimeoutSec", IDLE_TIMEOUT_SEC));
+        timers.start();
+        challenges = new DuelChallenges(timers, config.getLong("duelRequestTtlSec", DUEL_REQUEST_TTL_SEC),
+                LobbyServer::duelExpired);
+        duelManager = new DuelManager(config.getInt("duelLanes", Math.max(1, Runtime.getRuntime().availableProcessors() / 2)),
+                openDuelLog(config));
+        broadcasts = new BroadcastScheduler(LobbyServer::broadcastFrame, LobbyServer::broadcastToRoom,
+                config.getLong("broadcastTickMs", BROADCAST_TICK_MS));
+        chatHistory = config.getInt("chatHistory", CHAT_HISTORY);
+        lobby = new LobbyRoom(DEFAULT_ROOM, chatHistory);
+        rooms.put(DEFAULT_ROOM, lobby);
+        broadcasts.track(lobby);
+        broadcasts.start();
+        cluster.start(config, port);
+        startCommandStats(config.getLong("commandStatsSec", COMMAND_STATS_SEC));
+        registerMetrics();
+        startMetricsServer(config.getInt("metricsPort", METRICS_PORT));
+
+        Log.info("========================================");
+        Log.info("🎮 S1ghtRe4ders Lobby Server");
+        Log.info("========================================");
+        Log.info("📡 Listening on port {} (io={})", port, ioMode);
+        Log.info("");
+
+        try {
+            if ("nio".equals(ioMode)) {
+                int eventLoops = config.getInt("eventLoops", Runtime.getRuntime().availableProcessors());
+                new NioServer(port, eventLoops, backpressure, admission, LobbyServer::openConnection).run();
+            } else {
+                runThreadPerConnection(port, "virtual".equals(ioMode));
+            }
+        } catch (IOException e) {
+            Log.error("❌ Server error: " + e.getMessage(), e);
+        }
+    }
 
-        try (ServerSocket serverSocket = new ServerSocket(PORT)) {
+    /**
+     * --idleTimeoutSec, raised to MIN_IDLE_HEARTBEATS heartbeat periods: a shorter
+     * (or negative) timeout would drop healthy clients between two pings
+     */
+    private static long idleTimeout(long seconds) {
+        long nanos = TimeUnit.SECONDS.toNanos(seconds);
+        long min = heartbeatNanos * MIN_IDLE_HEARTBEATS;
+        if (heartbeatNanos > 0 && nanos < min) {
+            Log.warn("⚠️ --idleTimeoutSec={} is under {} heartbeats, using {}s", seconds, MIN_IDLE_HEARTBEATS,
+                    TimeUnit.NANOSECONDS.toSeconds(min));
+            return min;
+        }
+        return nanos;
+    }
+
+    /**
+     * Periodically log which commands the server spends its time on, and how often slow clients were throttled
+     */
+    private static void startCommandStats(long periodSec) {
+        if (periodSec <= 0) {
+            return;
+        }
+        ScheduledExecutorService statsLogger = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "command-stats");
+            t.setDaemon(true);
+            return t;
+        });
+        statsLogger.scheduleAtFixedRate(() -> {
+            String report = commands.report();
+            if (!report.isEmpty()) {
+                Log.info("📊 Command stats ({} online):\n{}", clients.authenticatedCount(), report);
+            }
+            String throttled = backpressure.report();
+            if (!throttled.isEmpty()) {
+                Log.info("🐢 Backpressure: {}", throttled);
+            }
+            String admitted = admission.report();
+            if (!admitted.isEmpty()) {
+                Log.info("🚪 Admission: {}", admitted);
+            }
+            String rtt = rttReport();
+            if (!rtt.isEmpty()) {
+                Log.info("📶 RTT: {}", rtt);
+            }
+        }, periodSec, periodSec, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Gauges and counters for state that lives elsewhere (read only when scraped)
+     */
+    private static void registerMetrics() {
+        Metrics.gauge("lobby_connections", "Open client connections", admission::open);
+        Metrics.gauge("lobby_connections_unauthenticated", "Connections that have not logged in yet", admission::unauthenticated);
+        Metrics.gauge("lobby_players", "Logged-in players", clients::authenticatedCount);
+        Metrics.gauge("lobby_rooms", "Open rooms", () -> rooms.size());
+        Metrics.counter("lobby_connections_refused_total", "Connections refused by admission caps", admission::refused);
+        Metrics.counter("lobby_handshake_timeouts_total", "Connections closed for not logging in in time", admission::handshakeTimeouts);
+        Metrics.counter("lobby_slow_chat_dropped_total", "Chat frames dropped for slow consumers", backpressure::chatDropped);
+        Metrics.counter("lobby_slow_snapshots_collapsed_total", "Stale PLAYER_LIST snapshots replaced in slow queues", backpressure::snapshotsCollapsed);
+        Metrics.counter("lobby_slow_disconnects_total", "Slow consumers disconnected", backpressure::disconnects);
+        Metrics.gauge("lobby_timers_pending", "Timeouts waiting on the timer wheel", timers::pending);
+        Metrics.gauge("lobby_duel_requests_pending", "Duel challenges waiting for an answer", challenges::size);
+        Metrics.counter("log_dropped_total", "Log lines dropped because the async buffer was full", Log::dropped);
+    }
+
+    /**
+     * @return null if --duelLog is empty, --duelLogSegmentMb is out of range or the directory cannot be used
+     */
+    private static DuelLog openDuelLog(ServerConfig config) {
+        String dir = config.get("duelLog", DUEL_LOG_DIR);
+        if (dir.isEmpty()) {
+            return null;
+        }
+        long segmentMb = config.getLong("duelLogSegmentMb", DUEL_LOG_SEGMENT_MB);
+        long maxSegmentMb = Integer.MAX_VALUE / (1024L * 1024); // a segment is one MappedByteBuffer
+        if (segmentMb < 1 || segmentMb > maxSegmentMb) {
+            Log.warn("⚠️ Duel log disabled: --duelLogSegmentMb must be 1 to {}", maxSegmentMb);
+            return null;
+        }
+        try {
+            return new DuelLog(Path.of(dir), (int) (segmentMb * 1024L * 1024),
+                    config.getInt("duelLogSegments", DUEL_LOG_SEGMENTS));
+        } catch (IOException e) {
+            Log.warn("⚠️ Duel log disabled: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static void startMetricsServer(int port) {
+        if (port <= 0) {
+            return;
+        }
+        try {
+            MetricsServer.start(port);
+            Log.info("📈 Metrics on http://127.0.0.1:{}/metrics (and /stats)", port);
+        } catch (IOException e) {
+            Log.warn("⚠️ Metrics endpoint disabled: {}", e.getMessage());
+        }
+    }
+
+    private static Counter rateLimitedCounter(Command command) {
+        return Metrics.counter("lobby_rate_limited_total", "Commands refused or collapsed by per-connection rate limits",
+                "command", command.name());
+    }
+
+    /**
+     * Round-trip times across logged-in clients (percentiles at INFO, every client at DEBUG)
+     */
+    private static String rttReport() {
+        List<ClientConnection> measured = new ArrayList<>();
+        for (ClientConnection client : clients.authenticated()) {
+            if (client.rttNanos >= 0) {
+                measured.add(client);
+            }
+        }
+        if (measured.isEmpty()) {
+            return "";
+        }
+        measured.sort(Comparator.comparingLong(c -> c.rttNanos));
+        Log.debug(() -> {
+            StringBuilder sb = new StringBuilder("📶 RTT per client:");
+            for (ClientConnection client : measured) {
+                sb.append(' ').append(client.username).append('=').append(millis(client.rttNanos)).append("ms");
+            }
+            return sb.toString();
+        });
+        int n = measured.size();
+        return "clients=" + n
+                + " p50=" + millis(measured.get(n / 2).rttNanos) + "ms"
+                + " p99=" + millis(measured.get(Math.min(n - 1, n * 99 / 100)).rttNanos) + "ms"
+                + " max=" + millis(measured.get(n - 1).rttNanos) + "ms";
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.1f", nanos / 1_000_000.0);
+    }
+
+    /**
+     * Classic mode: one blocking reader thread (platform or virtual) per client
+     */
+    private static void runThreadPerConnection(int port, boolean virtualThreads) throws IOException {
+        Thread.Builder threads = virtualThreads
+                ? Thread.ofVirtual().name("client-", 0)
+                : Thread.ofPlatform().name("client-", 0);
+
+        try (ServerSocket serverSocket = new ServerSocket(port)) {
             while (true) {
                 Socket clientSocket = serverSocket.accept();
-                System.out.println("✅ New connection from " + clientSocket.getInetAddress());
+                if (!admission.tryAdmit()) {
+                    admission.reject(clientSocket);
+                    continue;
+                }
+                Log.info("✅ New connection from {}", clientSocket.getInetAddress());
 
-                ClientConnection handler = new ClientConnection(clientSocket);
-                clients.add(handler);
+                SocketTransport transport = new SocketTransport(clientSocket, backpressure);
+                transport.bind(openConnection(transport));
 
-                new Thread(handler).start();
+                threads.start(transport);
             }
-        } catch (IOException e) {
-            System.err.println("❌ Server error: " + e.getMessage());
-            e.printStackTrace();
         }
     }
 
     /**
-     * Broadcast a message to all connected clients
+     * Register a new client connection on top of the given transport
      */
-    public static void broadcastMessage(String message) {
-        for (ClientConnection client : clients) {
-            client.sendMessage(message);
+    private static ClientConnection openConnection(Transport transport) {
+        ClientConnection handler = new ClientConnection(transport);
+        clients.add(handler);
+        handler.startHandshakeTimer();
+        return handler;
+    }
+
+    /**
+     * A token bucket for one connection, or null when the limit is off
+     */
+    private static TokenBucket rateLimit(double ratePerSec, double burst) {
+        return ratePerSec > 0 ? new TokenBucket(ratePerSec, burst) : null;
+    }
+
+    /**
+     * Broadcast a message to all logged-in clients in every room (encoded once, shared by every connection)
+     */
+    public static void broadcastMessage(Message message) {
+        broadcastFrame(Frame.of(message));
+    }
+
+    /**
+     * Broadcast an already built frame to all logged-in clients
+     */
+    public static void broadcastFrame(Frame frame) {
+        long start = System.nanoTime();
+        int recipients = 0;
+        for (ClientConnection client : clients.authenticated()) {
+            client.sendFrame(frame);
+            recipients++;
         }
+        broadcastDeliveries.add(recipients);
+        broadcastTime.recordSince(start);
     }
 
     /**
-     * Send a message to a specific player by username
+     * Send a frame to one room's members
      */
-    public static void sendToPlayer(String username, String message) {
-        for (ClientConnection client : clients) {
-            if (username.equals(client.username)) {
-                System.out.println("📤 Sending to " + username + ": " + message);
-                client.sendMessage(message);
+    static void broadcastToRoom(LobbyRoom room, Frame frame) {
+        long start = System.nanoTime();
+        broadcastDeliveries.add(room.broadcast(frame));
+        broadcastTime.recordSince(start);
+    }
+
+    /**
+     * Send a player chat line to one room's members, keeping it in the room's history
+     */
+    static void chatToRoom(LobbyRoom room, Frame line) {
+        long start = System.nanoTime();
+        broadcastDeliveries.add(room.chat(line));
+        broadcastTime.recordSince(start);
+    }
+
+    /**
+     * Queue a server notice for every client (global channel) for the next broadcast tick
+     */
+    public static void announce(String text) {
+        broadcasts.announce(text);
+        cluster.announce(null, text);
+    }
+
+    /**
+     * Queue a CHAT:SERVER line for one room's next broadcast tick
+     */
+    static void announce(LobbyRoom room, String text) {
+        broadcasts.announce(room, text);
+        cluster.announce(room, text);
+    }
+
+    /**
+     * Change a player's status in whatever room they are in right now (on their home node if remote)
+     */
+    static void setStatus(String username, PlayerStatus status) {
+        broadcasts.exclusive(() -> {
+            PlayerInfo info = players.get(username);
+            if (info == null) {
                 return;
             }
+            if (info.home != null) {
+                cluster.setStatus(info, status);
+                return;
+            }
+            info.room.presence.setStatus(username, status);
+            cluster.playerUp(info);
+        });
+    }
+
+    /**
+     * Room by name, created (and announced) if it does not exist. Call under broadcasts.exclusive.
+     */
+    private static LobbyRoom openRoom(String name, String openedBy) {
+        LobbyRoom room = rooms.get(name);
+        if (room == null) {
+            room = room(name);
+            Log.info("🏠 {} opened {}", openedBy, room);
+            announce("🏠 " + openedBy + " opened " + room);
+        }
+        return room;
+    }
+
+    /**
+     * Room by name, created quietly if needed. Call under broadcasts.exclusive.
+     */
+    static LobbyRoom room(String name) {
+        return rooms.computeIfAbsent(name, n -> {
+            LobbyRoom room = new LobbyRoom(n, chatHistory);
+            broadcasts.track(room);
+            return room;
+        });
+    }
+
+    /**
+     * Drop a room nobody (local or remote) is in any more. Call under broadcasts.exclusive.
+     */
+    static void closeIfEmpty(LobbyRoom room) {
+        if (room != lobby && room.isEmpty()) {
+            rooms.remove(room.name, room);
+            Log.info("🏠 {} closed (empty)", room);
+        }
+    }
+
+    /**
+     * Park a duel challenge for a target connected to this node and tell them
+     */
+    static void duelRequested(String requester, String target) {
+        if (!challenges.offer(requester, target)) {
+            sendToPlayer(requester, Message.of(Command.ERROR, "Duel request to " + target + " already pending"));
+            return;
         }
-        System.err.println("⚠️ Could not send to " + username + " (not connected)");
+        Log.debug("⚔️ [{}] requested duel with [{}]", requester, target);
+        sendToPlayer(target, Message.of(Command.DUEL_REQUESTED, requester));
     }
 
     /**
-     * Broadcast current player list to all clients
+     * username went into a duel or left: drop their pending challenges, both ways.
+     * Whoever was waiting on them gets DUEL_EXPIRED:username; their own requests
+     * to others are gone, so accepting one reports no pending request.
      */
-    public static void broadcastPlayerList() {
-        StringBuilder sb = new StringBuilder("PLAYER_LIST:");
+    static void withdrawChallenges(String username) {
+        for (DuelChallenges.Challenge challenge : challenges.removeAll(username)) {
+            if (!challenge.challenger.equals(username)) {
+                sendToPlayer(challenge.challenger, Message.of(Command.DUEL_EXPIRED, challenge.target));
+            }
+        }
+    }
 
-        for (String username : players.keySet()) {
+    /**
+     * Forget a finished or aborted duel and free both players for the next one
+     */
+    static void releaseDuel(String duelId) {
+        String duelists = activeDuels.remove(duelId);
+        if (duelists == null) {
+            return;
+        }
+        for (String username : duelists.split(",")) {
             PlayerInfo info = players.get(username);
-            sb.append(username).append(",").append(info.status).append(";");
+            if (info != null) {
+                info.releaseDuel(duelId);
+            }
         }
+    }
 
-        broadcastMessage(sb.toString());
-        System.out.println("📢 Broadcasted player list: " + players.size() + " players online");
+    /**
+     * username's duelId is over: stop taking ATTACK / QTE_RESULT for it, here or on their node
+     */
+    static void unbindDuel(String username, String duelId) {
+        ClientConnection client = clients.find(username);
+        if (client != null) {
+            client.unbindDuel(duelId);
+            return;
+        }
+        PlayerInfo info = players.get(username);
+        if (info != null && info.home != null) {
+            cluster.unbindDuel(info, duelId);
+        }
     }
 
     /**
-     * Per-client handler thread
+     * A challenge ran out of time (timer thread)
      */
-    static class ClientConnection implements Runnable {
-        private Socket socket;
-        private BufferedReader in;
-        private PrintWriter out;
-        private String username = null;
-        private String currentDuelId = null;
-        private boolean authenticated = false;
+    private static void duelExpired(DuelChallenges.Challenge challenge) {
+        Log.debug("⌛ [{}]'s duel request to [{}] expired", challenge.challenger, challenge.target);
+        sendToPlayer(challenge.challenger, Message.of(Command.DUEL_EXPIRED, challenge.target));
+    }
 
-        public ClientConnection(Socket socket) throws IOException {
-            this.socket = socket;
-            this.in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-            this.out = new PrintWriter(socket.getOutputStream(), true);
+    /**
+     * Send a message to a specific player by username
+     */
+    public static void sendToPlayer(String username, Message message) {
+        ClientConnection client = clients.find(username);
+        if (client != null) {
+            Log.debug("📤 Sending to {}: {}", username, message);
+            client.sendMessage(message);
+            return;
+        }
+        if (cluster.deliver(username, message)) {
+            return;
+        }
+        Log.warn("⚠️ Could not send to {} (not connected)", username);
+    }
+
+    /**
+     * Per-client protocol handler (transport-agnostic)
+     */
+    static class ClientConnection implements ConnectionHandler {
+        private final Transport transport;
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+        private String username = null;
+        private volatile String currentDuelId = null; // also set by the accepting opponent's thread
+        private volatile String duelHost = null;      // node running currentDuelId, null = this one
+        private volatile boolean authenticated = false; // read by the handshake timer
+        private PlayerInfo player; // set on login
+        private volatile TimerWheel.Timeout handshakeTimeout;
+
+        // Rate limits (see class doc)
+        private final TokenBucket chatLimit = rateLimit(chatRate, chatBurst);
+        private final TokenBucket duelRequestLimit = rateLimit(duelRequestRate, duelRequestBurst);
+        private final TokenBucket getPlayersLimit = rateLimit(getPlayersRate, getPlayersBurst);
+        private final AtomicBoolean snapshotOwed = new AtomicBoolean(false);
+        private long lastThrottleNotice = System.nanoTime() - THROTTLE_NOTICE_NANOS; // reader thread only
+
+        // Heartbeat (see class doc): written by the reader, read by the timer wheel
+        private volatile long lastHeard = System.nanoTime();
+        private volatile int pingSeq;
+        private volatile long pingSentAt;
+        private volatile long rttNanos = -1; // -1 = no PONG yet
+        private volatile TimerWheel.Timeout heartbeat;
+
+        public ClientConnection(Transport transport) {
+            this.transport = transport;
             this.authenticated = false;
         }
 
         @Override
-        public void run() {
-            try {
-                String message;
-                while ((message = in.readLine()) != null) {
-                    System.out.println("📨 [" + (username != null ? username : "?") + "] " + message);
-                    handleMessage(message);
-                }
-            } catch (IOException e) {
-                System.out.println("❌ Client disconnected (read error)");
-            } finally {
-                cleanup();
+        public void onMessage(Message message) {
+            lastHeard = System.nanoTime();
+            Log.debug("📨 [{}] {}", username != null ? username : "?", message);
+            handleMessage(message);
+        }
+
+        @Override
+        public void onDisconnect() {
+            cleanup();
+        }
+
+        /**
+         * Dispatch a decoded message (text or binary, handlers don't care)
+         */
+        private void handleMessage(Message message) {
+            if (!authenticated && message.command != Command.LOGIN && message.command != Command.REGISTER) {
+                sendMessage(Message.of(Command.ERROR, "You must login first"));
+                return;
+            }
+            if (!withinRateLimit(message)) {
+                return;
+            }
+            if (!commands.dispatch(this, message)) {
+                Log.warn("⚠️ Unknown message: {}", message);
             }
         }
 
         /**
-         * Parse and handle incoming messages
+         * Token-bucket check for CHAT and DUEL_REQUEST; over the limit they are dropped
          */
-        private void handleMessage(String message) {
-            if (message.startsWith("LOGIN:")) {
-                handleLogin(message);
-            } else if (message.startsWith("REGISTER:")) {
-                handleRegister(message);
-            } else if (!authenticated) {
-                sendMessage("ERROR:You must login first");
-                return;
-            } else if (message.startsWith("CHAT:")) {
-                handleChat(message);
-            } else if (message.startsWith("SET_DND:")) {
-                handleSetDND(message);
-            } else if (message.startsWith("ENTER_SPECTATE:")) {
-                handleEnterSpectate(message);
-            } else if (message.equals("EXIT_SPECTATE")) {
-                handleExitSpectate();
-            } else if (message.startsWith("DUEL_REQUEST:")) {
-                handleDuelRequest(message);
-            } else if (message.equals("DUEL_ACCEPT")) {
-                handleDuelAccept();
-            } else if (message.equals("DUEL_DECLINE")) {
-                handleDuelDecline();
-            } else if (message.equals("ATTACK")) {
-                handleAttack();
-            } else if (message.startsWith("QTE_RESULT:")) {
-                handleQTEResult(message);
-            } else if (message.equals("GET_PLAYERS")) {
-                LobbyServer.broadcastPlayerList();
-            } else {
-                System.out.println("⚠️ Unknown message: " + message);
+        private boolean withinRateLimit(Message message) {
+            TokenBucket bucket = message.command == Command.CHAT ? chatLimit
+                    : message.command == Command.DUEL_REQUEST ? duelRequestLimit
+                    : null;
+            if (bucket == null || bucket.tryAcquire()) {
+                return true;
+            }
+
+            (bucket == chatLimit ? chatLimited : duelRequestLimited).increment();
+            Log.debug("🚦 [{}] {} rate-limited", this.username, message.command);
+            long now = System.nanoTime();
+            if (now - lastThrottleNotice >= THROTTLE_NOTICE_NANOS) {
+                lastThrottleNotice = now;
+                sendMessage(Message.of(Command.ERROR, "Slow down, you are sending messages too fast"));
             }
+            return false;
         }
 
         /**
          * LOGIN:username:passwordHash
          */
-        private void handleLogin(String message) {
+        private void handleLogin(Message message) {
             if (authenticated) {
-                sendMessage("ERROR:Already logged in");
+                sendMessage(Message.of(Command.ERROR, "Already logged in"));
                 return;
             }
 
-            String[] parts = message.substring(6).split(":", 2);
-            if (parts.length != 2) {
-                sendMessage("LOGIN_FAIL:Invalid format");
+            if (message.argCount() != 2) {
+                sendMessage(Message.of(Command.LOGIN_FAIL, "Invalid format"));
                 return;
             }
 
-            String username = parts[0].trim();
-            String passwordHash = parts[1].trim();
+            String username = message.arg(0).trim();
+            String passwordHash = message.arg(1).trim();
 
             if (!LobbyServer.accountStore.validateLogin(username, passwordHash)) {
-                System.out.println("❌ Failed login attempt: " + username);
-                sendMessage("LOGIN_FAIL:Invalid username or password");
+                Log.info("❌ Failed login attempt: {}", username);
+                sendMessage(Message.of(Command.LOGIN_FAIL, "Invalid username or password"));
+                return;
+            }
+
+            PlayerInfo existing = players.get(username);
+            if ((existing != null && existing.home != null) || !clients.bind(username, this)) {
+                Log.info("❌ Duplicate login attempt: {}", username);
+                sendMessage(Message.of(Command.LOGIN_FAIL, "User is already logged in"));
                 return;
             }
 
             this.username = username;
             this.authenticated = true;
-            players.put(username, new PlayerInfo(username, PlayerStatus.LOBBY_AVAILABLE));
+            admission.authenticated();
+            TimerWheel.Timeout deadline = handshakeTimeout;
+            if (deadline != null) {
+                deadline.cancel();
+            }
 
-            System.out.println("✅ [" + username + "] logged in");
-            sendMessage("LOGIN_OK:" + username);
-            LobbyServer.broadcastMessage("CHAT:SERVER:🟢 " + username + " joined the lobby");
-            LobbyServer.broadcastPlayerList();
+            Log.info("✅ [{}] logged in", username);
+            sendMessage(Message.of(Command.LOGIN_OK, username));
+            if (offerBinary) {
+                sendMessage(Message.of(Command.PROTO_OFFER, Integer.toString(BinaryCodec.VERSION)));
+            }
+            this.player = new PlayerInfo(username, PlayerStatus.LOBBY_AVAILABLE);
+            players.put(username, player);
+            broadcasts.exclusive(() -> enterRoom(lobby));
+            LobbyServer.announce(lobby, "🟢 " + username + " joined the lobby");
+            scheduleHeartbeat();
         }
 
         /**
          * REGISTER:username:passwordHash
          */
-        private void handleRegister(String message) {
+        private void handleRegister(Message message) {
             if (authenticated) {
-                sendMessage("ERROR:Already logged in");
+                sendMessage(Message.of(Command.ERROR, "Already logged in"));
                 return;
             }
 
-            String[] parts = message.substring(9).split(":", 2);
-            if (parts.length != 2) {
-                sendMessage("REGISTER_FAIL:Invalid format");
+            if (message.argCount() != 2) {
+                sendMessage(Message.of(Command.REGISTER_FAIL, "Invalid format"));
                 return;
             }
 
-            String username = parts[0].trim();
-            String passwordHash = parts[1].trim();
+            String username = message.arg(0).trim();
+            String passwordHash = message.arg(1).trim();
 
             if (username.isEmpty() || passwordHash.isEmpty()) {
-                sendMessage("REGISTER_FAIL:Username and password cannot be empty");
+                sendMessage(Message.of(Command.REGISTER_FAIL, "Username and password cannot be empty"));
                 return;
             }
 
             if (!LobbyServer.accountStore.register(username, passwordHash)) {
-                System.out.println("❌ Registration failed: " + username + " already exists");
-                sendMessage("REGISTER_FAIL:Username already exists");
+                Log.info("❌ Registration failed: {} already exists", username);
+                sendMessage(Message.of(Command.REGISTER_FAIL, "Username already exists"));
                 return;
             }
 
-            System.out.println("✅ Registered new account: " + username);
-            sendMessage("REGISTER_OK:Account created, you can now login");
+            Log.info("✅ Registered new account: {}", username);
+            sendMessage(Message.of(Command.REGISTER_OK, "Account created, you can now login"));
         }
 
         /**
          * CHAT:message - Broadcast chat
          */
-        private void handleChat(String message) {
+        private void handleChat(Message message) {
             if (this.username == null) {
-                sendMessage("ERROR:You must login first");
+                sendMessage(Message.of(Command.ERROR, "You must login first"));
                 return;
             }
 
-            String chatMessage = message.substring(5).trim();
+            String chatMessage = message.arg(0).trim();
             if (chatMessage.isEmpty()) {
                 return;
             }
 
-            String broadcastMsg = "CHAT:" + this.username + ":" + chatMessage;
-            System.out.println("💬 " + broadcastMsg);
-            LobbyServer.broadcastMessage(broadcastMsg);
+            Message broadcastMsg = Message.of(Command.CHAT, this.username, chatMessage);
+            Log.debug("💬 {} {}", player.room, broadcastMsg);
+            LobbyServer.chatToRoom(player.room, Frame.of(broadcastMsg));
+            cluster.roomChat(player.room, broadcastMsg);
         }
 
         /**
          * SET_DND:ON or SET_DND:OFF - Toggle do-not-disturb
          */
-        private void handleSetDND(String message) {
+        private void handleSetDND(Message message) {
             if (this.username == null) {
-                sendMessage("ERROR:You must login first");
+                sendMessage(Message.of(Command.ERROR, "You must login first"));
                 return;
             }
 
-            String dndState = message.substring(8).trim().toUpperCase();
+            String dndState = message.arg(0).trim().toUpperCase();
             PlayerInfo info = players.get(this.username);
 
             if (info == null) {
@@ -273,38 +840,35 @@ public class LobbyServer {
             }
 
             if ("ON".equals(dndState)) {
-                info.status = PlayerStatus.LOBBY_DND;
-                System.out.println("🔴 [" + this.username + "] enabled DND");
-                LobbyServer.broadcastMessage("CHAT:SERVER:🔴 " + this.username + " enabled Do Not Disturb");
+                LobbyServer.setStatus(this.username, PlayerStatus.LOBBY_DND);
+                Log.info("🔴 [{}] enabled DND", this.username);
+                LobbyServer.announce(player.room, "🔴 " + this.username + " enabled Do Not Disturb");
             } else if ("OFF".equals(dndState)) {
-                info.status = PlayerStatus.LOBBY_AVAILABLE;
-                System.out.println("🟢 [" + this.username + "] disabled DND");
-                LobbyServer.broadcastMessage("CHAT:SERVER:🟢 " + this.username + " is now available");
+                LobbyServer.setStatus(this.username, PlayerStatus.LOBBY_AVAILABLE);
+                Log.info("🟢 [{}] disabled DND", this.username);
+                LobbyServer.announce(player.room, "🟢 " + this.username + " is now available");
             }
-
-            LobbyServer.broadcastPlayerList();
         }
 
         /**
          * ENTER_SPECTATE:targetName - Enter spectator mode
          */
-        private void handleEnterSpectate(String message) {
+        private void handleEnterSpectate(Message message) {
             if (this.username == null) {
-                sendMessage("ERROR:You must login first");
+                sendMessage(Message.of(Command.ERROR, "You must login first"));
                 return;
             }
 
-            String targetName = message.substring(15).trim();
+            String targetName = message.arg(0).trim();
             PlayerInfo info = players.get(this.username);
 
             if (info == null) {
                 return;
             }
 
-            info.status = PlayerStatus.SPECTATOR;
-            System.out.println("👁️ [" + this.username + "] is now spectating " + targetName);
-            LobbyServer.broadcastMessage("CHAT:SERVER:👁️ " + this.username + " is spectating");
-            LobbyServer.broadcastPlayerList();
+            LobbyServer.setStatus(this.username, PlayerStatus.SPECTATOR);
+            Log.info("👁️ [{}] is now spectating {}", this.username, targetName);
+            LobbyServer.announce(player.room, "👁️ " + this.username + " is spectating");
         }
 
         /**
@@ -312,7 +876,7 @@ public class LobbyServer {
          */
         private void handleExitSpectate() {
             if (this.username == null) {
-                sendMessage("ERROR:You must login first");
+                sendMessage(Message.of(Command.ERROR, "You must login first"));
                 return;
             }
 
@@ -322,209 +886,229 @@ public class LobbyServer {
                 return;
             }
 
-            info.status = PlayerStatus.LOBBY_AVAILABLE;
-            System.out.println("👁️ [" + this.username + "] exited spectator mode");
-            LobbyServer.broadcastMessage("CHAT:SERVER:👁️ " + this.username + " stopped spectating");
-            LobbyServer.broadcastPlayerList();
+            LobbyServer.setStatus(this.username, PlayerStatus.LOBBY_AVAILABLE);
+            Log.info("👁️ [{}] exited spectator mode", this.username);
+            LobbyServer.announce(player.room, "👁️ " + this.username + " stopped spectating");
         }
 
         /**
          * DUEL_REQUEST:targetName - Request a duel with another player
          */
-        private void handleDuelRequest(String message) {
+        private void handleDuelRequest(Message message) {
             if (this.username == null) {
-                sendMessage("ERROR:You must login first");
+                sendMessage(Message.of(Command.ERROR, "You must login first"));
                 return;
             }
 
-            String targetName = message.substring(13).trim();
+            String targetName = message.arg(0).trim();
 
-            if (!players.containsKey(targetName)) {
-                sendMessage("ERROR:Player not found");
+            PlayerInfo targetInfo = players.get(targetName);
+            if (targetInfo == null || targetInfo.room != player.room) {
+                sendMessage(Message.of(Command.ERROR, "Player not found in this room"));
                 return;
             }
 
             if (targetName.equals(this.username)) {
-                sendMessage("ERROR:Cannot duel yourself");
+                sendMessage(Message.of(Command.ERROR, "Cannot duel yourself"));
                 return;
             }
 
-            PlayerInfo targetInfo = players.get(targetName);
             if (targetInfo.status == PlayerStatus.LOBBY_DND || targetInfo.status == PlayerStatus.IN_DUEL) {
-                sendMessage("ERROR:Player is not available");
+                sendMessage(Message.of(Command.ERROR, "Player is not available"));
                 return;
             }
 
-            pendingDuelRequests.put(this.username, targetName);
-            System.out.println("⚔️ [" + this.username + "] requested duel with [" + targetName + "]");
-            LobbyServer.sendToPlayer(targetName, "DUEL_REQUESTED:" + this.username);
+            if (targetInfo.home != null) {
+                cluster.requestDuel(this.username, targetInfo); // the challenge waits on the target's node
+                return;
+            }
+            LobbyServer.duelRequested(this.username, targetName);
         }
 
         /**
-         * DUEL_ACCEPT - Accept the pending duel request
+         * DUEL_ACCEPT[:requester] - Accept a pending duel request (the oldest if unnamed)
          */
-        private void handleDuelAccept() {
+        private void handleDuelAccept(Message message) {
             if (this.username == null) {
-                sendMessage("ERROR:You must login first");
+                sendMessage(Message.of(Command.ERROR, "You must login first"));
                 return;
             }
 
-            // Find requester
-            String requesterTemp = null;
-            for (String req : pendingDuelRequests.keySet()) {
-                if (this.username.equals(pendingDuelRequests.get(req))) {
-                    requesterTemp = req;
-                    break;
-                }
-            }
-            final String requester = requesterTemp;
-            if (requester == null) {
-                sendMessage("ERROR:No pending duel request");
+            if (player.status == PlayerStatus.IN_DUEL) {
+                sendMessage(Message.of(Command.ERROR, "Already in a duel"));
                 return;
             }
 
-            pendingDuelRequests.remove(requester);
+            DuelChallenges.Challenge challenge = challenges.answer(this.username, message.arg(0).trim());
+            if (challenge == null) {
+                sendMessage(Message.of(Command.ERROR, "No pending duel request"));
+                return;
+            }
+            final String requester = challenge.challenger;
 
             // 1) Generate ONE duelId
             final String duelId = java.util.UUID.randomUUID().toString();
-            System.out.println("🆔 Generated duelId: " + duelId);
+            Log.debug("🆔 Generated duelId: {}", duelId);
 
-            // 2) Create duel with that id and callbacks
-            DuelManager.Duel duel = duelManager.createDuel(
+            // Claim both players for it: of two accepts racing for one challenger, only one gets them
+            if (!player.claimDuel(duelId)) {
+                sendMessage(Message.of(Command.ERROR, "Already in a duel"));
+                return;
+            }
+            PlayerInfo requesterInfo = players.get(requester);
+            if (requesterInfo == null || !requesterInfo.claimDuel(duelId)) {
+                player.releaseDuel(duelId);
+                sendMessage(Message.of(Command.ERROR, requester + " is no longer available"));
+                return;
+            }
+            activeDuels.put(duelId, requester + "," + this.username);
+
+            // Neither of them can answer or be answered elsewhere now, here or on another node
+            for (String duelist : new String[]{requester, this.username}) {
+                LobbyServer.withdrawChallenges(duelist);
+                cluster.withdrawChallenges(duelist);
+            }
+
+            // Duel chatter goes to the room it started in, wherever the players wander off to
+            final LobbyRoom duelRoom = player.room;
+
+            // 2) Set HP + status
+            PlayerInfo p1 = players.get(requester);
+            PlayerInfo p2 = players.get(this.username);
+            if (p1 != null) {
+                p1.currentHp = 100;
+                LobbyServer.setStatus(requester, PlayerStatus.IN_DUEL);
+                Log.debug("📊 {} status -> IN_DUEL, HP=100", requester);
+            }
+            if (p2 != null) {
+                p2.currentHp = 100;
+                LobbyServer.setStatus(this.username, PlayerStatus.IN_DUEL);
+                Log.debug("📊 {} status -> IN_DUEL, HP=100", this.username);
+            }
+
+            // 3) Set duelId on both connections (a remote requester's node forwards its input here)
+            bindDuel(duelId, null);
+            ClientConnection requesterConnection = clients.find(requester);
+            if (requesterConnection != null) {
+                requesterConnection.bindDuel(duelId, null);
+            } else if (p1 != null && p1.home != null) {
+                cluster.bindDuel(p1, duelId);
+            }
+
+            // 4) Create duel with that id and callbacks; its lane sends DUEL_START, then the first TURN_CHANGE
+            duelManager.createDuel(
                     duelId,
                     requester,
                     this.username,
                     new DuelManager.Callbacks() {
+                        @Override
+                        public void onDuelStart(String p1Id, String p2Id) {
+                            Log.debug("⚔️ CALLBACK onDuelStart -> {} vs {}", p1Id, p2Id);
+                            LobbyServer.sendToPlayer(p1Id, Message.of(Command.DUEL_START, duelId, "1"));
+                            LobbyServer.sendToPlayer(p2Id, Message.of(Command.DUEL_START, duelId, "2"));
+                        }
+
                         @Override
                         public void onQteStart(String defenderId) {
-                            System.out.println("⚔️ CALLBACK onQteStart -> " + defenderId);
-                            LobbyServer.sendToPlayer(defenderId, "QTE_START");
+                            Log.debug("⚔️ CALLBACK onQteStart -> {}", defenderId);
+                            LobbyServer.sendToPlayer(defenderId, Message.of(Command.QTE_START));
                         }
 
                         @Override
                         public void onTakeDamage(String playerId, int damage) {
-                            System.out.println("⚔️ CALLBACK onTakeDamage -> " + playerId + " dmg=" + damage);
+                            Log.debug("⚔️ CALLBACK onTakeDamage -> {} dmg={}", playerId, damage);
                             PlayerInfo info = players.get(playerId);
                             if (info == null) {
-                                System.err.println("   ⚠️ Player not found in players map");
+                                Log.warn("   ⚠️ Player not found in players map");
                                 return;
                             }
 
                             info.currentHp = Math.max(0, info.currentHp - damage);
-                            System.out.println("   📊 " + playerId + " HP now: " + info.currentHp);
+                            Log.debug("   📊 {} HP now: {}", playerId, info.currentHp);
 
-                            String hpMsg = "HP_UPDATE:" + playerId + ":" + info.currentHp;
+                            Message hpMsg = Message.of(Command.HP_UPDATE, playerId, Integer.toString(info.currentHp));
                             LobbyServer.sendToPlayer(requester, hpMsg);
                             LobbyServer.sendToPlayer(ClientConnection.this.username, hpMsg);
 
-                            LobbyServer.broadcastMessage(
-                                    "CHAT:SERVER:⚔️ " + playerId + " took " + damage + " damage (HP: " + info.currentHp + ")"
+                            LobbyServer.announce(duelRoom,
+                                    "⚔️ " + playerId + " took " + damage + " damage (HP: " + info.currentHp + ")"
                             );
                         }
 
                         @Override
                         public void onTurnChange(String attackerId, String defenderId) {
-                            System.out.println("⚔️ CALLBACK onTurnChange -> attacker=" + attackerId + ", defender=" + defenderId);
-                            LobbyServer.sendToPlayer(attackerId, "TURN_CHANGE:true");
-                            LobbyServer.sendToPlayer(defenderId, "TURN_CHANGE:false");
-                            System.out.println("   📤 Sent TURN_CHANGE to both players");
+                            Log.debug("⚔️ CALLBACK onTurnChange -> attacker={}, defender={}", attackerId, defenderId);
+                            LobbyServer.sendToPlayer(attackerId, Message.of(Command.TURN_CHANGE, "true"));
+                            LobbyServer.sendToPlayer(defenderId, Message.of(Command.TURN_CHANGE, "false"));
+                            Log.debug("   📤 Sent TURN_CHANGE to both players");
                         }
 
                         @Override
                         public void onDuelEnd(String winnerId) {
-                            System.out.println("🏁 CALLBACK onDuelEnd -> winner=" + winnerId);
+                            Log.debug("🏁 CALLBACK onDuelEnd -> winner={}", winnerId);
                             String loserId = winnerId.equals(requester)
                                     ? ClientConnection.this.username
                                     : requester;
 
-                            PlayerInfo winnerInfo = players.get(winnerId);
-                            PlayerInfo loserInfo = players.get(loserId);
-
-                            if (winnerInfo != null) {
-                                winnerInfo.status = PlayerStatus.LOBBY_AVAILABLE;
-                                System.out.println("   📊 " + winnerId + " status -> LOBBY_AVAILABLE");
-                            }
-                            if (loserInfo != null) {
-                                loserInfo.status = PlayerStatus.LOBBY_AVAILABLE;
-                                System.out.println("   📊 " + loserId + " status -> LOBBY_AVAILABLE");
-                            }
+                            LobbyServer.setStatus(winnerId, PlayerStatus.LOBBY_AVAILABLE);
+                            Log.debug("   📊 {} status -> LOBBY_AVAILABLE", winnerId);
+                            LobbyServer.setStatus(loserId, PlayerStatus.LOBBY_AVAILABLE);
+                            Log.debug("   📊 {} status -> LOBBY_AVAILABLE", loserId);
 
-                            LobbyServer.sendToPlayer(winnerId, "DUEL_END:WIN");
-                            LobbyServer.sendToPlayer(loserId, "DUEL_END:LOSE");
+                            LobbyServer.sendToPlayer(winnerId, Message.of(Command.DUEL_END, "WIN"));
+                            LobbyServer.sendToPlayer(loserId, Message.of(Command.DUEL_END, "LOSE"));
 
-                            LobbyServer.broadcastMessage(
-                                    "CHAT:SERVER:🏆 " + winnerId + " defeated " + loserId
+                            LobbyServer.announce(duelRoom,
+                                    "🏆 " + winnerId + " defeated " + loserId
                             );
 
-                            activeDuels.remove(duelId);
+                            LobbyServer.unbindDuel(winnerId, duelId);
+                            LobbyServer.unbindDuel(loserId, duelId);
+                            releaseDuel(duelId);
                             duelManager.endDuel(duelId);
-                            LobbyServer.broadcastPlayerList();
                         }
-                    }
-            );
-
-            duel.callbacks.onTurnChange(duel.state.getAttackerId(), duel.state.getDefenderId());
 
-            // 3) Track active duel
-            activeDuels.put(duelId, requester + "," + this.username);
+                        @Override
+                        public void onDuelAborted(String leaverId) {
+                            Log.debug("🏳️ CALLBACK onDuelAborted -> leaver={}", leaverId);
+                            String stayerId = leaverId.equals(requester)
+                                    ? ClientConnection.this.username
+                                    : requester;
 
-            // 4) Set HP + status
-            PlayerInfo p1 = players.get(requester);
-            PlayerInfo p2 = players.get(this.username);
-            if (p1 != null) {
-                p1.currentHp = 100;
-                p1.status = PlayerStatus.IN_DUEL;
-                System.out.println("📊 " + requester + " status -> IN_DUEL, HP=100");
-            }
-            if (p2 != null) {
-                p2.currentHp = 100;
-                p2.status = PlayerStatus.IN_DUEL;
-                System.out.println("📊 " + this.username + " status -> IN_DUEL, HP=100");
-            }
+                            LobbyServer.setStatus(stayerId, PlayerStatus.LOBBY_AVAILABLE);
+                            LobbyServer.unbindDuel(stayerId, duelId);
+                            LobbyServer.sendToPlayer(stayerId, Message.of(Command.DUEL_END, "WIN"));
 
-            // 5) Set duelId on both connections
-            this.currentDuelId = duelId;
-            for (ClientConnection client : clients) {
-                if (requester.equals(client.username)) {
-                    client.currentDuelId = duelId;
-                    break;
-                }
-            }
+                            LobbyServer.announce(duelRoom,
+                                    "🏳️ " + leaverId + " left the duel, " + stayerId + " wins"
+                            );
 
-            // 6) Send DUEL_START
-            LobbyServer.sendToPlayer(requester, "DUEL_START:" + duelId + ":1");
-            LobbyServer.sendToPlayer(this.username, "DUEL_START:" + duelId + ":2");
+                            releaseDuel(duelId);
+                        }
+                    }
+            );
 
-            System.out.println("⚔️ Duel started: " + requester + " vs " + this.username);
-            LobbyServer.broadcastPlayerList();
+            Log.info("⚔️ Duel started: {} vs {}", requester, this.username);
         }
 
 
         /**
-         * DUEL_DECLINE - Decline the pending duel request
+         * DUEL_DECLINE[:requester] - Decline a pending duel request (the oldest if unnamed)
          */
-        private void handleDuelDecline() {
+        private void handleDuelDecline(Message message) {
             if (this.username == null) {
-                sendMessage("ERROR:You must login first");
+                sendMessage(Message.of(Command.ERROR, "You must login first"));
                 return;
             }
 
-            String requester = null;
-            for (String req : pendingDuelRequests.keySet()) {
-                if (this.username.equals(pendingDuelRequests.get(req))) {
-                    requester = req;
-                    break;
-                }
-            }
-
-            if (requester == null) {
-                sendMessage("ERROR:No pending duel request");
+            DuelChallenges.Challenge challenge = challenges.answer(this.username, message.arg(0).trim());
+            if (challenge == null) {
+                sendMessage(Message.of(Command.ERROR, "No pending duel request"));
                 return;
             }
-
-            pendingDuelRequests.remove(requester);
-            LobbyServer.sendToPlayer(requester, "DUEL_DECLINED:" + this.username);
-            System.out.println("❌ [" + this.username + "] declined duel from [" + requester + "]");
+            String requester = challenge.challenger;
+            LobbyServer.sendToPlayer(requester, Message.of(Command.DUEL_DECLINED, this.username));
+            Log.info("❌ [{}] declined duel from [{}]", this.username, requester);
         }
 
         /**
@@ -532,11 +1116,15 @@ public class LobbyServer {
          */
         private void handleAttack() {
             if (currentDuelId == null) {
-                sendMessage("ERROR:Not in a duel");
+                sendMessage(Message.of(Command.ERROR, "Not in a duel"));
                 return;
             }
 
-            System.out.println("⚔️ handleAttack: " + this.username + " attacks in duel " + currentDuelId);
+            Log.debug("⚔️ handleAttack: {} attacks in duel {}", this.username, currentDuelId);
+            if (duelHost != null) {
+                cluster.duelAction(duelHost, currentDuelId, this.username, Command.ATTACK, "");
+                return;
+            }
             duelManager.attack(currentDuelId, this.username);
         }
 
@@ -544,54 +1132,236 @@ public class LobbyServer {
          * QTE_RESULT:quality - Send QTE result
          * quality = MISS | HALF | NONE
          */
-        private void handleQTEResult(String message) {
+        private void handleQTEResult(Message message) {
             if (currentDuelId == null) {
-                sendMessage("ERROR:Not in a duel");
+                sendMessage(Message.of(Command.ERROR, "Not in a duel"));
                 return;
             }
 
-            String quality = message.substring(11).trim();
-            System.out.println("⚡ handleQTEResult: " + this.username + " QTE result=" + quality);
+            String quality = message.arg(0).trim();
+            Log.debug("⚡ handleQTEResult: {} QTE result={}", this.username, quality);
+            if (duelHost != null) {
+                cluster.duelAction(duelHost, currentDuelId, this.username, Command.QTE_RESULT, quality);
+                return;
+            }
             duelManager.qteResult(currentDuelId, this.username, quality);
         }
 
+        /**
+         * GET_PLAYERS - snapshot to this client only. Over the rate limit, any
+         * number of requests collapse into one snapshot on a later broadcast tick.
+         */
+        private void handleGetPlayers() {
+            if (getPlayersLimit == null || getPlayersLimit.tryAcquire()) {
+                player.room.presence.sendSnapshot(this::sendMessage);
+                return;
+            }
+            getPlayersLimited.increment();
+            if (snapshotOwed.compareAndSet(false, true)) {
+                broadcasts.defer(this::sendOwedSnapshot);
+            }
+        }
+
+        /**
+         * Deferred GET_PLAYERS answer: waits tick by tick until a token is free
+         */
+        private void sendOwedSnapshot() {
+            if (closed.get()) {
+                return;
+            }
+            if (!getPlayersLimit.tryAcquire() && broadcasts.isBatching()) {
+                broadcasts.defer(this::sendOwedSnapshot);
+                return;
+            }
+            snapshotOwed.set(false);
+            player.room.presence.sendSnapshot(this::sendMessage);
+        }
+
+        /**
+         * JOIN_ROOM:name - move to another room (created if needed)
+         */
+        private void handleJoinRoom(Message message) {
+            String name = message.arg(0).trim().toLowerCase();
+            if (!ROOM_NAME.matcher(name).matches()) {
+                sendMessage(Message.of(Command.ERROR, "Room names are 1-24 letters, digits, - or _"));
+                return;
+            }
+            if (player.status == PlayerStatus.IN_DUEL) {
+                sendMessage(Message.of(Command.ERROR, "Finish your duel first"));
+                return;
+            }
+            if (name.equals(player.room.name)) {
+                sendMessage(Message.of(Command.ERROR, "You are already in " + player.room));
+                return;
+            }
+
+            LobbyRoom from = player.room;
+            broadcasts.exclusive(() -> {
+                leaveRoom();
+                enterRoom(openRoom(name, this.username));
+            });
+            LobbyRoom to = player.room;
+            Log.info("🚪 [{}] moved {} -> {}", this.username, from, to);
+            LobbyServer.announce(from, "🚪 " + this.username + " went to " + to);
+            LobbyServer.announce(to, "🚪 " + this.username + " arrived from " + from);
+        }
+
+        /**
+         * Join room: ROOM_JOINED, then its snapshot, then its broadcasts (under broadcasts.exclusive)
+         */
+        private void enterRoom(LobbyRoom room) {
+            player.room = room;
+            sendMessage(Message.of(Command.ROOM_JOINED, room.name));
+            room.presence.join(player, this::sendMessage);
+            room.add(this);
+            cluster.playerUp(player);
+        }
+
+        /**
+         * Leave the current room, dropping it if that emptied it (under broadcasts.exclusive)
+         */
+        private void leaveRoom() {
+            LobbyRoom room = player.room;
+            room.remove(this);
+            room.presence.leave(this.username);
+            closeIfEmpty(room);
+        }
+
+        /**
+         * Point this player's duel input at the node hosting duelId (null = this node)
+         */
+        void bindDuel(String duelId, String host) {
+            this.duelHost = host;
+            this.currentDuelId = duelId;
+        }
+
+        /**
+         * Forget duelId if it is still the bound one (a newer duel may have replaced it)
+         */
+        void unbindDuel(String duelId) {
+            if (duelId.equals(this.currentDuelId)) {
+                bindDuel(null, null);
+            }
+        }
+
+        /**
+         * PROTO_ACCEPT:version - client takes the binary offer
+         */
+        private void handleProtoAccept(Message message) {
+            if (!offerBinary || !Integer.toString(BinaryCodec.VERSION).equals(message.arg(0).trim())) {
+                sendMessage(Message.of(Command.ERROR, "Unsupported protocol version"));
+                return;
+            }
+            Log.info("🔀 [{}] switched to binary protocol v{}", this.username, BinaryCodec.VERSION);
+            transport.switchToBinary(Message.of(Command.PROTO_SWITCH, Integer.toString(BinaryCodec.VERSION)));
+        }
+
+        /**
+         * PONG:seq - answer to our last PING; anything older is ignored
+         */
+        private void handlePong(Message message) {
+            long now = System.nanoTime();
+            if (!Integer.toString(pingSeq).equals(message.arg(0).trim())) {
+                return;
+            }
+            rttNanos = now - pingSentAt;
+            rttTime.record(rttNanos);
+            Log.debug("📶 [{}] RTT {}ms", this.username, millis(rttNanos));
+        }
+
+        void startHandshakeTimer() {
+            if (handshakeTimeoutNanos > 0) {
+                handshakeTimeout = timers.schedule(this::handshakeExpired, handshakeTimeoutNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        /**
+         * Timer wheel: still no LOGIN after the deadline
+         */
+        private void handshakeExpired() {
+            if (authenticated || closed.get()) {
+                return;
+            }
+            Log.info("⌛ {} did not log in within {}s, closing", transport.remoteAddress(),
+                    TimeUnit.NANOSECONDS.toSeconds(handshakeTimeoutNanos));
+            admission.handshakeTimedOut();
+            transport.close(); // onDisconnect cleans up on the reader's thread
+        }
+
+        private void scheduleHeartbeat() {
+            if (heartbeatNanos > 0 && !closed.get()) {
+                heartbeat = timers.schedule(this::heartbeat, heartbeatNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        /**
+         * Timer wheel: drop the client if it went quiet, otherwise ping it again
+         */
+        private void heartbeat() {
+            if (closed.get()) {
+                return;
+            }
+            long now = System.nanoTime();
+            if (now - lastHeard > idleTimeoutNanos) {
+                Log.info("💀 [{}] silent for {}s, dropping connection", this.username,
+                        TimeUnit.NANOSECONDS.toSeconds(now - lastHeard));
+                transport.close(); // onDisconnect cleans up on the reader's thread
+                return;
+            }
+            pingSentAt = now;
+            sendMessage(Message.of(Command.PING, Integer.toString(++pingSeq)));
+            scheduleHeartbeat();
+        }
+
         /**
          * Send a message to this client
          */
-        public void sendMessage(String message) {
-            out.println(message);
+        public void sendMessage(Message message) {
+            transport.send(message);
+        }
+
+        /**
+         * Send a pre-encoded (possibly shared) frame to this client
+         */
+        public void sendFrame(Frame frame) {
+            transport.send(frame);
         }
 
         /**
          * Cleanup when client disconnects
          */
         private void cleanup() {
-            if (authenticated && this.username != null) {
-                players.remove(this.username);
-                System.out.println("❌ [" + this.username + "] disconnected");
-                LobbyServer.broadcastMessage("CHAT:SERVER:🔴 " + this.username + " left the lobby");
-                LobbyServer.broadcastPlayerList();
-
-                pendingDuelRequests.remove(this.username);
-                for (String req : new ArrayList<>(pendingDuelRequests.keySet())) {
-                    if (this.username.equals(pendingDuelRequests.get(req))) {
-                        pendingDuelRequests.remove(req);
-                    }
-                }
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
 
-                if (currentDuelId != null) {
-                    duelManager.endDuel(currentDuelId);
-                    activeDuels.remove(currentDuelId);
+            admission.released(authenticated);
+            for (TimerWheel.Timeout timeout : new TimerWheel.Timeout[]{handshakeTimeout, heartbeat}) {
+                if (timeout != null) {
+                    timeout.cancel();
                 }
             }
 
-            clients.remove(this);
-
-            try {
-                socket.close();
-            } catch (IOException e) {
-                // Already closed
+            if (authenticated && this.username != null) {
+                LobbyRoom room = player.room;
+                broadcasts.exclusive(this::leaveRoom);
+                players.remove(this.username, player);
+                cluster.playerDown(this.username);
+                Log.info("❌ [{}] disconnected", this.username);
+                LobbyServer.announce(room, "🔴 " + this.username + " left the lobby");
+
+                withdrawChallenges(this.username);
+
+                if (currentDuelId != null && duelHost != null) {
+                    cluster.abortDuel(duelHost, currentDuelId, this.username);
+                } else if (currentDuelId != null) {
+                    duelManager.endDuel(currentDuelId, this.username);
+                    releaseDuel(currentDuelId);
+                }
             }
+
+            clients.remove(this, this.username);
+            transport.close();
         }
     }
 
@@ -600,12 +1370,36 @@ public class LobbyServer {
      */
     static class PlayerInfo {
         String username;
-        PlayerStatus status;
+        volatile PlayerStatus status; // written under LobbyPresence's lock, read anywhere
+        volatile LobbyRoom room;      // written under broadcasts.exclusive
         int currentHp = 100;
+        final String home;            // node the player is connected to, null = this one
+        private volatile String duelId; // duel this player is claimed for, null = free
+
+        private static final AtomicReferenceFieldUpdater<PlayerInfo, String> DUEL =
+                AtomicReferenceFieldUpdater.newUpdater(PlayerInfo.class, String.class, "duelId");
 
         public PlayerInfo(String username, PlayerStatus status) {
+            this(username, status, null);
+        }
+
+        PlayerInfo(String username, PlayerStatus status, String home) {
             this.username = username;
             this.status = status;
+            this.home = home;
+        }
+
+        /**
+         * Reserve this player for duelId. Separate from status, which DND and
+         * spectate toggles overwrite without looking.
+         * @return false if another duel has them
+         */
+        boolean claimDuel(String duelId) {
+            return DUEL.compareAndSet(this, null, duelId);
+        }
+
+        void releaseDuel(String duelId) {
+            DUEL.compareAndSet(this, duelId, null);
         }
     }
 
@@ -0,0 +1,96 @@
+package com.s1ghtre4ders.server;
+
+import com.s1ghtre4ders.server.log.Log;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * S1ghtRe4ders Server Config
+ *
+ * Startup options for the lobby server. Each key can be given as a
+ * command-line argument (--key=value) or as a system property (-Ds1ght.key=value);
+ * command-line arguments win.
+ *
+ * Example: ./gradlew :server:run --args="--io=nio --eventLoops=4"
+ */
+public final class ServerConfig {
+    private static final String PROPERTY_PREFIX = "s1ght.";
+    private final Map<String, String> values;
+
+    private ServerConfig(Map<String, String> values) {
+        this.values = values;
+    }
+
+    /**
+     * Build a config from --key=value command-line arguments
+     */
+    public static ServerConfig fromArgs(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                Log.warn("⚠️ Ignoring unknown argument: {}", arg);
+                continue;
+            }
+            int eq = arg.indexOf('=');
+            if (eq == -1) {
+                values.put(arg.substring(2), "true");
+            } else {
+                values.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        return new ServerConfig(values);
+    }
+
+    public String get(String key, String defaultValue) {
+        String value = values.get(key);
+        if (value == null) {
+            value = System.getProperty(PROPERTY_PREFIX + key);
+        }
+        return value != null ? value.trim() : defaultValue;
+    }
+
+    public int getInt(String key, int defaultValue) {
+        String value = get(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            Log.warn("⚠️ Invalid number for {}: {} (using {})", key, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public long getLong(String key, long defaultValue) {
+        String value = get(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            Log.warn("⚠️ Invalid number for {}: {} (using {})", key, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public double getDouble(String key, double defaultValue) {
+        String value = get(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            Log.warn("⚠️ Invalid number for {}: {} (using {})", key, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        String value = get(key, null);
+        return value != null ? Boolean.parseBoolean(value) : defaultValue;
+    }
+}
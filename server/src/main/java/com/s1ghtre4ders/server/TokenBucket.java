@@ -0,0 +1,39 @@
+package com.s1ghtre4ders.server;
+
+/**
+ * S1ghtRe4ders Token Bucket
+ *
+ * Classic token bucket for per-connection rate limits: holds up to burst
+ * tokens, refills at ratePerSec, each allowed command takes one. Refill is
+ * computed lazily from System.nanoTime() on each call, so there is no timer
+ * thread. Calls are synchronized, but in practice only the connection's reader
+ * (and occasionally the broadcast tick) ever touch a bucket, so the lock is
+ * uncontended.
+ */
+final class TokenBucket {
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long lastRefill;
+
+    TokenBucket(double ratePerSec, double burst) {
+        this.capacity = Math.max(1, burst);
+        this.tokensPerNano = ratePerSec / 1_000_000_000.0;
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Take one token if there is one
+     */
+    synchronized boolean tryAcquire() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+}
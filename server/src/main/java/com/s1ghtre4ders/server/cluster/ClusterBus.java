@@ -0,0 +1,257 @@
+package com.s1ghtre4ders.server.cluster;
+
+import com.s1ghtre4ders.server.log.Log;
+import com.s1ghtre4ders.server.metrics.Counter;
+import com.s1ghtre4ders.server.metrics.Metrics;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * S1ghtRe4ders Cluster Bus
+ *
+ * Plain TCP message bus between lobby nodes, full mesh. Every node listens on
+ * its cluster port and keeps one outbound link to every peer: all sends go out
+ * on outbound links, all receives come in on accepted ones. Each link starts
+ * with HELLO(nodeId).
+ *
+ * An outbound link has its own writer thread and a bounded queue; it
+ * reconnects every RECONNECT_MS while the peer is down. Messages queued
+ * meanwhile go out once it is back, except presence (PLAYER_UP / PLAYER_DOWN):
+ * the peer forgot our players when the link dropped and Listener.onPeerUp
+ * resends all of them, so queued presence is stale. A full queue drops
+ * messages, logged at WARN at most once per DROP_WARN_NANOS per peer.
+ * When a peer's inbound link closes, Listener.onPeerDown fires, so the node can
+ * forget that peer's players.
+ *
+ * Listener callbacks run on the inbound reader thread of the sending peer, so
+ * messages from one peer are handled in order.
+ */
+public final class ClusterBus {
+    public interface Listener {
+        void onMessage(String fromNode, ClusterMessage message);
+
+        /**
+         * Outbound link to peer (re)connected
+         */
+        void onPeerUp(String nodeId);
+
+        /**
+         * Peer's inbound link closed: assume it is gone
+         */
+        void onPeerDown(String nodeId);
+    }
+
+    private static final int QUEUE_CAPACITY = 65_536;
+    private static final long RECONNECT_MS = 1000;
+    private static final long DROP_WARN_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final String nodeId;
+    private final int port;
+    private final Map<String, Link> links = new LinkedHashMap<>();
+    private final Counter sent = Metrics.counter("cluster_messages_total", "Node-to-node messages", "direction", "sent");
+    private final Counter received = Metrics.counter("cluster_messages_total", "Node-to-node messages", "direction", "received");
+    private final Counter dropped = Metrics.counter("cluster_messages_total", "Node-to-node messages", "direction", "dropped");
+    private Listener listener;
+
+    /**
+     * @param peers nodeId -> address of every other node
+     */
+    public ClusterBus(String nodeId, int port, Map<String, InetSocketAddress> peers) {
+        this.nodeId = nodeId;
+        this.port = port;
+        for (Map.Entry<String, InetSocketAddress> peer : peers.entrySet()) {
+            links.put(peer.getKey(), new Link(peer.getKey(), peer.getValue()));
+        }
+    }
+
+    /**
+     * Parse "id@host:port,id@host:port"
+     */
+    public static Map<String, InetSocketAddress> parsePeers(String spec) {
+        Map<String, InetSocketAddress> peers = new LinkedHashMap<>();
+        for (String entry : spec.split(",")) {
+            entry = entry.trim();
+            if (entry.isEmpty()) {
+                continue;
+            }
+            int at = entry.indexOf('@');
+            int colon = entry.lastIndexOf(':');
+            if (at <= 0 || colon < at) {
+                throw new IllegalArgumentException("Bad peer (want id@host:port): " + entry);
+            }
+            peers.put(entry.substring(0, at),
+                    new InetSocketAddress(entry.substring(at + 1, colon), Integer.parseInt(entry.substring(colon + 1))));
+        }
+        return peers;
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    public List<String> peers() {
+        return new ArrayList<>(links.keySet());
+    }
+
+    public void start(Listener listener) throws IOException {
+        this.listener = listener;
+        ServerSocket server = new ServerSocket();
+        server.bind(new InetSocketAddress(port));
+        Thread acceptor = new Thread(() -> acceptLoop(server), "cluster-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        for (Link link : links.values()) {
+            link.start();
+        }
+    }
+
+    /**
+     * Queue a message for one peer; dropped if the peer is unknown or backed up
+     */
+    public void send(String peer, ClusterMessage message) {
+        Link link = links.get(peer);
+        if (link == null) {
+            dropped.increment();
+            Log.warn("🕸️ Dropped {} for unknown node {}", message.type, peer);
+        } else if (!link.queue.offer(message)) {
+            dropped.increment();
+            link.dropped(message);
+        }
+    }
+
+    public void broadcast(ClusterMessage message) {
+        for (String peer : links.keySet()) {
+            send(peer, message);
+        }
+    }
+
+    private void acceptLoop(ServerSocket server) {
+        while (true) {
+            try {
+                Socket socket = server.accept();
+                Thread reader = new Thread(() -> readLoop(socket), "cluster-in");
+                reader.setDaemon(true);
+                reader.start();
+            } catch (IOException e) {
+                Log.error("❌ Cluster accept failed: {}", e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private void readLoop(Socket socket) {
+        String peer = null;
+        try (socket) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            ClusterMessage hello = ClusterMessage.readFrom(in);
+            if (hello.type != ClusterMessage.Type.HELLO) {
+                throw new IOException("Expected HELLO, got " + hello.type);
+            }
+            peer = hello.field(0);
+            Thread.currentThread().setName("cluster-in-" + peer);
+            Log.info("🕸️ Peer {} connected", peer);
+            while (true) {
+                ClusterMessage message = ClusterMessage.readFrom(in);
+                received.increment();
+                try {
+                    listener.onMessage(peer, message);
+                } catch (RuntimeException e) {
+                    Log.error("❌ Cluster message " + message + " from " + peer + " failed", e);
+                }
+            }
+        } catch (EOFException e) {
+            // Peer closed the link
+        } catch (IOException e) {
+            Log.debug("🕸️ Link from {} broke: {}", peer, e.getMessage());
+        }
+        if (peer != null) {
+            Log.warn("🕸️ Peer {} disconnected", peer);
+            listener.onPeerDown(peer);
+        }
+    }
+
+    /**
+     * Outbound side towards one peer: queue + writer thread that reconnects
+     */
+    private final class Link {
+        final String peer;
+        final InetSocketAddress address;
+        final BlockingQueue<ClusterMessage> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private final AtomicInteger droppedSinceWarn = new AtomicInteger();
+        private final AtomicLong lastDropWarn = new AtomicLong(System.nanoTime() - DROP_WARN_NANOS);
+
+        Link(String peer, InetSocketAddress address) {
+            this.peer = peer;
+            this.address = address;
+        }
+
+        /**
+         * Count a message the full queue refused; warn about the drops once per DROP_WARN_NANOS
+         */
+        void dropped(ClusterMessage message) {
+            droppedSinceWarn.incrementAndGet();
+            long now = System.nanoTime();
+            long last = lastDropWarn.get();
+            if (now - last >= DROP_WARN_NANOS && lastDropWarn.compareAndSet(last, now)) {
+                Log.warn("🕸️ Queue to {} full, dropped {} messages (latest {})", peer, droppedSinceWarn.getAndSet(0),
+                        message.type);
+            }
+        }
+
+        void start() {
+            Thread writer = new Thread(this::run, "cluster-out-" + peer);
+            writer.setDaemon(true);
+            writer.start();
+        }
+
+        private void run() {
+            while (true) {
+                try (Socket socket = new Socket()) {
+                    socket.connect(address, (int) RECONNECT_MS);
+                    socket.setTcpNoDelay(true);
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                    ClusterMessage.of(ClusterMessage.Type.HELLO, nodeId).writeTo(out);
+                    out.flush();
+                    // Presence queued while the peer was down is stale: onPeerUp resends all of it
+                    queue.removeIf(message -> message.type == ClusterMessage.Type.PLAYER_UP
+                            || message.type == ClusterMessage.Type.PLAYER_DOWN);
+                    listener.onPeerUp(peer);
+                    while (true) {
+                        ClusterMessage message = queue.take();
+                        do {
+                            message.writeTo(out);
+                            sent.increment();
+                        } while ((message = queue.poll()) != null);
+                        out.flush();
+                    }
+                } catch (IOException e) {
+                    Log.debug("🕸️ Link to {} down: {}", peer, e.getMessage());
+                } catch (InterruptedException e) {
+                    return;
+                }
+                try {
+                    TimeUnit.MILLISECONDS.sleep(RECONNECT_MS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.s1ghtre4ders.server.cluster;
+
+import com.s1ghtre4ders.server.protocol.Command;
+import com.s1ghtre4ders.server.protocol.Message;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * One node-to-node message: a type plus a few string fields.
+ *
+ * Wire form (DataOutput): u8 type, u8 field count, then each field as an
+ * int byte length plus UTF-8 bytes (not writeUTF: a chat line of non-ASCII
+ * text can exceed its 64 KB limit). Client messages carried between nodes
+ * (DELIVER, ROOM_CHAT) follow the target as command name plus fields, so they
+ * can be re-sent in whatever codec the receiving client speaks.
+ */
+public final class ClusterMessage {
+    public enum Type {
+        HELLO,        // nodeId                         - first message on every link
+        PLAYER_UP,    // username, room, status         - player is on the sender (new or changed)
+        PLAYER_DOWN,  // username                       - player left the sender
+        DELIVER,      // username, command, fields...   - send to a player connected to the receiver
+        ROOM_CHAT,    // room, command, fields...       - send to the receiver's members of a room
+        ANNOUNCE,     // room ("" = global), text       - server notice
+        SET_STATUS,   // username, status               - change a player who lives on the receiver
+        DUEL_REQUEST, // requester, target              - target lives on the receiver
+        DUEL_BIND,    // username, duelId               - player's duel is hosted by the sender
+        DUEL_ACTION,  // duelId, username, action, arg  - input for a duel hosted by the receiver
+        DUEL_ABORT,   // duelId, username               - a remote duelist disconnected
+        DUEL_WITHDRAW,// username                       - player went into a duel, drop their challenges
+        DUEL_UNBIND   // username, duelId               - player's duel is over, stop forwarding their input
+    }
+
+    private static final Type[] TYPES = Type.values();
+    private static final int MAX_FIELD_BYTES = 1024 * 1024; // far above any client frame (see FrameDecoder)
+
+    public final Type type;
+    private final String[] fields;
+
+    private ClusterMessage(Type type, String[] fields) {
+        this.type = type;
+        this.fields = fields;
+    }
+
+    public static ClusterMessage of(Type type, String... fields) {
+        return new ClusterMessage(type, fields);
+    }
+
+    /**
+     * DELIVER / ROOM_CHAT: a client message for target (a username or room)
+     */
+    public static ClusterMessage carrying(Type type, String target, Message message) {
+        String[] fields = new String[2 + message.argCount()];
+        fields[0] = target;
+        fields[1] = message.command.name();
+        for (int i = 0; i < message.argCount(); i++) {
+            fields[2 + i] = message.arg(i);
+        }
+        return new ClusterMessage(type, fields);
+    }
+
+    public String field(int index) {
+        return fields[index];
+    }
+
+    /**
+     * The client message of a DELIVER / ROOM_CHAT, or null if the command is unknown here
+     */
+    public Message carried() {
+        Command command = Command.byName(fields[1]);
+        return command != null ? Message.of(command, Arrays.copyOfRange(fields, 2, fields.length)) : null;
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeByte(type.ordinal());
+        out.writeByte(fields.length);
+        for (String field : fields) {
+            byte[] bytes = field.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    static ClusterMessage readFrom(DataInputStream in) throws IOException {
+        int ordinal = in.readUnsignedByte();
+        if (ordinal >= TYPES.length) {
+            throw new IOException("Unknown cluster message type " + ordinal);
+        }
+        String[] fields = new String[in.readUnsignedByte()];
+        for (int i = 0; i < fields.length; i++) {
+            int length = in.readInt();
+            if (length < 0 || length > MAX_FIELD_BYTES) {
+                throw new IOException("Cluster message field of " + length + " bytes");
+            }
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            fields[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return new ClusterMessage(TYPES[ordinal], fields);
+    }
+
+    @Override
+    public String toString() {
+        return type + Arrays.toString(fields);
+    }
+}
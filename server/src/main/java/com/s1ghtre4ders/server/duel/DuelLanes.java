@@ -0,0 +1,93 @@
+package com.s1ghtre4ders.server.duel;
+
+import com.s1ghtre4ders.server.log.Log;
+import com.s1ghtre4ders.server.metrics.Histogram;
+import com.s1ghtre4ders.server.metrics.Metrics;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * S1ghtRe4ders Duel Lanes
+ *
+ * K single-threaded executors ("lanes"), each with its own FIFO mailbox. A
+ * duel is pinned to one lane by its id, so every step of that duel (attack,
+ * QTE result, QTE timeout) and the callbacks it triggers run one at a time,
+ * in arrival order, on the same thread, while different duels spread over all
+ * lanes. With 0 lanes every task runs right away on the calling thread.
+ *
+ * Tasks must not block for long: a slow callback holds up every duel that
+ * shares its lane. Time spent waiting in a mailbox is in duel_lane_wait_seconds.
+ */
+public final class DuelLanes {
+    private final ThreadPoolExecutor[] lanes;
+    private final Histogram waitTime = Metrics.histogram("duel_lane_wait_seconds",
+            "Time a duel step waited in its lane's mailbox");
+
+    /**
+     * @param count lanes to start; 0 = run every task on the caller
+     */
+    public DuelLanes(int count) {
+        lanes = new ThreadPoolExecutor[Math.max(0, count)];
+        for (int i = 0; i < lanes.length; i++) {
+            String name = "duel-lane-" + i;
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+                Thread t = new Thread(r, name);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        Metrics.gauge("duel_lanes", "Single-threaded duel lanes", () -> lanes.length);
+        Metrics.gauge("duel_lane_backlog", "Duel steps waiting in lane mailboxes", this::backlog);
+    }
+
+    /**
+     * The lane a duel is pinned to (stable for the life of the process)
+     */
+    public int laneOf(String duelId) {
+        return lanes.length == 0 ? -1 : Math.floorMod(duelId.hashCode(), lanes.length);
+    }
+
+    /**
+     * Queue a step of duelId on its lane
+     */
+    public void execute(String duelId, Runnable task) {
+        if (lanes.length == 0) {
+            run(task);
+            return;
+        }
+        long queuedAt = System.nanoTime();
+        try {
+            lanes[laneOf(duelId)].execute(() -> {
+                waitTime.recordSince(queuedAt);
+                run(task);
+            });
+        } catch (RejectedExecutionException e) {
+            Log.debug("🔚 Duel lanes shut down, dropping a step of duel {}", duelId);
+        }
+    }
+
+    private static void run(Runnable task) {
+        try {
+            task.run();
+        } catch (Throwable e) {
+            Log.error("❌ Duel step failed", e);
+        }
+    }
+
+    public long backlog() {
+        long queued = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            queued += lane.getQueue().size();
+        }
+        return queued;
+    }
+
+    public void shutdown() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+    }
+}
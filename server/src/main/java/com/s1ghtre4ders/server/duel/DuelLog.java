@@ -0,0 +1,268 @@
+package com.s1ghtre4ders.server.duel;
+
+import com.s1ghtre4ders.server.log.Log;
+import com.s1ghtre4ders.server.metrics.Counter;
+import com.s1ghtre4ders.server.metrics.Metrics;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * S1ghtRe4ders Duel Log
+ *
+ * Append-only record of every duel event, for audits and replays (see
+ * DuelLogReader). Events are fixed-size RECORD_BYTES records in segment files
+ * (duels-00000001.seg, ...) of segmentBytes each, pre-sized and memory-mapped,
+ * so appending is a slot reservation (one getAndAdd) plus a few absolute puts
+ * into the mapping: no allocation, no syscall, no lock. Appends from
+ * different duel lanes land in different slots; only rolling over to the next
+ * segment takes a lock. The oldest segments beyond maxSegments are deleted.
+ *
+ * Record layout (little endian):
+ *   0  duel key (16 bytes: the duelId's UUID bits, or a hash if it is no UUID)
+ *   16 System.currentTimeMillis()
+ *   24 type (0 = empty slot)   25 player slot (1, 2, 0 = none)
+ *   26 code (QTE quality, end reason)   27 name length
+ *   28 value (window, damage)   32 value2 (HP after damage)
+ *   36 name (START only, UTF-8, cut to NAME_BYTES)
+ *
+ * The type byte is written last, behind a release fence, so a reader that
+ * sees it (and fences on acquire) sees the whole record and skips a slot
+ * still being filled; a new segment starts after the highest one already on
+ * disk. Pages reach the file through the OS page cache, so records survive a
+ * server crash; only close() forces them to the device.
+ */
+public final class DuelLog {
+    public static final int RECORD_BYTES = 64;
+    static final int NAME_BYTES = RECORD_BYTES - 36;
+
+    // Record types
+    static final byte START = 1;        // slot, name: one per player
+    static final byte ATTACK = 2;       // slot = attacker
+    static final byte QTE_OPEN = 3;     // slot = defender, value = window
+    static final byte QTE_QUALITY = 4;  // slot = defender, code = QTE_*
+    static final byte DAMAGE = 5;       // slot = defender, value = damage, value2 = HP left
+    static final byte TURN_CHANGE = 6;  // slot = new attacker
+    static final byte END = 7;          // slot = winner (0 if aborted), code = END_*
+
+    static final byte QTE_NONE = 1;
+    static final byte QTE_HALF = 2;
+    static final byte QTE_MISS = 3;
+    static final byte QTE_TIMEOUT = 4;
+    static final byte END_KNOCKOUT = 1;
+    static final byte END_ABORTED = 2;
+
+    private static final String PREFIX = "duels-";
+    private static final String SUFFIX = ".seg";
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final ReentrantLock rollLock = new ReentrantLock();
+    private final Counter records = Metrics.counter("duel_log_records_total", "Duel events appended to the duel log");
+    private volatile Segment current; // null once a segment could not be created
+    private int nextIndex;             // guarded by rollLock
+
+    private static final class Segment {
+        final MappedByteBuffer buffer;
+        final AtomicInteger cursor = new AtomicInteger(); // next free offset; past the end once full
+
+        Segment(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * @param segmentBytes size of each segment file, rounded down to whole records
+     * @param maxSegments  segments kept on disk, oldest deleted first
+     */
+    public DuelLog(Path dir, int segmentBytes, int maxSegments) throws IOException {
+        this.dir = dir;
+        this.segmentBytes = Math.max(RECORD_BYTES, segmentBytes / RECORD_BYTES * RECORD_BYTES);
+        this.maxSegments = Math.max(1, maxSegments);
+        Files.createDirectories(dir);
+        int highest = 0;
+        try (DirectoryStream<Path> segments = Files.newDirectoryStream(dir, PREFIX + "*" + SUFFIX)) {
+            for (Path segment : segments) {
+                highest = Math.max(highest, indexOf(segment));
+            }
+        }
+        nextIndex = highest + 1;
+        current = map(nextIndex++);
+        Log.info("📼 Duel log in {} ({} KB segments, keeping {})", dir, this.segmentBytes / 1024, this.maxSegments);
+    }
+
+    // ---- Keys ----
+
+    /**
+     * High half of a duelId's 16-byte key
+     */
+    public static long keyHi(String duelId) {
+        UUID uuid = uuidOf(duelId);
+        return uuid != null ? uuid.getMostSignificantBits() : 0;
+    }
+
+    /**
+     * Low half of a duelId's 16-byte key
+     */
+    public static long keyLo(String duelId) {
+        UUID uuid = uuidOf(duelId);
+        if (uuid != null) {
+            return uuid.getLeastSignificantBits();
+        }
+        long hash = 0xcbf29ce484222325L; // FNV-1a
+        for (int i = 0; i < duelId.length(); i++) {
+            hash = (hash ^ duelId.charAt(i)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static UUID uuidOf(String duelId) {
+        if (duelId.length() != 36) {
+            return null;
+        }
+        try {
+            return UUID.fromString(duelId);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // ---- Appending (any thread) ----
+
+    public void append(long keyHi, long keyLo, byte type, int slot, int code, int value, int value2) {
+        append(keyHi, keyLo, type, slot, code, value, value2, null);
+    }
+
+    /**
+     * START record: which player is in which slot
+     */
+    public void appendStart(long keyHi, long keyLo, int slot, String name) {
+        append(keyHi, keyLo, START, slot, 0, 0, 0, name);
+    }
+
+    /**
+     * Flush the current segment to disk
+     */
+    public void close() {
+        Segment segment = current;
+        if (segment != null) {
+            segment.buffer.force();
+        }
+    }
+
+    private void append(long keyHi, long keyLo, byte type, int slot, int code, int value, int value2, String name) {
+        Segment segment = current;
+        while (segment != null) {
+            int at = segment.cursor.getAndAdd(RECORD_BYTES);
+            if (at <= segmentBytes - RECORD_BYTES) {
+                MappedByteBuffer buffer = segment.buffer;
+                buffer.putLong(at, keyHi);
+                buffer.putLong(at + 8, keyLo);
+                buffer.putLong(at + 16, System.currentTimeMillis());
+                buffer.put(at + 25, (byte) slot);
+                buffer.put(at + 26, (byte) code);
+                buffer.putInt(at + 28, value);
+                buffer.putInt(at + 32, value2);
+                if (name != null) {
+                    buffer.put(at + 27, (byte) putName(buffer, at + 36, name));
+                }
+                VarHandle.releaseFence(); // publish: the payload above may not move past the type
+                buffer.put(at + 24, type);
+                records.increment();
+                return;
+            }
+            segment = roll(segment);
+        }
+    }
+
+    /**
+     * Move on from a full segment (once, whichever appender gets here first)
+     * @return the segment to append to, or null if the log is broken
+     */
+    private Segment roll(Segment full) {
+        rollLock.lock();
+        try {
+            if (current == full) {
+                try {
+                    current = map(nextIndex++);
+                } catch (IOException e) {
+                    Log.error("❌ Cannot create duel log segment in " + dir + ", duel log off", e);
+                    current = null;
+                }
+            }
+            return current;
+        } finally {
+            rollLock.unlock();
+        }
+    }
+
+    /**
+     * Write name as UTF-8, cut at NAME_BYTES on a character boundary
+     * @return bytes written
+     */
+    private static int putName(MappedByteBuffer buffer, int at, String name) {
+        int n = 0;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isSurrogate(c)) {
+                c = '?';
+            }
+            int size = c < 0x80 ? 1 : c < 0x800 ? 2 : 3;
+            if (n + size > NAME_BYTES) {
+                break;
+            }
+            if (size == 1) {
+                buffer.put(at + n++, (byte) c);
+            } else if (size == 2) {
+                buffer.put(at + n++, (byte) (0xC0 | c >> 6));
+                buffer.put(at + n++, (byte) (0x80 | c & 0x3F));
+            } else {
+                buffer.put(at + n++, (byte) (0xE0 | c >> 12));
+                buffer.put(at + n++, (byte) (0x80 | c >> 6 & 0x3F));
+                buffer.put(at + n++, (byte) (0x80 | c & 0x3F));
+            }
+        }
+        return n;
+    }
+
+    // ---- Segments ----
+
+    static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+    }
+
+    static int indexOf(Path segment) {
+        String name = segment.getFileName().toString();
+        try {
+            return Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private Path pathOf(int index) {
+        return dir.resolve(String.format("%s%08d%s", PREFIX, index, SUFFIX));
+    }
+
+    private Segment map(int index) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(pathOf(index).toFile(), "rw")) {
+            file.setLength(segmentBytes);
+            MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            Files.deleteIfExists(pathOf(index - maxSegments));
+            return new Segment(buffer);
+        }
+    }
+}
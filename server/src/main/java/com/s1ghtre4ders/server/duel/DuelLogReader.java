@@ -0,0 +1,150 @@
+package com.s1ghtre4ders.server.duel;
+
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * S1ghtRe4ders Duel Log Reader
+ *
+ * Replays one duel from a DuelLog directory through the same
+ * DuelManager.Callbacks the live duel used: its start becomes onDuelStart,
+ * QTE windows onQteStart, damage onTakeDamage, turns onTurnChange and a
+ * knockout onDuelEnd, in the order they happened. Point it at callbacks that
+ * send to a spectator for playback, or at ones that print for an audit (see
+ * main). Segments are mapped read-only, so it can run next to a live server;
+ * records still being written at that moment are skipped (DuelLog publishes
+ * the type byte last, with a release fence).
+ *
+ * There is no index: a replay reads every record of every segment, oldest
+ * first, until the duel's END (at the defaults up to 16 x 64 MB). That suits
+ * an audit or an occasional playback, not a lookup on every request.
+ *
+ * Usage: java -cp server.jar com.s1ghtre4ders.server.duel.DuelLogReader duel-log duelId
+ */
+public final class DuelLogReader {
+    private final Path dir;
+
+    public DuelLogReader(Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Send every event of duelId to callbacks, oldest first
+     * @return false if the log has no record of duelId (or its start was rotated out)
+     */
+    public boolean replay(String duelId, DuelManager.Callbacks callbacks) throws IOException {
+        long keyHi = DuelLog.keyHi(duelId);
+        long keyLo = DuelLog.keyLo(duelId);
+        String[] players = new String[3]; // by slot, filled in by the START records
+        boolean found = false;
+
+        for (Path segment : segments()) {
+            MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            int end = buffer.capacity() / DuelLog.RECORD_BYTES * DuelLog.RECORD_BYTES;
+            for (int at = 0; at < end; at += DuelLog.RECORD_BYTES) {
+                byte type = buffer.get(at + 24);
+                VarHandle.acquireFence(); // pairs with the writer's release: a typed record is complete
+                if (type == 0 || buffer.getLong(at) != keyHi || buffer.getLong(at + 8) != keyLo) {
+                    continue;
+                }
+                int slot = buffer.get(at + 25);
+                if (slot < 0 || slot > 2 || (type != DuelLog.START && players[1] == null)) {
+                    continue;
+                }
+                String player = players[slot];
+                String other = players[slot == 1 ? 2 : 1];
+                switch (type) {
+                    case DuelLog.START -> {
+                        byte[] name = new byte[Math.min(buffer.get(at + 27) & 0xFF, DuelLog.NAME_BYTES)];
+                        buffer.get(at + 36, name);
+                        players[slot] = new String(name, StandardCharsets.UTF_8);
+                        found = true;
+                        if (slot == 2 && players[1] != null) {
+                            callbacks.onDuelStart(players[1], players[2]);
+                        }
+                    }
+                    case DuelLog.QTE_OPEN -> callbacks.onQteStart(player);
+                    case DuelLog.DAMAGE -> callbacks.onTakeDamage(player, buffer.getInt(at + 28));
+                    case DuelLog.TURN_CHANGE -> callbacks.onTurnChange(player, other);
+                    case DuelLog.END -> {
+                        if (buffer.get(at + 26) == DuelLog.END_KNOCKOUT && player != null) {
+                            callbacks.onDuelEnd(player);
+                        }
+                        return true;
+                    }
+                    default -> {
+                        // ATTACK and QTE_QUALITY have no callback of their own
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Segment files, oldest first
+     */
+    private List<Path> segments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(dir)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, DuelLog::isSegment)) {
+            for (Path segment : stream) {
+                segments.add(segment);
+            }
+        }
+        segments.sort(Comparator.comparingInt(DuelLog::indexOf));
+        return segments;
+    }
+
+    /**
+     * Print a duel from the log: DuelLogReader dir duelId
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: DuelLogReader <duel log dir> <duelId>");
+            System.exit(2);
+        }
+        boolean found = new DuelLogReader(Path.of(args[0])).replay(args[1], new DuelManager.Callbacks() {
+            @Override
+            public void onQteStart(String defenderId) {
+                System.out.println("⚡ QTE for " + defenderId);
+            }
+
+            @Override
+            public void onTakeDamage(String playerId, int damage) {
+                System.out.println("🔴 " + playerId + " takes " + damage);
+            }
+
+            @Override
+            public void onTurnChange(String attackerId, String defenderId) {
+                System.out.println("↪️ " + attackerId + " attacks " + defenderId);
+            }
+
+            @Override
+            public void onDuelEnd(String winnerId) {
+                System.out.println("🏆 " + winnerId + " wins");
+            }
+        });
+        if (!found) {
+            System.err.println("❌ No duel " + args[1] + " in " + args[0]);
+            System.exit(1);
+        }
+    }
+}
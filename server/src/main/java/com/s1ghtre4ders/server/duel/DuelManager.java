@@ -1,161 +1,341 @@
 package com.s1ghtre4ders.server.duel;
 
+import com.s1ghtre4ders.server.log.Log;
+import com.s1ghtre4ders.server.metrics.Counter;
+import com.s1ghtre4ders.server.metrics.Histogram;
+import com.s1ghtre4ders.server.metrics.Metrics;
+import com.s1ghtre4ders.server.timer.TimerWheel;
+
 import java.util.*;
 import java.util.concurrent.*;
 
+/**
+ * S1ghtRe4ders Duel Manager
+ *
+ * Turn-based duels: the attacker's ATTACK opens a QTE window for the defender,
+ * whose QTE_RESULT (or the window running out) decides the damage, then the
+ * turn passes. Every open window has one timeout on a dedicated TimerWheel
+ * (QTE_TICK_MS resolution); an early QTE_RESULT or the end of the duel cancels
+ * it, so only windows that really run out ever fire.
+ *
+ * Threading: createDuel() queues the opening (onDuelStart, then the first
+ * onTurnChange) on the duel's lane (see DuelLanes), and attack(), qteResult(),
+ * the timeouts and endDuel() only look the duel up and hand the step to that
+ * lane, so one duel's steps and callbacks (network sends included) run one
+ * after another on one thread, in the order they arrived, and never on a
+ * reader or timer thread. A step that reaches the lane after the duel ended
+ * or was aborted is dropped. Each step is also one compareAndSet on the
+ * DuelState, which keeps it exact when lanes are off (0 lanes: steps run on
+ * the caller).
+ *
+ * With a DuelLog every step is also appended there (start, attack, QTE
+ * window, QTE quality, damage, turn change, end), so any duel can be replayed
+ * later through DuelLogReader.
+ */
 public class DuelManager {
     private static final int MAX_HP = 100;
     private static final int QTE_WINDOW_MS = 4000; // 4 second QTE window
     private static final int BASE_DAMAGE = 15;
+    private static final long QTE_TICK_MS = 10;
+    private static final int QTE_BUCKETS = 512;     // one turn = 5.12s, just over a QTE window
 
     private final ConcurrentHashMap<String, Duel> duels = new ConcurrentHashMap<>();
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
+    private final TimerWheel qteTimers = new TimerWheel("duel-qte-timers", QTE_TICK_MS, QTE_BUCKETS);
+    private final DuelLanes lanes;
+    private final DuelLog log; // null = no duel log
+
+    private final Counter duelsStarted = Metrics.counter("duel_started_total", "Duels started");
+    private final Counter duelsFinished = Metrics.counter("duel_finished_total", "Duels that ended with a knockout");
+    private final Counter duelsAborted = Metrics.counter("duel_aborted_total", "Duels ended early (disconnect)");
+    private final Counter attacks = Metrics.counter("duel_attacks_total", "Attacks accepted (each opens a QTE window)");
+    private final Counter qteNone = qteCounter("NONE");
+    private final Counter qteHalf = qteCounter("HALF");
+    private final Counter qteMiss = qteCounter("MISS");
+    private final Counter qteTimeout = qteCounter("TIMEOUT");
+    private final Histogram qteResolution = Metrics.histogram("duel_qte_resolution_seconds",
+            "From QTE window open to its result or timeout");
+
+    /**
+     * @param lanes single-threaded duel lanes; 0 = run steps on the calling thread
+     * @param log   where to record duel events, or null
+     */
+    public DuelManager(int lanes, DuelLog log) {
+        this.lanes = new DuelLanes(lanes);
+        this.log = log;
+        Metrics.gauge("duel_active", "Duels in progress", () -> duels.size());
+        Metrics.gauge("duel_qte_timeouts_pending", "Open QTE windows waiting on the timer wheel", qteTimers::pending);
+        qteTimers.start();
+    }
+
+    private static Counter qteCounter(String quality) {
+        return Metrics.counter("duel_qte_results_total", "How QTE windows were resolved", "quality", quality);
+    }
 
     public static class Duel {
         public final String duelId;
         public final DuelState state;
         public final Callbacks callbacks;
+        volatile long qteOpenedAt; // System.nanoTime() when the current QTE window opened
+        volatile TimerWheel.Timeout qteTimeout; // the current window's deadline, null before the first attack
+        final long logKeyHi; // duelId as a DuelLog key
+        final long logKeyLo;
 
         public Duel(String duelId, String p1, String p2, Callbacks callbacks) {
             this.duelId = duelId;
             this.state = new DuelState(p1, p2, MAX_HP);
             this.callbacks = callbacks;
+            this.logKeyHi = DuelLog.keyHi(duelId);
+            this.logKeyLo = DuelLog.keyLo(duelId);
+        }
+
+        /**
+         * DuelLog player slot: 1 or 2, 0 for null
+         */
+        int slotOf(String playerId) {
+            return playerId == null ? 0 : playerId.equals(state.player1Id) ? 1 : 2;
         }
     }
 
     public interface Callbacks {
+        /**
+         * The duel is set up; comes before its first onTurnChange
+         */
+        default void onDuelStart(String p1Id, String p2Id) {
+        }
+
         void onQteStart(String defenderId);
         void onTakeDamage(String playerId, int damage);
         void onTurnChange(String attackerId, String defenderId);
         void onDuelEnd(String winnerId);
+
+        /**
+         * leaverId left before a knockout; comes instead of onDuelEnd
+         */
+        default void onDuelAborted(String leaverId) {
+        }
     }
 
     public Duel createDuel(String duelId, String p1Id, String p2Id, Callbacks callbacks) {
         Duel duel = new Duel(duelId, p1Id, p2Id, callbacks);
         duels.put(duelId, duel);
-        System.out.println("🎮 DuelManager.createDuel: Created duel " + duelId + " (" + p1Id + " vs " + p2Id + ")");
+        duelsStarted.increment();
+        Log.debug("🎮 DuelManager.createDuel: Created duel {} ({} vs {})", duelId, p1Id, p2Id);
+        lanes.execute(duelId, () -> open(duel));
         return duel;
     }
 
+    /**
+     * Announce the duel and hand player 1 the first turn
+     */
+    private void open(Duel duel) {
+        if (!isLive(duel)) {
+            return;
+        }
+        String p1Id = duel.state.player1Id;
+        String p2Id = duel.state.player2Id;
+        if (log != null) {
+            log.appendStart(duel.logKeyHi, duel.logKeyLo, 1, p1Id);
+            log.appendStart(duel.logKeyHi, duel.logKeyLo, 2, p2Id);
+        }
+        duel.callbacks.onDuelStart(p1Id, p2Id);
+        record(duel, DuelLog.TURN_CHANGE, p1Id, 0, 0, 0); // player 1 opens
+        duel.callbacks.onTurnChange(p1Id, p2Id);
+    }
+
     public void attack(String duelId, String attackerId) {
-        System.out.println("⚔️ DuelManager.attack: " + attackerId + " attacks in duel " + duelId);
+        Log.debug("⚔️ DuelManager.attack: {} attacks in duel {}", attackerId, duelId);
 
         Duel duel = duels.get(duelId);
         if (duel == null) {
-            System.err.println("   ❌ Duel not found!");
+            Log.debug("   ❌ Duel not found!");
             return;
         }
+        lanes.execute(duelId, () -> attack(duel, attackerId));
+    }
 
-        DuelState state = duel.state;
-
-        if (state.getPhase() == DuelState.Phase.ENDED) {
-            System.err.println("   ❌ Duel already ended!");
+    private void attack(Duel duel, String attackerId) {
+        if (!isLive(duel)) {
             return;
         }
 
-        if (!state.getAttackerId().equals(attackerId)) {
-            System.err.println("   ❌ Not your turn! Current attacker: " + state.getAttackerId());
+        // Open the QTE window: only on attackerId's turn, and only one at a time
+        long opened = duel.state.openQte(attackerId);
+        if (opened == DuelState.NONE) {
+            Log.debug("   ❌ Duel ended, not {}'s turn or QTE already open", attackerId);
             return;
         }
 
-        String defenderId = state.getDefenderId();
-        System.out.println("   📢 Starting QTE for defender: " + defenderId);
-
-        // Mark QTE window as open
-        state.setQteWindow(QTE_WINDOW_MS);
+        String defenderId = duel.state.defenderOf(opened);
+        int window = DuelState.windowOf(opened);
+        Log.debug("   📢 Starting QTE {} for defender: {}", window, defenderId);
+        duel.qteOpenedAt = System.nanoTime();
+        attacks.increment();
+        record(duel, DuelLog.ATTACK, attackerId, 0, 0, 0);
+        record(duel, DuelLog.QTE_OPEN, defenderId, 0, window, 0);
 
         // Notify defender
         duel.callbacks.onQteStart(defenderId);
 
         // Set timeout: if no QTE result in QTE_WINDOW_MS, apply full damage
-        scheduler.schedule(() -> {
-            System.out.println("⏱️ QTE timeout check for duel " + duelId);
-            if (state.isQteValid()) {
-                System.out.println("⏱️ QTE timed out! Applying full damage to " + defenderId);
-                applyDamage(duel, defenderId, BASE_DAMAGE, "TIMEOUT");
-            } else {
-                System.out.println("⏱️ QTE already resolved, skipping timeout");
-            }
-        }, QTE_WINDOW_MS, TimeUnit.MILLISECONDS);
+        duel.qteTimeout = qteTimers.schedule(
+                () -> lanes.execute(duel.duelId, () -> qteExpired(duel, window, defenderId)),
+                QTE_WINDOW_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The QTE window ran out without a result
+     */
+    private void qteExpired(Duel duel, int window, String defenderId) {
+        if (!isLive(duel)) {
+            return;
+        }
+        long resolved = duel.state.resolveQte(window, defenderId, BASE_DAMAGE);
+        if (resolved == DuelState.NONE) {
+            Log.debug("⏱️ QTE already resolved, skipping timeout");
+            return;
+        }
+        Log.debug("⏱️ QTE timed out! Applying full damage to {}", defenderId);
+        qteTimeout.increment();
+        qteResolution.recordSince(duel.qteOpenedAt);
+        record(duel, DuelLog.QTE_QUALITY, defenderId, DuelLog.QTE_TIMEOUT, window, 0);
+        afterDamage(duel, resolved, defenderId, BASE_DAMAGE, "TIMEOUT");
     }
 
     public void qteResult(String duelId, String defenderId, String quality) {
-        System.out.println("⚡ DuelManager.qteResult: " + defenderId + " QTE result=" + quality);
+        Log.debug("⚡ DuelManager.qteResult: {} QTE result={}", defenderId, quality);
 
         Duel duel = duels.get(duelId);
         if (duel == null) {
-            System.err.println("   ❌ Duel not found!");
+            Log.debug("   ❌ Duel not found!");
             return;
         }
+        lanes.execute(duelId, () -> qteResult(duel, defenderId, quality));
+    }
 
-        DuelState state = duel.state;
-
-        if (!state.isQteValid()) {
-            System.err.println("   ❌ QTE window closed or already resolved!");
+    private void qteResult(Duel duel, String defenderId, String quality) {
+        if (!isLive(duel)) {
             return;
         }
 
-        // Mark QTE as resolved
-        state.invalidateQte();
-
-        int damage = 0;
-
+        int damage;
+        Counter outcome;
+        byte code;
         if ("NONE".equals(quality)) {
             // Perfect dodge - no damage
             damage = 0;
-            System.out.println("   ✓ Perfect dodge! No damage");
+            outcome = qteNone;
+            code = DuelLog.QTE_NONE;
         } else if ("HALF".equals(quality)) {
             // Good dodge - half damage
             damage = BASE_DAMAGE / 2;
-            System.out.println("   ◑ Good dodge! Half damage (" + damage + ")");
-        } else if ("MISS".equals(quality)) {
-            // Miss or outside zone - full damage
-            damage = BASE_DAMAGE;
-            System.out.println("   ✗ Missed! Full damage (" + damage + ")");
+            outcome = qteHalf;
+            code = DuelLog.QTE_HALF;
         } else {
-            // Unknown - treat as miss
+            // Miss, outside zone or unknown - full damage
             damage = BASE_DAMAGE;
-            System.out.println("   ? Unknown QTE result, treating as miss");
+            outcome = qteMiss;
+            code = DuelLog.QTE_MISS;
         }
 
-        applyDamage(duel, defenderId, damage, quality);
-    }
+        // Resolve the open window; loses cleanly to the timeout or a duplicate result
+        long resolved = duel.state.resolveQte(DuelState.ANY_WINDOW, defenderId, damage);
+        if (resolved == DuelState.NONE) {
+            Log.debug("   ❌ QTE window closed or already resolved!");
+            return;
+        }
 
-    private void applyDamage(Duel duel, String defenderId, int damage, String source) {
-        System.out.println("🔴 applyDamage: " + defenderId + " takes " + damage + " damage (from: " + source + ")");
+        cancelQteTimeout(duel);
+        outcome.increment();
+        qteResolution.recordSince(duel.qteOpenedAt);
+        record(duel, DuelLog.QTE_QUALITY, defenderId, code, DuelState.windowOf(resolved), 0);
+        afterDamage(duel, resolved, defenderId, damage, quality);
+    }
 
-        DuelState state = duel.state;
-        state.takeDamage(defenderId, damage);
+    /**
+     * Report a resolved QTE window; resolved is the state resolveQte produced
+     */
+    private void afterDamage(Duel duel, long resolved, String defenderId, int damage, String source) {
+        Log.debug("🔴 {} takes {} damage (from: {})", defenderId, damage, source);
+        record(duel, DuelLog.DAMAGE, defenderId, 0, damage, duel.state.hpOf(resolved, defenderId));
 
         // Notify about damage
         duel.callbacks.onTakeDamage(defenderId, damage);
 
-        // Check if duel is over
-        if (state.getPhase() == DuelState.Phase.ENDED) {
-            System.out.println("💀 Duel phase is ENDED!");
-            String winnerId = state.getHp(state.player1Id) > 0 ? state.player1Id : state.player2Id;
-            System.out.println("🏆 Winner: " + winnerId);
+        // Check if duel is over (the attacker keeps the turn when the defender drops)
+        if (DuelState.isEnded(resolved)) {
+            String winnerId = duel.state.attackerOf(resolved);
+            Log.debug("🏆 Winner: {}", winnerId);
+            if (!duels.remove(duel.duelId, duel)) {
+                return; // already ended
+            }
+            duelsFinished.increment();
+            record(duel, DuelLog.END, winnerId, DuelLog.END_KNOCKOUT, 0, 0);
             duel.callbacks.onDuelEnd(winnerId);
-            duels.remove(duel.duelId);
         } else {
-            // Advance to next turn
-            System.out.println("↪️ Moving to next turn");
-            state.nextTurn();
-            String nextAttackerId = state.getAttackerId();
-            String nextDefenderId = state.getDefenderId();
-            System.out.println("↪️ Next attacker: " + nextAttackerId + ", defender: " + nextDefenderId);
-            // After duel is created, set initial turn
-            duel.callbacks.onTurnChange(duel.state.getAttackerId(), duel.state.getDefenderId());
-
+            String nextAttackerId = duel.state.attackerOf(resolved);
+            String nextDefenderId = duel.state.defenderOf(resolved);
+            Log.debug("↪️ Next attacker: {}, defender: {}", nextAttackerId, nextDefenderId);
+            record(duel, DuelLog.TURN_CHANGE, nextAttackerId, 0, 0, 0);
+            duel.callbacks.onTurnChange(nextAttackerId, nextDefenderId);
         }
     }
 
+    /**
+     * Abort a duel (a player left); steps queued before this still run
+     */
     public void endDuel(String duelId) {
-        System.out.println("🔚 DuelManager.endDuel: Ending duel " + duelId);
-        duels.remove(duelId);
+        endDuel(duelId, null);
+    }
+
+    /**
+     * A duelist left: abort the duel and, unless it was already over, tell its
+     * callbacks who left (onDuelAborted)
+     */
+    public void endDuel(String duelId, String leaverId) {
+        Log.debug("🔚 DuelManager.endDuel: Ending duel {}", duelId);
+        Duel duel = duels.get(duelId);
+        if (duel != null) {
+            lanes.execute(duelId, () -> abort(duel, leaverId));
+        }
+    }
+
+    private void abort(Duel duel, String leaverId) {
+        if (!duels.remove(duel.duelId, duel)) {
+            return; // knocked out meanwhile
+        }
+        duelsAborted.increment();
+        cancelQteTimeout(duel);
+        record(duel, DuelLog.END, null, DuelLog.END_ABORTED, 0, 0);
+        if (leaverId != null) {
+            duel.callbacks.onDuelAborted(leaverId);
+        }
+    }
+
+    private void record(Duel duel, byte type, String playerId, int code, int value, int value2) {
+        if (log != null) {
+            log.append(duel.logKeyHi, duel.logKeyLo, type, duel.slotOf(playerId), code, value, value2);
+        }
+    }
+
+    /**
+     * False once the duel ended or was aborted; steps still queued for it are dropped
+     */
+    private boolean isLive(Duel duel) {
+        return duels.get(duel.duelId) == duel;
+    }
+
+    private static void cancelQteTimeout(Duel duel) {
+        TimerWheel.Timeout timeout = duel.qteTimeout;
+        if (timeout != null) {
+            timeout.cancel();
+        }
     }
 
     public void shutdown() {
-        scheduler.shutdown();
+        qteTimers.stop();
+        lanes.shutdown();
+        if (log != null) {
+            log.close();
+        }
     }
 }
@@ -1,110 +1,170 @@
 package com.s1ghtre4ders.server.duel;
 
-import java.util.concurrent.atomic.AtomicBoolean;
-
+import com.s1ghtre4ders.server.log.Log;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * S1ghtRe4ders Duel State
+ *
+ * Everything that changes during a duel packed into one long and advanced
+ * with compareAndSet. Attacks, QTE results and QTE timeouts all run on the
+ * duel's lane (see DuelLanes), one at a time. Being one atomic long lets any
+ * other thread read a whole, consistent state (snapshot() and the get*()
+ * reads) without a lock, and the CAS keeps each transition exactly-once when
+ * lanes are off (0 lanes) and steps race on reader and timer threads:
+ *
+ *   bits  0-15  player 1 HP       bit 32  player 2's turn
+ *   bits 16-31  player 2 HP       bit 33  QTE window open
+ *   bits 40-62  window number     bit 34  ended
+ *
+ * openQte() opens a window for the attacker whose turn it is; resolveQte()
+ * closes it, applies the damage and passes the turn (or ends the duel) in the
+ * same step. Both return the state they produced, which the caller reads with
+ * the *Of() / static accessors instead of re-reading a state another thread
+ * may have moved on already; NONE means the transition did not apply (wrong
+ * turn, no window, window already resolved, duel over).
+ */
 public class DuelState {
     public enum Phase {
         ACTIVE,
         ENDED
     }
 
-    // Players
-    public final String player1Id;
-    public final String player2Id;
+    /**
+     * Returned by a transition that did not happen
+     */
+    public static final long NONE = -1L;
 
-    // Current HP
-    private int player1Hp;
-    private int player2Hp;
+    /**
+     * resolveQte(ANY_WINDOW, ...) resolves whichever window is open
+     */
+    public static final int ANY_WINDOW = -1;
 
-    // Current turn state
-    private boolean player1Turn = true; // true = p1 attacks, false = p2 attacks
+    private static final long HP_MASK = 0xFFFF;
+    private static final int HP2_SHIFT = 16;
+    private static final long P2_TURN = 1L << 32;
+    private static final long QTE_OPEN = 1L << 33;
+    private static final long ENDED = 1L << 34;
+    private static final int WINDOW_SHIFT = 40;
+    private static final long WINDOW_MASK = (1L << 23) - 1; // keeps bit 63 clear, so no state equals NONE
 
-    // QTE state
-    private long qteExpiresAt = 0;
-    private final AtomicBoolean qteValid = new AtomicBoolean(false);
+    // Players
+    public final String player1Id;
+    public final String player2Id;
 
-    // Duel phase
-    private Phase phase = Phase.ACTIVE;
+    private final AtomicLong state;
 
     public DuelState(String p1Id, String p2Id, int maxHp) {
         this.player1Id = p1Id;
         this.player2Id = p2Id;
-        this.player1Hp = maxHp;
-        this.player2Hp = maxHp;
-        System.out.println("🎮 DuelState created: " + p1Id + " vs " + p2Id + " (P1 turn)");
+        this.state = new AtomicLong((maxHp & HP_MASK) | (maxHp & HP_MASK) << HP2_SHIFT);
+        Log.debug("🎮 DuelState created: {} vs {} (P1 turn)", p1Id, p2Id);
     }
 
-    public String getAttackerId() {
-        return player1Turn ? player1Id : player2Id;
-    }
+    // ---- Transitions ----
 
-    public String getDefenderId() {
-        return player1Turn ? player2Id : player1Id;
+    /**
+     * Open the next QTE window if it is attackerId's turn and none is open
+     * @return the new state, or NONE
+     */
+    public long openQte(String attackerId) {
+        long s;
+        long next;
+        do {
+            s = state.get();
+            if ((s & (QTE_OPEN | ENDED)) != 0 || !attackerOf(s).equals(attackerId)) {
+                return NONE;
+            }
+            long window = (windowOf(s) + 1) & WINDOW_MASK;
+            next = (s & ~(WINDOW_MASK << WINDOW_SHIFT)) | QTE_OPEN | window << WINDOW_SHIFT;
+        } while (!state.compareAndSet(s, next));
+        return next;
     }
 
-    public int getHp(String playerId) {
-        return playerId.equals(player1Id) ? player1Hp : player2Hp;
+    /**
+     * Close the open window: damage the defender, then pass the turn or end the duel
+     * @param window    only resolve this window (a timeout), or ANY_WINDOW (a result)
+     * @param defenderId must be the defender of that window
+     * @return the new state, or NONE if the window is not open any more
+     */
+    public long resolveQte(int window, String defenderId, int damage) {
+        long s;
+        long next;
+        do {
+            s = state.get();
+            if ((s & (QTE_OPEN | ENDED)) != QTE_OPEN
+                    || (window != ANY_WINDOW && windowOf(s) != window)
+                    || !defenderOf(s).equals(defenderId)) {
+                return NONE;
+            }
+            boolean p2Defends = (s & P2_TURN) == 0;
+            int hp = Math.max(0, (p2Defends ? hp2(s) : hp1(s)) - damage);
+            next = p2Defends
+                    ? (s & ~(HP_MASK << HP2_SHIFT)) | (long) hp << HP2_SHIFT
+                    : (s & ~HP_MASK) | hp;
+            next &= ~QTE_OPEN;
+            next = hp == 0 ? next | ENDED : next ^ P2_TURN;
+        } while (!state.compareAndSet(s, next));
+        return next;
     }
 
-    public Phase getPhase() {
-        return phase;
-    }
+    // ---- Reading a state ----
 
     /**
-     * Start QTE window
+     * The current state; decode it with the accessors below
      */
-    public void setQteWindow(long durationMs) {
-        qteValid.set(true);
-        qteExpiresAt = System.currentTimeMillis() + durationMs;
-        System.out.println("   ⏱️ QTE window opened until " + qteExpiresAt);
+    public long snapshot() {
+        return state.get();
     }
 
-    /**
-     * Check if QTE window is still valid
-     */
-    public boolean isQteValid() {
-        if (!qteValid.get()) {
-            return false;
-        }
-        boolean stillValid = System.currentTimeMillis() < qteExpiresAt;
-        if (!stillValid) {
-            System.out.println("   ⏱️ QTE window expired");
-        }
-        return stillValid;
+    public String attackerOf(long s) {
+        return (s & P2_TURN) == 0 ? player1Id : player2Id;
     }
 
-    /**
-     * Invalidate QTE window (player responded)
-     */
-    public void invalidateQte() {
-        qteValid.set(false);
-        System.out.println("   ⚡ QTE window closed (player responded)");
+    public String defenderOf(long s) {
+        return (s & P2_TURN) == 0 ? player2Id : player1Id;
     }
 
-    /**
-     * Apply damage to a player
-     */
-    public void takeDamage(String playerId, int damage) {
-        if (playerId.equals(player1Id)) {
-            player1Hp = Math.max(0, player1Hp - damage);
-            System.out.println("   📊 " + player1Id + " HP: " + player1Hp);
-        } else {
-            player2Hp = Math.max(0, player2Hp - damage);
-            System.out.println("   📊 " + player2Id + " HP: " + player2Hp);
-        }
-
-        // Check win condition
-        if (player1Hp == 0 || player2Hp == 0) {
-            phase = Phase.ENDED;
-            System.out.println("💀 Duel ended! P1 HP=" + player1Hp + ", P2 HP=" + player2Hp);
-        }
+    public int hpOf(long s, String playerId) {
+        return playerId.equals(player1Id) ? hp1(s) : hp2(s);
     }
 
-    /**
-     * Switch to next turn
-     */
-    public void nextTurn() {
-        player1Turn = !player1Turn;
-        System.out.println("↪️ Turn switched to: " + getAttackerId());
+    public static int hp1(long s) {
+        return (int) (s & HP_MASK);
+    }
+
+    public static int hp2(long s) {
+        return (int) (s >>> HP2_SHIFT & HP_MASK);
+    }
+
+    public static boolean isEnded(long s) {
+        return (s & ENDED) != 0;
+    }
+
+    public static boolean isQteOpen(long s) {
+        return (s & QTE_OPEN) != 0;
+    }
+
+    public static int windowOf(long s) {
+        return (int) (s >>> WINDOW_SHIFT & WINDOW_MASK);
+    }
+
+    // ---- Convenience reads of the current state ----
+
+    public String getAttackerId() {
+        return attackerOf(state.get());
+    }
+
+    public String getDefenderId() {
+        return defenderOf(state.get());
+    }
+
+    public int getHp(String playerId) {
+        return hpOf(state.get(), playerId);
+    }
+
+    public Phase getPhase() {
+        return isEnded(state.get()) ? Phase.ENDED : Phase.ACTIVE;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,102 @@
+package com.s1ghtre4ders.server.log;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded ring buffer of log lines drained by one daemon thread.
+ *
+ * Producers never block: when the buffer is full the line is dropped and
+ * counted. The writer takes whatever has piled up, prints it through its own
+ * buffered streams and flushes once per batch, so a burst of N lines costs one
+ * console write instead of N synchronized println calls.
+ */
+final class AsyncLogWriter implements Runnable {
+    private static final int BATCH = 256;
+
+    private final ArrayBlockingQueue<Entry> ring;
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final PrintStream out;
+    private final PrintStream err;
+
+    AsyncLogWriter(int capacity) {
+        this.ring = new ArrayBlockingQueue<>(capacity);
+        // Whatever System.out/err are right now (benchmarks redirect them before first use)
+        this.out = buffered(System.out);
+        this.err = buffered(System.err);
+
+        Thread thread = new Thread(this, "log-writer");
+        thread.setDaemon(true);
+        thread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "log-flush"));
+    }
+
+    void append(Log.Level level, String text, Throwable error) {
+        if (ring.offer(new Entry(level, text, error))) {
+            appended.incrementAndGet();
+        } else {
+            dropped.incrementAndGet();
+        }
+    }
+
+    long dropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Wait (up to a second) until every line appended before this call is out
+     */
+    void flush() {
+        long target = appended.get();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (written.get() < target && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    @Override
+    public void run() {
+        List<Entry> batch = new ArrayList<>(BATCH);
+        while (true) {
+            try {
+                batch.add(ring.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            ring.drainTo(batch, BATCH - 1);
+
+            boolean toErr = false;
+            for (Entry entry : batch) {
+                PrintStream target = entry.level.ordinal() >= Log.Level.WARN.ordinal() ? err : out;
+                toErr |= target == err;
+                target.println(entry.text);
+                if (entry.error != null) {
+                    entry.error.printStackTrace(target);
+                }
+            }
+            out.flush();
+            if (toErr) {
+                err.flush();
+            }
+            written.addAndGet(batch.size());
+            batch.clear();
+        }
+    }
+
+    private static PrintStream buffered(OutputStream target) {
+        return new PrintStream(new BufferedOutputStream(target, 16 * 1024), false, StandardCharsets.UTF_8);
+    }
+
+    private record Entry(Log.Level level, String text, Throwable error) {
+    }
+}
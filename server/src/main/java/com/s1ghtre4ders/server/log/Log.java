@@ -0,0 +1,207 @@
+package com.s1ghtre4ders.server.log;
+
+import java.util.function.Supplier;
+
+/**
+ * S1ghtRe4ders Log
+ *
+ * Tiny leveled logging facade. Enabled messages are formatted on the calling
+ * thread and handed to an AsyncLogWriter, which prints them from a background
+ * thread, so hot paths never wait on the console lock.
+ *
+ * Patterns use {} placeholders: Log.debug("📨 [{}] {}", user, message).
+ * A suppressed call returns after one volatile read and allocates nothing,
+ * as long as its arguments are already objects (ints get boxed at the call
+ * site - guard those with isDebugEnabled()). Anything expensive to build goes
+ * through the Supplier overloads.
+ *
+ * Level is set with --logLevel=DEBUG|INFO|WARN|ERROR|OFF (default INFO).
+ */
+public final class Log {
+    public enum Level {
+        DEBUG,
+        INFO,
+        WARN,
+        ERROR,
+        OFF
+    }
+
+    private static final int BUFFER_CAPACITY = 8192;
+    private static final AsyncLogWriter writer = new AsyncLogWriter(BUFFER_CAPACITY);
+    private static volatile int threshold = Level.INFO.ordinal();
+
+    private Log() {
+    }
+
+    public static void setLevel(Level level) {
+        threshold = level.ordinal();
+    }
+
+    /**
+     * Parse a level name, falling back to INFO on nonsense
+     */
+    public static Level parseLevel(String name) {
+        try {
+            return Level.valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            warn("⚠️ Unknown log level: {} (using INFO)", name);
+            return Level.INFO;
+        }
+    }
+
+    public static boolean isEnabled(Level level) {
+        return level.ordinal() >= threshold;
+    }
+
+    public static boolean isDebugEnabled() {
+        return Level.DEBUG.ordinal() >= threshold;
+    }
+
+    /**
+     * Messages thrown away because the buffer was full
+     */
+    public static long dropped() {
+        return writer.dropped();
+    }
+
+    /**
+     * Block until everything logged so far has been written (shutdown, benchmarks)
+     */
+    public static void flush() {
+        writer.flush();
+    }
+
+    // ── DEBUG ──────────────────────────────────────────────
+
+    public static void debug(String message) {
+        if (Level.DEBUG.ordinal() >= threshold) {
+            writer.append(Level.DEBUG, message, null);
+        }
+    }
+
+    public static void debug(String pattern, Object a) {
+        if (Level.DEBUG.ordinal() >= threshold) {
+            writer.append(Level.DEBUG, format(pattern, a, null, null, 1), null);
+        }
+    }
+
+    public static void debug(String pattern, Object a, Object b) {
+        if (Level.DEBUG.ordinal() >= threshold) {
+            writer.append(Level.DEBUG, format(pattern, a, b, null, 2), null);
+        }
+    }
+
+    public static void debug(String pattern, Object a, Object b, Object c) {
+        if (Level.DEBUG.ordinal() >= threshold) {
+            writer.append(Level.DEBUG, format(pattern, a, b, c, 3), null);
+        }
+    }
+
+    public static void debug(Supplier<String> message) {
+        if (Level.DEBUG.ordinal() >= threshold) {
+            writer.append(Level.DEBUG, message.get(), null);
+        }
+    }
+
+    // ── INFO ───────────────────────────────────────────────
+
+    public static void info(String message) {
+        if (Level.INFO.ordinal() >= threshold) {
+            writer.append(Level.INFO, message, null);
+        }
+    }
+
+    public static void info(String pattern, Object a) {
+        if (Level.INFO.ordinal() >= threshold) {
+            writer.append(Level.INFO, format(pattern, a, null, null, 1), null);
+        }
+    }
+
+    public static void info(String pattern, Object a, Object b) {
+        if (Level.INFO.ordinal() >= threshold) {
+            writer.append(Level.INFO, format(pattern, a, b, null, 2), null);
+        }
+    }
+
+    public static void info(String pattern, Object a, Object b, Object c) {
+        if (Level.INFO.ordinal() >= threshold) {
+            writer.append(Level.INFO, format(pattern, a, b, c, 3), null);
+        }
+    }
+
+    public static void info(Supplier<String> message) {
+        if (Level.INFO.ordinal() >= threshold) {
+            writer.append(Level.INFO, message.get(), null);
+        }
+    }
+
+    // ── WARN / ERROR ───────────────────────────────────────
+
+    public static void warn(String message) {
+        if (Level.WARN.ordinal() >= threshold) {
+            writer.append(Level.WARN, message, null);
+        }
+    }
+
+    public static void warn(String pattern, Object a) {
+        if (Level.WARN.ordinal() >= threshold) {
+            writer.append(Level.WARN, format(pattern, a, null, null, 1), null);
+        }
+    }
+
+    public static void warn(String pattern, Object a, Object b) {
+        if (Level.WARN.ordinal() >= threshold) {
+            writer.append(Level.WARN, format(pattern, a, b, null, 2), null);
+        }
+    }
+
+    public static void warn(String pattern, Object a, Object b, Object c) {
+        if (Level.WARN.ordinal() >= threshold) {
+            writer.append(Level.WARN, format(pattern, a, b, c, 3), null);
+        }
+    }
+
+    public static void error(String message) {
+        if (Level.ERROR.ordinal() >= threshold) {
+            writer.append(Level.ERROR, message, null);
+        }
+    }
+
+    public static void error(String pattern, Object a) {
+        if (Level.ERROR.ordinal() >= threshold) {
+            writer.append(Level.ERROR, format(pattern, a, null, null, 1), null);
+        }
+    }
+
+    public static void error(String pattern, Object a, Object b) {
+        if (Level.ERROR.ordinal() >= threshold) {
+            writer.append(Level.ERROR, format(pattern, a, b, null, 2), null);
+        }
+    }
+
+    /**
+     * Error with a stack trace (printed by the writer thread)
+     */
+    public static void error(String message, Throwable error) {
+        if (Level.ERROR.ordinal() >= threshold) {
+            writer.append(Level.ERROR, message, error);
+        }
+    }
+
+    /**
+     * Replace up to count {} placeholders, left to right
+     */
+    static String format(String pattern, Object a, Object b, Object c, int count) {
+        StringBuilder sb = new StringBuilder(pattern.length() + 32);
+        int from = 0;
+        for (int i = 0; i < count; i++) {
+            int at = pattern.indexOf("{}", from);
+            if (at == -1) {
+                break;
+            }
+            sb.append(pattern, from, at).append(i == 0 ? a : i == 1 ? b : c);
+            from = at + 2;
+        }
+        return sb.append(pattern, from, pattern.length()).toString();
+    }
+}
@@ -0,0 +1,103 @@
+package com.s1ghtre4ders.server.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram with fixed power-of-two buckets: 1us, 2us, 4us ... ~33s, then overflow.
+ *
+ * record() is a couple of shifts and two LongAdder adds, with no locks and no
+ * allocation, so it can sit on every message. The price is resolution:
+ * percentiles are reported as the upper bound of their bucket, within 2x of
+ * the true value, which is plenty for "did this get slower".
+ */
+public final class Histogram {
+    static final int BUCKETS = 26; // upper bounds 2^0 .. 2^25 microseconds
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS + 1];
+    private final LongAdder sumNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    Histogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        buckets[bucketOf(nanos / 1000)].increment();
+        sumNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    /**
+     * Record the time since start (a System.nanoTime() reading)
+     */
+    public void recordSince(long start) {
+        record(System.nanoTime() - start);
+    }
+
+    public long count() {
+        long n = 0;
+        for (LongAdder bucket : buckets) {
+            n += bucket.sum();
+        }
+        return n;
+    }
+
+    public long sumNanos() {
+        return sumNanos.sum();
+    }
+
+    public long maxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Upper bound (in nanos) of the bucket holding quantile q, 0 if empty
+     */
+    public long percentileNanos(double q) {
+        long[] counts = snapshot();
+        long total = 0;
+        for (long c : counts) {
+            total += c;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(q * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundMicros(i) * 1000, maxNanos());
+            }
+        }
+        return maxNanos();
+    }
+
+    /**
+     * Per-bucket counts (not cumulative); the last slot is the overflow bucket
+     */
+    long[] snapshot() {
+        long[] counts = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+
+    static long upperBoundMicros(int bucket) {
+        return 1L << bucket;
+    }
+
+    private static int bucketOf(long micros) {
+        if (micros <= 1) {
+            return 0;
+        }
+        return Math.min(64 - Long.numberOfLeadingZeros(micros - 1), BUCKETS);
+    }
+}
@@ -0,0 +1,131 @@
+package com.s1ghtre4ders.server.metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * S1ghtRe4ders Metrics
+ *
+ * Process-wide registry of counters, gauges and latency histograms. Like Log
+ * it is a static facade, so any class can register what it measures without
+ * plumbing: look a metric up once (into a field), then update it on the hot
+ * path. Registering the same name and labels twice returns the same metric.
+ *
+ * Labels are given as name/value pairs:
+ *   Metrics.counter("duel_qte_results_total", "QTE outcomes", "quality", "HALF")
+ *
+ * Values that already live elsewhere (queue sizes, LongAdders in other
+ * classes) are registered as gauges or counters backed by a LongSupplier and
+ * read only when someone asks. MetricsServer renders everything as plain text
+ * or in the Prometheus exposition format.
+ */
+public final class Metrics {
+    enum Type {
+        COUNTER,
+        GAUGE,
+        HISTOGRAM
+    }
+
+    private static final Map<String, Family> families = new LinkedHashMap<>();
+
+    private Metrics() {
+    }
+
+    public static Counter counter(String name, String help, String... labels) {
+        Counter counter = new Counter();
+        return (Counter) register(name, help, Type.COUNTER, labels, counter, counter::get).metric;
+    }
+
+    /**
+     * A counter kept by someone else (must never go down)
+     */
+    public static void counter(String name, String help, LongSupplier value, String... labels) {
+        register(name, help, Type.COUNTER, labels, null, value);
+    }
+
+    public static void gauge(String name, String help, LongSupplier value, String... labels) {
+        register(name, help, Type.GAUGE, labels, null, value);
+    }
+
+    public static Histogram histogram(String name, String help, String... labels) {
+        return (Histogram) register(name, help, Type.HISTOGRAM, labels, new Histogram(), null).metric;
+    }
+
+    /**
+     * Everything registered so far, in registration order
+     */
+    static synchronized List<Family> families() {
+        return new ArrayList<>(families.values());
+    }
+
+    private static synchronized Series register(String name, String help, Type type, String[] labels,
+                                                Object metric, LongSupplier value) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("labels must be name/value pairs: " + name);
+        }
+        Family family = families.computeIfAbsent(name, n -> new Family(n, help, type));
+        if (family.type != type) {
+            throw new IllegalArgumentException(name + " is already a " + family.type);
+        }
+        return family.series.computeIfAbsent(labelString(labels), l -> new Series(l, metric, value));
+    }
+
+    /**
+     * {a="x",b="y"} (Prometheus syntax), or "" without labels
+     */
+    private static String labelString(String[] labels) {
+        if (labels.length == 0) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(labels[i]).append("=\"")
+                    .append(labels[i + 1].replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"))
+                    .append('"');
+        }
+        return sb.append('}').toString();
+    }
+
+    /**
+     * All series sharing one metric name
+     */
+    static final class Family {
+        final String name;
+        final String help;
+        final Type type;
+        final Map<String, Series> series = new LinkedHashMap<>(); // guarded by Metrics.class
+
+        Family(String name, String help, Type type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+
+        List<Series> series() {
+            synchronized (Metrics.class) {
+                return new ArrayList<>(series.values());
+            }
+        }
+    }
+
+    /**
+     * One labelled instance: a Counter/Histogram, or a supplier read on demand
+     */
+    static final class Series {
+        final String labels;
+        final Object metric;
+        final LongSupplier value;
+
+        Series(String labels, Object metric, LongSupplier value) {
+            this.labels = labels;
+            this.metric = metric;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.s1ghtre4ders.server.metrics;
+
+import com.s1ghtre4ders.server.log.Log;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Localhost-only HTTP view of the Metrics registry (JDK built-in HttpServer):
+ * - GET /metrics  Prometheus text exposition format
+ * - GET /stats    the same numbers for humans, histograms as p50/p99/p999/max
+ *
+ * Bound to the loopback address on purpose: it is for the person on the box
+ * (or a scraper running next to it), not for players.
+ */
+public final class MetricsServer {
+    private final HttpServer http;
+
+    private MetricsServer(HttpServer http) {
+        this.http = http;
+    }
+
+    public static MetricsServer start(int port) throws IOException {
+        HttpServer http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        http.createContext("/metrics", exchange -> respond(exchange, "text/plain; version=0.0.4", MetricsServer::prometheus));
+        http.createContext("/stats", exchange -> respond(exchange, "text/plain", MetricsServer::text));
+        http.setExecutor(Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "metrics-http");
+            t.setDaemon(true);
+            return t;
+        }));
+        http.start();
+        return new MetricsServer(http);
+    }
+
+    public void stop() {
+        http.stop(0);
+    }
+
+    private static void respond(HttpExchange exchange, String contentType, Supplier<String> body) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] bytes = body.get().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (RuntimeException e) {
+            Log.error("❌ Metrics request failed", e);
+        }
+    }
+
+    /**
+     * Prometheus exposition format 0.0.4; histograms in seconds
+     */
+    static String prometheus() {
+        StringBuilder sb = new StringBuilder(4096);
+        for (Metrics.Family family : Metrics.families()) {
+            sb.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            sb.append("# TYPE ").append(family.name).append(' ').append(family.type.name().toLowerCase()).append('\n');
+            for (Metrics.Series series : family.series()) {
+                if (family.type != Metrics.Type.HISTOGRAM) {
+                    sb.append(family.name).append(series.labels).append(' ').append(series.value.getAsLong()).append('\n');
+                    continue;
+                }
+                Histogram histogram = (Histogram) series.metric;
+                long[] counts = histogram.snapshot();
+                long cumulative = 0;
+                for (int i = 0; i < Histogram.BUCKETS; i++) {
+                    cumulative += counts[i];
+                    bucket(sb, family.name, series.labels, Double.toString(Histogram.upperBoundMicros(i) / 1e6), cumulative);
+                }
+                cumulative += counts[Histogram.BUCKETS];
+                bucket(sb, family.name, series.labels, "+Inf", cumulative);
+                sb.append(family.name).append("_sum").append(series.labels).append(' ')
+                        .append(histogram.sumNanos() / 1e9).append('\n');
+                sb.append(family.name).append("_count").append(series.labels).append(' ')
+                        .append(cumulative).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void bucket(StringBuilder sb, String name, String labels, String le, long count) {
+        sb.append(name).append("_bucket");
+        if (labels.isEmpty()) {
+            sb.append("{le=\"").append(le).append("\"}");
+        } else {
+            sb.append(labels, 0, labels.length() - 1).append(",le=\"").append(le).append("\"}");
+        }
+        sb.append(' ').append(count).append('\n');
+    }
+
+    /**
+     * One line per series
+     */
+    static String text() {
+        StringBuilder sb = new StringBuilder(2048);
+        for (Metrics.Family family : Metrics.families()) {
+            for (Metrics.Series series : family.series()) {
+                sb.append(family.name).append(series.labels).append(' ');
+                if (family.type != Metrics.Type.HISTOGRAM) {
+                    sb.append(series.value.getAsLong()).append('\n');
+                    continue;
+                }
+                Histogram histogram = (Histogram) series.metric;
+                long count = histogram.count();
+                sb.append(String.format("n=%d avg=%.1fus p50=%.1fus p99=%.1fus p999=%.1fus max=%.1fus%n",
+                        count,
+                        count == 0 ? 0 : histogram.sumNanos() / 1e3 / count,
+                        histogram.percentileNanos(0.5) / 1e3,
+                        histogram.percentileNanos(0.99) / 1e3,
+                        histogram.percentileNanos(0.999) / 1e3,
+                        histogram.maxNanos() / 1e3));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,128 @@
+package com.s1ghtre4ders.server.net;
+
+import com.s1ghtre4ders.server.log.Log;
+import com.s1ghtre4ders.server.protocol.Command;
+import com.s1ghtre4ders.server.protocol.Message;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps on how many connections the server holds at once.
+ *
+ * Every accepted socket counts as open and unauthenticated until it logs in.
+ * The accept loop asks tryAdmit() before it creates a transport or a thread;
+ * over either cap the socket gets one ERROR line and is closed on the spot,
+ * so a connect storm costs an accept and a write per extra client, nothing more.
+ *
+ * One instance is shared by the accept loop and every connection.
+ */
+public final class AdmissionControl {
+    private static final byte[] FULL = Frame.of(Message.of(Command.ERROR, "Server is full, try again later")).bytes(false);
+
+    private final int maxConnections;
+    private final int maxUnauthenticated;
+    private final AtomicInteger open = new AtomicInteger();
+    private final AtomicInteger unauthenticated = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder handshakeTimeouts = new LongAdder();
+
+    public AdmissionControl(int maxConnections, int maxUnauthenticated) {
+        this.maxConnections = maxConnections;
+        this.maxUnauthenticated = maxUnauthenticated;
+    }
+
+    /**
+     * Count a freshly accepted connection if both caps allow it.
+     * Every true must be matched by exactly one released().
+     */
+    public boolean tryAdmit() {
+        if (open.incrementAndGet() > maxConnections) {
+            open.decrementAndGet();
+            rejected.increment();
+            return false;
+        }
+        if (unauthenticated.incrementAndGet() > maxUnauthenticated) {
+            unauthenticated.decrementAndGet();
+            open.decrementAndGet();
+            rejected.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * The connection logged in and no longer counts against the handshake cap
+     */
+    public void authenticated() {
+        unauthenticated.decrementAndGet();
+    }
+
+    /**
+     * The connection is gone
+     */
+    public void released(boolean wasAuthenticated) {
+        if (!wasAuthenticated) {
+            unauthenticated.decrementAndGet();
+        }
+        open.decrementAndGet();
+    }
+
+    public void handshakeTimedOut() {
+        handshakeTimeouts.increment();
+    }
+
+    /**
+     * Tell a refused client why (best effort) and hang up
+     */
+    public void reject(Socket socket) {
+        if (Log.isDebugEnabled()) {
+            Log.debug("🚫 Refused connection from {} ({} open, {} not logged in)",
+                    socket.getInetAddress(), open.get(), unauthenticated.get());
+        }
+        try (socket) {
+            OutputStream out = socket.getOutputStream();
+            out.write(FULL);
+            out.flush();
+        } catch (IOException e) {
+            // Gone already
+        }
+    }
+
+    public void reject(SocketChannel channel) {
+        reject(channel.socket());
+    }
+
+    public int open() {
+        return open.get();
+    }
+
+    public int unauthenticated() {
+        return unauthenticated.get();
+    }
+
+    public long refused() {
+        return rejected.sum();
+    }
+
+    public long handshakeTimeouts() {
+        return handshakeTimeouts.sum();
+    }
+
+    /**
+     * One line of counters, or "" if nobody was refused or timed out yet
+     */
+    public String report() {
+        long refused = rejected.sum();
+        long timeouts = handshakeTimeouts.sum();
+        if (refused == 0 && timeouts == 0) {
+            return "";
+        }
+        return "open=" + open.get() + " unauthenticated=" + unauthenticated.get()
+                + " refused=" + refused + " handshakeTimeouts=" + timeouts;
+    }
+}
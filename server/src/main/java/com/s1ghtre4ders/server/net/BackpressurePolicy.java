@@ -0,0 +1,74 @@
+package com.s1ghtre4ders.server.net;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * What to do when a client stops reading.
+ *
+ * A connection is "slow" once its OutboundQueue exceeds any limit: queued
+ * frames, queued bytes, or the age of the oldest queued frame. Then, in order:
+ * - collapse: a new PLAYER_LIST snapshot replaces any older one still queued
+ *   (done always when enabled - a stale snapshot is never worth sending)
+ * - drop chat: player CHAT frames are dropped instead of queued, and chat
+ *   already queued is discarded to make room
+ * - disconnect: if the queue is still over a limit, the connection is closed
+ *
+ * One policy (and one set of counters) is shared by every connection.
+ */
+public final class BackpressurePolicy {
+    final int maxFrames;
+    final long maxBytes;
+    final long maxAgeNanos;
+    final boolean dropChat;
+    final boolean collapseSnapshots;
+
+    private final LongAdder chatDropped = new LongAdder();
+    private final LongAdder snapshotsCollapsed = new LongAdder();
+    private final LongAdder disconnects = new LongAdder();
+
+    public BackpressurePolicy(int maxFrames, long maxBytes, long maxAgeMs, boolean dropChat, boolean collapseSnapshots) {
+        this.maxFrames = maxFrames;
+        this.maxBytes = maxBytes;
+        this.maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(maxAgeMs);
+        this.dropChat = dropChat;
+        this.collapseSnapshots = collapseSnapshots;
+    }
+
+    void chatDropped(int frames) {
+        chatDropped.add(frames);
+    }
+
+    void snapshotCollapsed() {
+        snapshotsCollapsed.increment();
+    }
+
+    void disconnected() {
+        disconnects.increment();
+    }
+
+    public long chatDropped() {
+        return chatDropped.sum();
+    }
+
+    public long snapshotsCollapsed() {
+        return snapshotsCollapsed.sum();
+    }
+
+    public long disconnects() {
+        return disconnects.sum();
+    }
+
+    /**
+     * One line of counters, or "" if no policy has fired yet
+     */
+    public String report() {
+        long dropped = chatDropped.sum();
+        long collapsed = snapshotsCollapsed.sum();
+        long closed = disconnects.sum();
+        if (dropped == 0 && collapsed == 0 && closed == 0) {
+            return "";
+        }
+        return "chatDropped=" + dropped + " snapshotsCollapsed=" + collapsed + " slowDisconnects=" + closed;
+    }
+}
@@ -0,0 +1,23 @@
+package com.s1ghtre4ders.server.net;
+
+import com.s1ghtre4ders.server.protocol.Message;
+
+/**
+ * Inbound side of one client connection, driven by its transport.
+ *
+ * The transport delivers decoded messages in order from a single thread at a time,
+ * and calls onDisconnect exactly once when the connection goes away.
+ */
+public interface ConnectionHandler {
+    void onMessage(Message message);
+
+    void onDisconnect();
+
+    /**
+     * Creates the handler for a freshly accepted connection
+     */
+    @FunctionalInterface
+    interface Factory {
+        ConnectionHandler create(Transport transport);
+    }
+}
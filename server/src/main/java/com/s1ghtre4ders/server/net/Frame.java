@@ -0,0 +1,166 @@
+package com.s1ghtre4ders.server.net;
+
+import com.s1ghtre4ders.server.log.Log;
+import com.s1ghtre4ders.server.metrics.Counter;
+import com.s1ghtre4ders.server.metrics.Metrics;
+import com.s1ghtre4ders.server.protocol.BinaryCodec;
+import com.s1ghtre4ders.server.protocol.Command;
+import com.s1ghtre4ders.server.protocol.Message;
+import com.s1ghtre4ders.server.protocol.TextCodec;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * One or more outbound messages, encoded lazily and at most once per wire format.
+ *
+ * Frames are immutable once built, so a broadcast builds a single frame and the
+ * very same bytes are queued on every connection: text clients share one
+ * encoding, binary clients share the other. Transports only ever read from
+ * the returned arrays.
+ *
+ * The kind tells a BackpressurePolicy what it may do with the frame when the
+ * connection falls behind.
+ *
+ * A frame can also be the concatenation of other frames (see concat): its
+ * bytes are the parts' cached bytes back to back, so nothing is re-encoded.
+ *
+ * A message longer than BinaryCodec.MAX_FRAME (also the longest line a client
+ * reads) encodes to no bytes: it is logged once per frame and OutboundQueue
+ * drops the empty frame, so it never fails the broadcast it is part of.
+ */
+public final class Frame {
+    enum Kind {
+        CRITICAL,   // must arrive (duel events, presence batches, errors...)
+        CHAT,       // a single player chat line - droppable for slow clients
+        SNAPSHOT    // PLAYER_LIST - superseded by any newer snapshot
+    }
+
+    private static final byte[] OVERSIZED = new byte[0];
+    private static final Counter oversized = Metrics.counter("lobby_oversized_frames_total",
+            "Messages too large for the wire, not sent");
+
+    private final Message[] messages;
+    private final Frame[] parts; // set instead of messages for concatenated frames
+    private final Kind kind;
+    private final boolean switchesToBinary;
+    private volatile byte[] textBytes;
+    private volatile byte[] binaryBytes;
+
+    private Frame(Message[] messages, Kind kind, boolean switchesToBinary) {
+        this.messages = messages;
+        this.parts = null;
+        this.kind = kind;
+        this.switchesToBinary = switchesToBinary;
+    }
+
+    private Frame(Frame[] parts, Kind kind) {
+        this.messages = null;
+        this.parts = parts;
+        this.kind = kind;
+        this.switchesToBinary = false;
+    }
+
+    public static Frame of(Message message) {
+        Kind kind = message.command == Command.CHAT ? Kind.CHAT
+                : message.command == Command.PLAYER_LIST ? Kind.SNAPSHOT
+                : Kind.CRITICAL;
+        return new Frame(new Message[] {message}, kind, false);
+    }
+
+    public static Frame of(List<Message> batch) {
+        return new Frame(batch.toArray(new Message[0]), Kind.CRITICAL, false);
+    }
+
+    /**
+     * Several frames as one write; droppable as chat if every part is chat
+     */
+    public static Frame concat(Frame[] parts) {
+        Kind kind = Kind.CHAT;
+        for (Frame part : parts) {
+            if (part.kind != Kind.CHAT) {
+                kind = Kind.CRITICAL;
+                break;
+            }
+        }
+        return new Frame(parts.clone(), kind);
+    }
+
+    /**
+     * The last text frame on a connection: the writer switches to binary right after it
+     */
+    static Frame protocolSwitch(Message notice) {
+        return new Frame(new Message[] {notice}, Kind.CRITICAL, true);
+    }
+
+    Kind kind() {
+        return kind;
+    }
+
+    boolean switchesToBinary() {
+        return switchesToBinary;
+    }
+
+    /**
+     * Encoded bytes for the given wire format (cached; benign race on first use),
+     * empty if the frame is too large to send
+     */
+    byte[] bytes(boolean binary) {
+        if (binary) {
+            byte[] b = binaryBytes;
+            if (b == null) {
+                binaryBytes = b = encode(true);
+            }
+            return b;
+        }
+        byte[] b = textBytes;
+        if (b == null) {
+            textBytes = b = encode(false);
+        }
+        return b;
+    }
+
+    private byte[] encode(boolean binary) {
+        if (parts != null) {
+            int length = 0;
+            for (Frame part : parts) {
+                length += part.bytes(binary).length;
+            }
+            byte[] joined = new byte[length];
+            int pos = 0;
+            for (Frame part : parts) {
+                byte[] b = part.bytes(binary);
+                System.arraycopy(b, 0, joined, pos, b.length);
+                pos += b.length;
+            }
+            return joined;
+        }
+        if (messages.length == 1) {
+            return encodeOne(messages[0], binary);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(messages.length * 48);
+        for (Message message : messages) {
+            out.writeBytes(encodeOne(message, binary));
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] encodeOne(Message message, boolean binary) {
+        if (binary) {
+            try {
+                return BinaryCodec.encode(message);
+            } catch (IllegalArgumentException e) {
+                return oversized(message, "binary");
+            }
+        }
+        byte[] line = (TextCodec.encode(message) + "\n").getBytes(StandardCharsets.UTF_8);
+        return line.length > BinaryCodec.MAX_FRAME ? oversized(message, "text") : line;
+    }
+
+    private static byte[] oversized(Message message, String format) {
+        oversized.increment();
+        Log.warn("📦 {} is over {} bytes as {}, not sent", message.command, BinaryCodec.MAX_FRAME, format);
+        return OVERSIZED;
+    }
+}
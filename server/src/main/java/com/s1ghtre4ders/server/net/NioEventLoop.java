@@ -0,0 +1,150 @@
+package com.s1ghtre4ders.server.net;
+
+import com.s1ghtre4ders.server.log.Log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * One selector thread serving many connections.
+ *
+ * Other threads never touch the selector or the channels directly; they post
+ * tasks (register, flush, close) which run on the loop between selects.
+ */
+class NioEventLoop implements Runnable {
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final String name;
+    private final Selector selector;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+    private final BackpressurePolicy backpressure;
+    private volatile boolean running = true;
+    private Thread thread;
+
+    NioEventLoop(String name, BackpressurePolicy backpressure) throws IOException {
+        this.name = name;
+        this.backpressure = backpressure;
+        this.selector = Selector.open();
+    }
+
+    void start() {
+        thread = new Thread(this, name);
+        thread.start();
+    }
+
+    void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+
+    /**
+     * Scratch buffer shared by all flushes on this loop (loop thread only)
+     */
+    ByteBuffer writeBuffer() {
+        return writeBuffer;
+    }
+
+    boolean inLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    /**
+     * Run a task on this loop; wakes the selector when called from another thread
+     */
+    void execute(Runnable task) {
+        tasks.add(task);
+        if (!inLoop()) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Take over an admitted channel; if that fails, its admission is given back
+     */
+    void register(SocketChannel channel, ConnectionHandler.Factory factory, AdmissionControl admission) {
+        execute(() -> {
+            try {
+                channel.configureBlocking(false);
+                SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                NioTransport transport = new NioTransport(this, channel, key, backpressure);
+                key.attach(transport);
+                transport.bind(factory.create(transport));
+            } catch (IOException e) {
+                Log.error("❌ Failed to register connection: {}", e.getMessage());
+                admission.released(false);
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                    // Already closed
+                }
+            }
+        });
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                selector.select();
+                processSelectedKeys();
+                runTasks();
+            } catch (IOException e) {
+                Log.error("❌ {} selector error: {}", name, e.getMessage());
+            }
+        }
+
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof NioTransport) {
+                ((NioTransport) key.attachment()).closeNow();
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException ignored) {
+            // Shutting down anyway
+        }
+    }
+
+    private void processSelectedKeys() {
+        Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+        while (it.hasNext()) {
+            SelectionKey key = it.next();
+            it.remove();
+
+            NioTransport transport = (NioTransport) key.attachment();
+            if (transport == null) {
+                continue;
+            }
+            if (!key.isValid()) {
+                transport.closeNow();
+                continue;
+            }
+            if (key.isReadable()) {
+                transport.onReadable(readBuffer);
+            }
+            if (key.isValid() && key.isWritable()) {
+                transport.flush(writeBuffer);
+            }
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                Log.error("❌ " + name + " task failed: " + e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.s1ghtre4ders.server.net;
+
+import com.s1ghtre4ders.server.log.Log;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Non-blocking lobby transport.
+ *
+ * The calling thread accepts connections on a ServerSocketChannel and hands each
+ * one to a fixed set of selector event loops (round-robin). A connection stays on
+ * its loop for its whole life, so its lines are framed and handled in order on
+ * one thread, while thousands of idle clients cost no threads at all.
+ * Sockets over the AdmissionControl caps are refused right on the accept thread.
+ */
+public class NioServer {
+    private final int port;
+    private final NioEventLoop[] loops;
+    private final ConnectionHandler.Factory factory;
+    private final AdmissionControl admission;
+    private int nextLoop = 0;
+
+    public NioServer(int port, int loopCount, BackpressurePolicy backpressure, AdmissionControl admission,
+                     ConnectionHandler.Factory factory) throws IOException {
+        if (loopCount < 1) {
+            throw new IllegalArgumentException("loopCount must be >= 1");
+        }
+        this.port = port;
+        this.factory = factory;
+        this.admission = admission;
+        this.loops = new NioEventLoop[loopCount];
+        for (int i = 0; i < loopCount; i++) {
+            loops[i] = new NioEventLoop("nio-loop-" + i, backpressure);
+        }
+    }
+
+    /**
+     * Start the event loops and accept connections on the calling thread (never returns normally)
+     */
+    public void run() throws IOException {
+        for (NioEventLoop loop : loops) {
+            loop.start();
+        }
+
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(port));
+            while (true) {
+                SocketChannel channel = server.accept();
+                if (!admission.tryAdmit()) {
+                    admission.reject(channel);
+                    continue;
+                }
+                Log.info("✅ New connection from {}", channel.socket().getInetAddress());
+
+                NioEventLoop loop = loops[nextLoop];
+                nextLoop = (nextLoop + 1) % loops.length;
+                loop.register(channel, factory, admission);
+            }
+        } finally {
+            for (NioEventLoop loop : loops) {
+                loop.shutdown();
+            }
+        }
+    }
+}
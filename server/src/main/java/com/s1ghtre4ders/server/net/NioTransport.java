@@ -0,0 +1,216 @@
+package com.s1ghtre4ders.server.net;
+
+import com.s1ghtre4ders.server.log.Log;
+import com.s1ghtre4ders.server.protocol.FrameDecoder;
+import com.s1ghtre4ders.server.protocol.Message;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Non-blocking transport for one SocketChannel, owned by a single NioEventLoop.
+ *
+ * Reads are decoded incrementally by a FrameDecoder (text lines, or binary
+ * frames after negotiation), exactly as in blocking mode. Writes from any thread
+ * go into a bounded OutboundQueue; the loop copies everything queued into its
+ * shared write buffer and issues one write. A partial write parks the rest in
+ * a per-connection backlog until the socket is writable again.
+ */
+class NioTransport implements Transport {
+    private final NioEventLoop loop;
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final String remoteAddress;
+    private ConnectionHandler handler;
+
+    // Inbound framing (loop thread only)
+    private final FrameDecoder decoder = new FrameDecoder();
+
+    // Outbound (any thread -> loop thread)
+    private final OutboundQueue outbound;
+    private ByteBuffer backlog = null; // unwritten tail of the last flush, loop thread only
+    private Frame carry = null;         // polled but did not fit the last batch, loop thread only
+    private boolean binaryOut = false;  // loop thread only
+    private volatile boolean binaryQueued = false; // frames offered from now on will go out as binary
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private boolean disconnectFired = false;
+
+    NioTransport(NioEventLoop loop, SocketChannel channel, SelectionKey key, BackpressurePolicy policy) {
+        this.loop = loop;
+        this.outbound = new OutboundQueue(policy);
+        this.channel = channel;
+        this.key = key;
+        this.remoteAddress = String.valueOf(channel.socket().getInetAddress());
+    }
+
+    void bind(ConnectionHandler handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public void send(Message message) {
+        send(Frame.of(message));
+    }
+
+    @Override
+    public void send(Frame frame) {
+        if (closed.get()) {
+            return;
+        }
+        switch (outbound.offer(frame, binaryQueued)) {
+            case DROPPED:
+                return;
+            case REJECTED:
+                // Never close inline: the sender may hold a room lock, and the
+                // disconnect's cleanup takes the broadcast lock (see closeNow)
+                if (closed.compareAndSet(false, true)) {
+                    Log.warn("🐢 Slow consumer {} ({} frames, {} bytes queued), disconnecting",
+                            remoteAddress, outbound.size(), outbound.bytes());
+                    loop.execute(this::closeNow);
+                }
+                return;
+            default:
+                break;
+        }
+        if (outbound.tryClaimDrain()) {
+            loop.execute(() -> flush(loop.writeBuffer()));
+        }
+    }
+
+    @Override
+    public void switchToBinary(Message notice) {
+        decoder.switchToBinary();
+        send(Frame.protocolSwitch(notice));
+        binaryQueued = true;
+    }
+
+    @Override
+    public void close() {
+        if (loop.inLoop()) {
+            closeNow();
+        } else {
+            loop.execute(this::closeNow);
+        }
+    }
+
+    @Override
+    public String remoteAddress() {
+        return remoteAddress;
+    }
+
+    /**
+     * Read one buffer's worth and hand complete messages to the handler.
+     * Reading only once per wakeup lets queued flushes run before the next
+     * chunk, so a client that pipelines requests cannot fill its own queue.
+     */
+    void onReadable(ByteBuffer readBuffer) {
+        try {
+            readBuffer.clear();
+            int n = channel.read(readBuffer);
+            if (n == -1) {
+                closeNow();
+                return;
+            }
+            readBuffer.flip();
+            decoder.feed(readBuffer, message -> {
+                if (!closed.get()) {
+                    handler.onMessage(message);
+                }
+            });
+        } catch (IOException e) {
+            Log.info("❌ Client disconnected (read error)");
+            closeNow();
+        } catch (RuntimeException e) {
+            Log.error("❌ Handler error: " + e.getMessage(), e);
+            closeNow();
+        }
+    }
+
+    /**
+     * Drain queued writes, coalescing them through the loop's write buffer (loop thread only)
+     */
+    void flush(ByteBuffer writeBuffer) {
+        if (closed.get()) {
+            return;
+        }
+        try {
+            if (backlog != null) {
+                channel.write(backlog);
+                if (backlog.hasRemaining()) {
+                    return;
+                }
+                backlog = null;
+            }
+
+            do {
+                Frame frame;
+                while ((frame = nextFrame()) != null) {
+                    ByteBuffer batch = writeBuffer;
+                    batch.clear();
+                    byte[] bytes = frame.bytes(binaryOut);
+                    if (bytes.length > batch.remaining()) {
+                        // Frame larger than the shared buffer: write it on its own (read-only view of shared bytes)
+                        batch = ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+                        binaryOut |= frame.switchesToBinary();
+                    } else {
+                        do {
+                            batch.put(bytes);
+                            binaryOut |= frame.switchesToBinary();
+                            if ((frame = outbound.poll()) == null) {
+                                break;
+                            }
+                            bytes = frame.bytes(binaryOut);
+                        } while (bytes.length <= batch.remaining());
+                        carry = frame; // null, or the first frame of the next batch
+                        batch.flip();
+                    }
+                    channel.write(batch);
+                    if (batch.hasRemaining()) {
+                        // Socket buffer full: keep the tail and wait for OP_WRITE
+                        backlog = ByteBuffer.allocate(batch.remaining());
+                        backlog.put(batch).flip();
+                        key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                        return;
+                    }
+                }
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+            } while (outbound.releaseDrain());
+        } catch (IOException e) {
+            Log.info("❌ Client disconnected (write error)");
+            closeNow();
+        }
+    }
+
+    private Frame nextFrame() {
+        Frame frame = carry;
+        if (frame != null) {
+            carry = null;
+            return frame;
+        }
+        return outbound.poll();
+    }
+
+    /**
+     * Close the channel and notify the handler once (loop thread only).
+     * The handler's cleanup takes broadcast and room locks, so this must run
+     * from the loop itself, never from inside a send.
+     */
+    void closeNow() {
+        closed.set(true);
+        key.cancel();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+        outbound.clear();
+        carry = null;
+        if (!disconnectFired && handler != null) {
+            disconnectFired = true;
+            handler.onDisconnect();
+        }
+    }
+}
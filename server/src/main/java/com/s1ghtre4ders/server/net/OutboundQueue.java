@@ -0,0 +1,183 @@
+package com.s1ghtre4ders.server.net;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded multi-producer queue of encoded frames waiting to go out on one connection.
+ *
+ * Any thread may offer; exactly one drainer runs at a time (claimed with
+ * tryClaimDrain), takes everything that has piled up and writes it with a
+ * single flush, so bursts leave in as few packets as possible.
+ *
+ * Limits (frames, bytes, age of the oldest frame) and what happens when they
+ * are hit come from the shared BackpressurePolicy. Frames the policy throws
+ * away are only marked cancelled and skipped by the drainer, so collapsing a
+ * snapshot is O(1) and never races the writer.
+ */
+class OutboundQueue {
+    enum Offer {
+        QUEUED,
+        DROPPED,   // policy discarded the frame, the connection is fine
+        REJECTED   // still over a limit after every policy - disconnect
+    }
+
+    private static final int LIVE = 0;
+    private static final int TAKEN = 1;
+    private static final int CANCELLED = 2;
+
+    private final Queue<Entry> entries = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    private final BackpressurePolicy policy;
+    private volatile Entry lastSnapshot;
+
+    OutboundQueue(BackpressurePolicy policy) {
+        this.policy = policy;
+    }
+
+    /**
+     * @param binary wire format the frame will most likely be written in (sizes only)
+     */
+    Offer offer(Frame frame, boolean binary) {
+        int frameBytes = frame.bytes(binary).length;
+        if (frameBytes == 0) {
+            return Offer.DROPPED; // too large for the wire (see Frame), the connection is fine
+        }
+        Frame.Kind kind = frame.kind();
+
+        if (kind == Frame.Kind.SNAPSHOT && policy.collapseSnapshots) {
+            Entry stale = lastSnapshot;
+            if (stale != null && cancel(stale)) {
+                policy.snapshotCollapsed();
+            }
+        }
+
+        long now = System.nanoTime();
+        if (overLimit(frameBytes, now)) {
+            if (policy.dropChat) {
+                if (kind == Frame.Kind.CHAT) {
+                    policy.chatDropped(1);
+                    return Offer.DROPPED;
+                }
+                policy.chatDropped(purgeChat());
+            }
+            if (overLimit(frameBytes, now)) {
+                policy.disconnected();
+                return Offer.REJECTED;
+            }
+        }
+
+        Entry entry = new Entry(frame, frameBytes, now);
+        size.incrementAndGet();
+        bytes.addAndGet(frameBytes);
+        entries.add(entry);
+        if (kind == Frame.Kind.SNAPSHOT) {
+            lastSnapshot = entry;
+        }
+        return Offer.QUEUED;
+    }
+
+    /**
+     * Take the next live frame, skipping cancelled ones (drainer only)
+     */
+    Frame poll() {
+        Entry entry;
+        while ((entry = entries.poll()) != null) {
+            if (entry.state.compareAndSet(LIVE, TAKEN)) {
+                release(entry);
+                return entry.frame;
+            }
+        }
+        return null;
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    long bytes() {
+        return bytes.get();
+    }
+
+    void clear() {
+        while (poll() != null) {
+            // drop
+        }
+    }
+
+    /**
+     * Claim the drainer role; the caller must schedule a drain if this returns true
+     */
+    boolean tryClaimDrain() {
+        return draining.compareAndSet(false, true);
+    }
+
+    /**
+     * Give up the drainer role once empty.
+     * @return true if frames raced in meanwhile and the caller still owns the drain
+     */
+    boolean releaseDrain() {
+        draining.set(false);
+        return !entries.isEmpty() && draining.compareAndSet(false, true);
+    }
+
+    private boolean overLimit(int incomingBytes, long now) {
+        if (size.get() == 0) {
+            return false; // an oversized frame on an idle connection still goes out
+        }
+        if (size.get() + 1 > policy.maxFrames || bytes.get() + incomingBytes > policy.maxBytes) {
+            return true;
+        }
+        for (Entry entry : entries) {
+            if (entry.state.get() == LIVE) {
+                return now - entry.enqueuedAt > policy.maxAgeNanos;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Cancel every queued chat frame
+     * @return how many were cancelled
+     */
+    private int purgeChat() {
+        int purged = 0;
+        for (Entry entry : entries) {
+            if (entry.frame.kind() == Frame.Kind.CHAT && cancel(entry)) {
+                purged++;
+            }
+        }
+        return purged;
+    }
+
+    private boolean cancel(Entry entry) {
+        if (entry.state.compareAndSet(LIVE, CANCELLED)) {
+            release(entry);
+            return true;
+        }
+        return false;
+    }
+
+    private void release(Entry entry) {
+        size.decrementAndGet();
+        bytes.addAndGet(-entry.bytes);
+    }
+
+    private static final class Entry {
+        final Frame frame;
+        final int bytes;
+        final long enqueuedAt;
+        final AtomicInteger state = new AtomicInteger(LIVE);
+
+        Entry(Frame frame, int bytes, long enqueuedAt) {
+            this.frame = frame;
+            this.bytes = bytes;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.s1ghtre4ders.server.net;
+
+import com.s1ghtre4ders.server.log.Log;
+import com.s1ghtre4ders.server.protocol.FrameDecoder;
+import com.s1ghtre4ders.server.protocol.Message;
+
+import java.io.*;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Blocking thread-per-connection transport.
+ *
+ * run() blocks on the socket's input stream and feeds a FrameDecoder until
+ * the socket closes, so it needs a dedicated thread per client - either a
+ * platform thread or a virtual thread.
+ *
+ * Sending never touches the socket: frames go into a bounded OutboundQueue and
+ * a writer (a short-lived virtual thread) drains everything queued so far with
+ * one flush. A slow peer therefore only stalls its own writer, never the thread
+ * that is broadcasting; its queue then hits the BackpressurePolicy limits.
+ */
+public class SocketTransport implements Transport, Runnable {
+    private static final ExecutorService WRITERS = Executors.newVirtualThreadPerTaskExecutor();
+    private static final int READ_CHUNK = 8 * 1024;
+
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+    private final FrameDecoder decoder = new FrameDecoder();
+    private final OutboundQueue outbound;
+    private volatile boolean binaryOut = false; // touched only by the current drainer
+    private volatile boolean binaryQueued = false; // frames offered from now on will go out as binary
+    private volatile boolean closed = false;
+    private ConnectionHandler handler;
+
+    public SocketTransport(Socket socket, BackpressurePolicy backpressure) throws IOException {
+        this.socket = socket;
+        this.in = socket.getInputStream();
+        this.out = new BufferedOutputStream(socket.getOutputStream());
+        this.outbound = new OutboundQueue(backpressure);
+    }
+
+    /**
+     * Attach the handler before starting the reader thread
+     */
+    public void bind(ConnectionHandler handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public void run() {
+        byte[] chunk = new byte[READ_CHUNK];
+        try {
+            int n;
+            while ((n = in.read(chunk)) != -1) {
+                decoder.feed(ByteBuffer.wrap(chunk, 0, n), handler::onMessage);
+            }
+        } catch (IOException e) {
+            Log.info("❌ Client disconnected (read error)");
+        } finally {
+            handler.onDisconnect();
+        }
+    }
+
+    @Override
+    public void send(Message message) {
+        send(Frame.of(message));
+    }
+
+    @Override
+    public void send(Frame frame) {
+        if (closed) {
+            return;
+        }
+        switch (outbound.offer(frame, binaryQueued)) {
+            case DROPPED:
+                return;
+            case REJECTED:
+                Log.warn("🐢 Slow consumer {} ({} frames, {} bytes queued), disconnecting",
+                        remoteAddress(), outbound.size(), outbound.bytes());
+                close();
+                return;
+            default:
+                break;
+        }
+        if (outbound.tryClaimDrain()) {
+            WRITERS.execute(this::drain);
+        }
+    }
+
+    @Override
+    public void switchToBinary(Message notice) {
+        decoder.switchToBinary();
+        send(Frame.protocolSwitch(notice));
+        binaryQueued = true;
+    }
+
+    /**
+     * Writer: coalesce everything queued into one flush, repeat until empty
+     */
+    private void drain() {
+        try {
+            do {
+                Frame frame;
+                while ((frame = outbound.poll()) != null) {
+                    out.write(frame.bytes(binaryOut));
+                    if (frame.switchesToBinary()) {
+                        binaryOut = true;
+                    }
+                }
+                out.flush();
+            } while (outbound.releaseDrain());
+        } catch (IOException e) {
+            // Reader side notices the broken socket and cleans up
+            outbound.clear();
+            close();
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+
+    @Override
+    public String remoteAddress() {
+        return String.valueOf(socket.getInetAddress());
+    }
+}
@@ -0,0 +1,39 @@
+package com.s1ghtre4ders.server.net;
+
+import com.s1ghtre4ders.server.protocol.Message;
+
+/**
+ * Outbound side of one client connection.
+ *
+ * Implementations must be safe to call from any thread: lobby broadcasts,
+ * other clients' handlers and duel scheduler threads all send through here.
+ */
+public interface Transport {
+    /**
+     * Queue one message for this client, in whatever wire format it speaks
+     */
+    void send(Message message);
+
+    /**
+     * Queue a frame; the frame may be shared with other connections
+     */
+    void send(Frame frame);
+
+    /**
+     * Switch this connection to binary framing. Must be called from the handler's
+     * onMessage: inbound bytes after the current message are decoded as binary,
+     * and outbound frames are binary from the first one queued after notice
+     * (which itself still goes out as text).
+     */
+    void switchToBinary(Message notice);
+
+    /**
+     * Close the connection; the handler's onDisconnect still fires once
+     */
+    void close();
+
+    /**
+     * Remote address, for logging
+     */
+    String remoteAddress();
+}
@@ -0,0 +1,89 @@
+package com.s1ghtre4ders.server.protocol;
+
+import com.s1ghtre4ders.server.metrics.Histogram;
+import com.s1ghtre4ders.server.metrics.Metrics;
+
+import java.util.Arrays;
+
+/**
+ * Command -> handler table, indexed by opcode, with per-command counters.
+ *
+ * The command is parsed once by the codec; dispatch is a single array lookup
+ * instead of a chain of comparisons. Every dispatch records a call count and
+ * the time spent in the handler in a per-command Histogram (registered in
+ * Metrics under the name given to the constructor, labelled by command), so
+ * report() and the metrics endpoint show which commands dominate CPU.
+ * Register everything up front; dispatch is then safe from any thread.
+ *
+ * @param <C> whatever the handlers act on (e.g. the client connection)
+ */
+public final class CommandDispatcher<C> {
+    @FunctionalInterface
+    public interface Handler<C> {
+        void handle(C context, Message message);
+    }
+
+    private final String metricName;
+    private final Handler<C>[] handlers;
+    private final Histogram[] stats;
+
+    /**
+     * @param metricName histogram name for handler times, e.g. lobby_command_seconds
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public CommandDispatcher(String metricName) {
+        this.metricName = metricName;
+        this.handlers = (Handler<C>[]) new Handler[256];
+        this.stats = new Histogram[256];
+    }
+
+    public CommandDispatcher<C> on(Command command, Handler<C> handler) {
+        int slot = command.opcode & 0xFF;
+        handlers[slot] = handler;
+        stats[slot] = Metrics.histogram(metricName, "Time spent handling each command", "command", command.name());
+        return this;
+    }
+
+    /**
+     * @return false if no handler is registered for the message's command
+     */
+    public boolean dispatch(C context, Message message) {
+        int slot = message.command.opcode & 0xFF;
+        Handler<C> handler = handlers[slot];
+        if (handler == null) {
+            return false;
+        }
+        long start = System.nanoTime();
+        try {
+            handler.handle(context, message);
+        } finally {
+            stats[slot].record(System.nanoTime() - start);
+        }
+        return true;
+    }
+
+    /**
+     * One line per command that has been dispatched at least once, busiest (by total time) first
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        Command[] commands = Command.values();
+        Arrays.sort(commands, (a, b) -> Long.compare(totalNanos(b), totalNanos(a)));
+        for (Command command : commands) {
+            Histogram s = stats[command.opcode & 0xFF];
+            long count = s != null ? s.count() : 0;
+            if (count == 0) {
+                continue;
+            }
+            long total = s.sumNanos();
+            sb.append(String.format("  %-15s n=%-8d total=%.1fms avg=%.1fus p99=%.1fus max=%.1fus%n",
+                    command, count, total / 1e6, total / 1e3 / count, s.percentileNanos(0.99) / 1e3, s.maxNanos() / 1e3));
+        }
+        return sb.toString();
+    }
+
+    private long totalNanos(Command command) {
+        Histogram s = stats[command.opcode & 0xFF];
+        return s != null ? s.sumNanos() : 0;
+    }
+}
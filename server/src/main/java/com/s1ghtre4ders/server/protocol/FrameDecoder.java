@@ -0,0 +1,99 @@
+package com.s1ghtre4ders.server.protocol;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Incremental inbound decoder for one connection.
+ *
+ * Starts in text mode (newline-terminated lines, CRLF tolerated). Once the
+ * handler calls switchToBinary() - from inside the sink, while handling
+ * PROTO_ACCEPT - every following byte is read as binary frames, including
+ * bytes that arrived in the same chunk.
+ *
+ * Clients only ever send short commands, so a line or frame body longer than
+ * MAX_INBOUND_BYTES is refused (IOException) before any buffer grows to it.
+ */
+public final class FrameDecoder {
+    static final int MAX_INBOUND_BYTES = 64 * 1024;
+
+    private boolean binary = false;
+    private byte[] buffer = new byte[256];
+    private int length = 0;
+    private int frameLength = -1; // binary mode: body length once the prefix is read
+
+    public void switchToBinary() {
+        binary = true;
+        length = 0;
+        frameLength = -1;
+    }
+
+    public boolean isBinary() {
+        return binary;
+    }
+
+    /**
+     * Consume all of src, delivering each complete message to sink in order
+     */
+    public void feed(ByteBuffer src, Consumer<Message> sink) throws IOException {
+        while (src.hasRemaining()) {
+            if (binary) {
+                feedBinary(src, sink);
+            } else {
+                byte b = src.get();
+                if (b == '\n') {
+                    int end = length > 0 && buffer[length - 1] == '\r' ? length - 1 : length;
+                    String line = new String(buffer, 0, end, StandardCharsets.UTF_8);
+                    length = 0;
+                    sink.accept(TextCodec.decode(line));
+                } else {
+                    append(b, MAX_INBOUND_BYTES);
+                }
+            }
+        }
+    }
+
+    private void feedBinary(ByteBuffer src, Consumer<Message> sink) throws IOException {
+        if (frameLength < 0) {
+            append(src.get(), 4);
+            if (length == 4) {
+                int announced = BinaryCodec.getInt(buffer, 0);
+                if (announced < 0 || announced > MAX_INBOUND_BYTES) {
+                    throw new IOException("inbound frame of " + (announced & 0xFFFFFFFFL) + " bytes exceeds "
+                            + MAX_INBOUND_BYTES);
+                }
+                frameLength = announced;
+                length = 0;
+                ensureCapacity(frameLength);
+            }
+            return;
+        }
+
+        int take = Math.min(frameLength - length, src.remaining());
+        src.get(buffer, length, take);
+        length += take;
+        if (length == frameLength) {
+            Message message = BinaryCodec.decode(buffer, 0, frameLength);
+            length = 0;
+            frameLength = -1;
+            sink.accept(message);
+        }
+    }
+
+    private void append(byte b, int limit) throws IOException {
+        if (length == limit) {
+            throw new IOException("inbound frame exceeds " + limit + " bytes");
+        }
+        ensureCapacity(length + 1);
+        buffer[length++] = b;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(needed, Math.min(buffer.length * 2, MAX_INBOUND_BYTES)));
+        }
+    }
+}
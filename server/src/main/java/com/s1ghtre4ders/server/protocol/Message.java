@@ -0,0 +1,42 @@
+package com.s1ghtre4ders.server.protocol;
+
+/**
+ * One parsed protocol message: a command plus its string fields.
+ *
+ * Both codecs produce and consume this, so handlers never care whether a
+ * client speaks text or binary.
+ */
+public final class Message {
+    private static final String[] NO_ARGS = new String[0];
+
+    public final Command command;
+    private final String[] args;
+
+    private Message(Command command, String[] args) {
+        this.command = command;
+        this.args = args;
+    }
+
+    public static Message of(Command command, String... args) {
+        return new Message(command, args.length == 0 ? NO_ARGS : args);
+    }
+
+    public int argCount() {
+        return args.length;
+    }
+
+    /**
+     * @return field i, or "" if the sender left it out
+     */
+    public String arg(int i) {
+        return i < args.length ? args[i] : "";
+    }
+
+    /**
+     * Text form, e.g. CHAT:alice:hi
+     */
+    @Override
+    public String toString() {
+        return TextCodec.encode(this);
+    }
+}
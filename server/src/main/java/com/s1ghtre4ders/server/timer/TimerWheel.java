@@ -0,0 +1,234 @@
+package com.s1ghtre4ders.server.timer;
+
+import com.s1ghtre4ders.server.log.Log;
+import com.s1ghtre4ders.server.metrics.Histogram;
+import com.s1ghtre4ders.server.metrics.Metrics;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * S1ghtRe4ders Timer Wheel
+ *
+ * Hashed timing wheel: a ring of buckets turned by one daemon thread, each
+ * bucket a linked list of timeouts. A timeout lands in bucket
+ * (deadline / tick) mod size and carries the number of full turns still to go,
+ * so each tick only looks at one bucket no matter how many timers exist.
+ *
+ * schedule() and Timeout.cancel() are O(1) from any thread: both just hand
+ * the timeout to the wheel thread through a lock-free queue. A cancelled
+ * timeout is unlinked on the next tick instead of lingering until its deadline,
+ * which is what makes this cheaper than one ScheduledExecutorService task per
+ * connection or per duel.
+ *
+ * Timeouts fire on the wheel thread with tick granularity (they may be up to
+ * one tick late, never early). Tasks must be short and must not block. How
+ * late each one actually fired is recorded in timer_fire_lag_seconds{wheel}.
+ */
+public final class TimerWheel {
+    private final String name;
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final long startNanos = System.nanoTime();
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Histogram fireLag;
+    private volatile boolean running;
+    private long tick; // wheel thread only
+
+    /**
+     * @param tickMs  resolution of every timeout on this wheel
+     * @param buckets rounded up to a power of two; one turn covers buckets * tickMs
+     */
+    public TimerWheel(String name, long tickMs, int buckets) {
+        this.name = name;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, tickMs));
+        int size = Integer.highestOneBit(Math.max(1, buckets - 1)) << 1;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.fireLag = Metrics.histogram("timer_fire_lag_seconds",
+                "How long after its deadline a timeout fired", "wheel", name);
+    }
+
+    public void start() {
+        running = true;
+        Thread worker = new Thread(this::run, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Stop turning; timeouts still pending never fire
+     */
+    public void stop() {
+        running = false;
+    }
+
+    /**
+     * Run task on the wheel thread once delay has passed
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        Timeout timeout = new Timeout(this, task, System.nanoTime() + unit.toNanos(delay));
+        pending.incrementAndGet();
+        added.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Timeouts scheduled that have neither fired nor been cancelled
+     */
+    public int pending() {
+        return pending.get();
+    }
+
+    private void run() {
+        while (running) {
+            long tickDeadline = startNanos + (tick + 1) * tickNanos;
+            long sleep = tickDeadline - System.nanoTime();
+            if (sleep > 0) {
+                LockSupport.parkNanos(this, sleep);
+                continue; // parkNanos may return early
+            }
+
+            unlinkCancelled();
+            transferAdded();
+            wheel[(int) (tick & mask)].expire(tickDeadline);
+            tick++;
+        }
+    }
+
+    private void transferAdded() {
+        Timeout timeout;
+        while ((timeout = added.poll()) != null) {
+            if (timeout.state.get() != Timeout.WAITING) {
+                continue; // cancelled before it ever reached a bucket
+            }
+            long due = Math.max((timeout.deadline - startNanos + tickNanos - 1) / tickNanos - 1, tick);
+            timeout.rounds = (due - tick) / wheel.length;
+            wheel[(int) (due & mask)].add(timeout);
+        }
+    }
+
+    private void unlinkCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    /**
+     * A scheduled task; cancel() it if it is no longer needed
+     */
+    public static final class Timeout {
+        private static final int WAITING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final TimerWheel wheel;
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        private long rounds;
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(TimerWheel wheel, Runnable task, long deadline) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * @return false if it already fired (or was already cancelled)
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(WAITING, CANCELLED)) {
+                return false;
+            }
+            wheel.pending.decrementAndGet();
+            wheel.cancelled.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+
+        private void fire() {
+            if (!state.compareAndSet(WAITING, EXPIRED)) {
+                return;
+            }
+            wheel.pending.decrementAndGet();
+            wheel.fireLag.record(System.nanoTime() - deadline);
+            try {
+                task.run();
+            } catch (Throwable e) {
+                Log.error("❌ Timer task failed on " + wheel.name, e);
+            }
+        }
+    }
+
+    /**
+     * Doubly-linked list of timeouts, touched by the wheel thread only
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void expire(long tickDeadline) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.rounds <= 0 && timeout.deadline <= tickDeadline) {
+                    remove(timeout);
+                    timeout.fire();
+                } else {
+                    timeout.rounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            } else {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+}
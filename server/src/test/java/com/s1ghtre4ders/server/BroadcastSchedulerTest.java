@@ -0,0 +1,58 @@
+package com.s1ghtre4ders.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BroadcastSchedulerTest {
+
+    @Test
+    void exclusiveDoesNotWaitForAFanOut() throws Exception {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Thread> sent = new CopyOnWriteArrayList<>();
+        BroadcastScheduler scheduler = new BroadcastScheduler(frame -> {
+            if (sent.isEmpty()) {
+                sending.countDown();
+                await(release);
+            }
+            sent.add(Thread.currentThread());
+        }, (room, frame) -> fail("no rooms here"), 50);
+
+        scheduler.announce("first");
+        Thread slowTick = new Thread(scheduler::flush);
+        slowTick.start();
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+
+        CountDownLatch ran = new CountDownLatch(1);
+        Thread mover = new Thread(() -> scheduler.exclusive(ran::countDown));
+        mover.start();
+        assertTrue(ran.await(5, TimeUnit.SECONDS), "exclusive() blocked behind the fan-out");
+
+        // The next tick drains its batch but sends it only after the first one
+        scheduler.announce("second");
+        Thread nextTick = new Thread(scheduler::flush);
+        nextTick.start();
+        nextTick.join(200);
+        assertTrue(nextTick.isAlive());
+        assertTrue(sent.isEmpty());
+
+        release.countDown();
+        slowTick.join(5_000);
+        nextTick.join(5_000);
+        assertEquals(List.of(slowTick, nextTick), sent);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
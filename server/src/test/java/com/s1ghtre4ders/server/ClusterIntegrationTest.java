@@ -0,0 +1,122 @@
+package com.s1ghtre4ders.server;
+
+import com.s1ghtre4ders.client.net.Command;
+import com.s1ghtre4ders.client.net.Message;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Three lobby nodes in one JVM, one player on each
+ */
+class ClusterIntegrationTest {
+    private static TestClient alice; // node 1
+    private static TestClient bob;   // node 2
+    private static TestClient carol; // node 3
+    private static LobbyNode[] nodes;
+
+    @BeforeAll
+    static void startCluster() throws Exception {
+        int[] clusterPorts = {LobbyNode.freePort(), LobbyNode.freePort(), LobbyNode.freePort()};
+        nodes = new LobbyNode[3];
+        for (int i = 0; i < 3; i++) {
+            StringBuilder peers = new StringBuilder();
+            for (int j = 0; j < 3; j++) {
+                if (j != i) {
+                    peers.append(peers.isEmpty() ? "" : ",").append("n").append(j + 1)
+                            .append("@127.0.0.1:").append(clusterPorts[j]);
+                }
+            }
+            nodes[i] = LobbyNode.start("--nodeId=n" + (i + 1), "--clusterPort=" + clusterPorts[i], "--peers=" + peers);
+        }
+        alice = nodes[0].connect(true).login("cl-alice");
+        bob = nodes[1].connect(false).login("cl-bob");
+        carol = nodes[2].connect(true).login("cl-carol");
+
+        // Presence crosses the cluster: everyone ends up seeing everyone
+        awaitPresence(alice, "cl-bob");
+        awaitPresence(alice, "cl-carol");
+        awaitPresence(bob, "cl-alice");
+        awaitPresence(bob, "cl-carol");
+        awaitPresence(carol, "cl-alice");
+        awaitPresence(carol, "cl-bob");
+    }
+
+    @AfterAll
+    static void disconnect() throws IOException {
+        for (TestClient client : new TestClient[] {alice, bob, carol}) {
+            if (client != null) {
+                client.close();
+            }
+        }
+    }
+
+    /**
+     * Wait until client's presence view (delta or snapshot) lists name
+     */
+    private static void awaitPresence(TestClient client, String name) {
+        client.await(m -> (m.command == Command.PLAYER_JOIN && m.arg(1).equals(name))
+                || (m.command == Command.PLAYER_LIST && m.arg(0).contains(";" + name + ",")), name + " in presence");
+    }
+
+    @Test
+    void statusChangesReachEveryNode() throws Exception {
+        carol.send(Command.SET_DND, "ON");
+        for (TestClient other : new TestClient[] {alice, bob}) {
+            other.await(Command.PLAYER_STATUS, m -> m.arg(1).equals("cl-carol") && m.arg(2).equals("LOBBY_DND"));
+        }
+    }
+
+    @Test
+    void chatReachesEveryNode() throws Exception {
+        alice.send(Command.CHAT, "hello from n1: anyone?");
+        assertEquals("hello from n1: anyone?", bob.await(Command.CHAT, m -> m.arg(0).equals("cl-alice")).arg(1));
+        assertEquals("hello from n1: anyone?", carol.await(Command.CHAT, m -> m.arg(0).equals("cl-alice")).arg(1));
+    }
+
+    @Test
+    void duelIsRelayedBetweenNodes() throws Exception {
+        alice.send(Command.DUEL_REQUEST, "cl-bob");
+        bob.await(Command.DUEL_REQUESTED, m -> m.arg(0).equals("cl-alice"));
+        bob.send(Command.DUEL_ACCEPT, "cl-alice");
+
+        String duelId = alice.await(Command.DUEL_START).arg(0);
+        assertEquals(duelId, bob.await(Command.DUEL_START).arg(0));
+
+        boolean aliceAttacks = "true".equals(alice.await(Command.TURN_CHANGE).arg(0));
+        assertEquals(aliceAttacks, "false".equals(bob.await(Command.TURN_CHANGE).arg(0)));
+        TestClient attacker = aliceAttacks ? alice : bob;
+        TestClient defender = aliceAttacks ? bob : alice;
+        String defenderName = aliceAttacks ? "cl-bob" : "cl-alice";
+
+        // One of the two inputs comes from the remote duelist, forwarded as DUEL_ACTION
+        attacker.send(Command.ATTACK);
+        defender.await(Command.QTE_START);
+        defender.send(Command.QTE_RESULT, "MISS");
+        for (TestClient duelist : new TestClient[] {alice, bob}) {
+            Message hp = duelist.await(Command.HP_UPDATE, m -> m.arg(0).equals(defenderName));
+            assertTrue(Integer.parseInt(hp.arg(1)) < 100, hp.toString());
+        }
+    }
+
+    @Test
+    void remoteDuelistIsFreedWhenTheHostSideLeaves() throws Exception {
+        try (TestClient dave = nodes[0].connect(false).login("cl-dave")) {
+            try (TestClient erin = nodes[1].connect(true).login("cl-erin")) {
+                awaitPresence(dave, "cl-erin");
+                awaitPresence(erin, "cl-dave");
+                dave.send(Command.DUEL_REQUEST, "cl-erin");
+                erin.await(Command.DUEL_REQUESTED, m -> m.arg(0).equals("cl-dave"));
+                erin.send(Command.DUEL_ACCEPT, "cl-dave"); // erin's node hosts the duel
+                dave.await(Command.DUEL_START);
+            }
+            assertEquals("WIN", dave.await(Command.DUEL_END).arg(0));
+            dave.send(Command.JOIN_ROOM, "cl-after");
+            dave.await(Command.ROOM_JOINED, m -> m.arg(0).equals("cl-after"));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.s1ghtre4ders.server;
+
+import com.s1ghtre4ders.client.net.Command;
+import com.s1ghtre4ders.client.net.Message;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.RepetitionInfo;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DuelChallengeTest {
+    private static LobbyNode server;
+
+    @BeforeAll
+    static void startServer() throws Exception {
+        server = LobbyNode.start();
+    }
+
+    @RepeatedTest(5)
+    void twoAcceptsForOneChallengerStartOneDuel(RepetitionInfo repetition) throws Exception {
+        String n = Integer.toString(repetition.getCurrentRepetition());
+        try (TestClient alice = server.connect(false).login("ch-alice" + n);
+             TestClient bob = server.connect(false).login("ch-bob" + n);
+             TestClient carol = server.connect(false).login("ch-carol" + n);
+             TestClient dave = server.connect(false).login("ch-dave" + n)) {
+            alice.send(Command.DUEL_REQUEST, "ch-bob" + n);
+            alice.send(Command.DUEL_REQUEST, "ch-carol" + n);
+            dave.send(Command.DUEL_REQUEST, "ch-alice" + n);
+            bob.await(Command.DUEL_REQUESTED);
+            carol.await(Command.DUEL_REQUESTED);
+            alice.await(Command.DUEL_REQUESTED);
+
+            bob.send(Command.DUEL_ACCEPT, "ch-alice" + n);
+            carol.send(Command.DUEL_ACCEPT, "ch-alice" + n);
+            Message bobAnswer = bob.await(m -> m.command == Command.DUEL_START || m.command == Command.ERROR, "answer");
+            Message carolAnswer = carol.await(m -> m.command == Command.DUEL_START || m.command == Command.ERROR, "answer");
+            assertTrue(bobAnswer.command == Command.DUEL_START ^ carolAnswer.command == Command.DUEL_START,
+                    "exactly one accept wins: " + bobAnswer + " / " + carolAnswer);
+
+            // dave's challenge to alice is withdrawn once her duel starts
+            assertEquals("ch-alice" + n, dave.await(Command.DUEL_EXPIRED).arg(0));
+
+            // The duel opens for alice before the winner, so her chat echo comes after its DUEL_START
+            alice.send(Command.CHAT, "sync");
+            alice.await(Command.CHAT, m -> m.arg(0).equals("ch-alice" + n)); // not a line from the room's history
+            assertNotNull(alice.poll(Command.DUEL_START));
+            assertNull(alice.poll(Command.DUEL_START), "alice started a second duel");
+        }
+    }
+
+    @Test
+    void challengeToAPlayerWhoLeavesExpires() throws Exception {
+        try (TestClient erin = server.connect(false).login("ch-erin")) {
+            try (TestClient frank = server.connect(false).login("ch-frank")) {
+                erin.await(Command.PLAYER_JOIN, m -> m.arg(1).equals("ch-frank"));
+                erin.send(Command.DUEL_REQUEST, "ch-frank");
+                frank.await(Command.DUEL_REQUESTED);
+            }
+            assertEquals("ch-frank", erin.await(Command.DUEL_EXPIRED).arg(0));
+        }
+    }
+
+    @Test
+    void opponentOfADuelistWhoLeavesIsFreeAgain() throws Exception {
+        try (TestClient gina = server.connect(false).login("ch-gina");
+             TestClient ivan = server.connect(false).login("ch-ivan")) {
+            try (TestClient hank = server.connect(false).login("ch-hank")) {
+                gina.await(Command.PLAYER_JOIN, m -> m.arg(1).equals("ch-hank"));
+                gina.send(Command.DUEL_REQUEST, "ch-hank");
+                hank.await(Command.DUEL_REQUESTED);
+                hank.send(Command.DUEL_ACCEPT, "ch-gina");
+                gina.await(Command.DUEL_START);
+            }
+            assertEquals("WIN", gina.await(Command.DUEL_END).arg(0));
+
+            gina.send(Command.JOIN_ROOM, "ch-rematch");
+            gina.await(Command.ROOM_JOINED, m -> m.arg(0).equals("ch-rematch"));
+            ivan.send(Command.JOIN_ROOM, "ch-rematch");
+            ivan.await(Command.ROOM_JOINED, m -> m.arg(0).equals("ch-rematch"));
+            gina.await(Command.PLAYER_JOIN, m -> m.arg(1).equals("ch-ivan"));
+
+            ivan.send(Command.DUEL_REQUEST, "ch-gina");
+            gina.await(Command.DUEL_REQUESTED);
+            gina.send(Command.DUEL_ACCEPT, "ch-ivan");
+            gina.await(Command.DUEL_START);
+            ivan.await(Command.DUEL_START);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.s1ghtre4ders.server;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A LobbyServer running inside the test JVM.
+ *
+ * The server keeps its state in statics, so each node loads the server
+ * classes through a class loader of its own: nodes share nothing but the
+ * JVM and the working directory. Nodes run until the test JVM exits.
+ */
+final class LobbyNode {
+    private static final long STARTUP_TIMEOUT_SEC = 15;
+
+    final int port;
+
+    private LobbyNode(int port) {
+        this.port = port;
+    }
+
+    /**
+     * Start a node on a free port and wait until it accepts connections
+     * @param args extra --key=value settings
+     */
+    static LobbyNode start(String... args) throws Exception {
+        return start(freePort(), args);
+    }
+
+    static LobbyNode start(int port, String... args) throws Exception {
+        List<String> all = new ArrayList<>(List.of(
+                "--port=" + port,
+                "--metricsPort=0",
+                "--commandStatsSec=0",
+                "--logLevel=WARN"));
+        all.addAll(Arrays.asList(args));
+
+        URL classes = LobbyServer.class.getProtectionDomain().getCodeSource().getLocation();
+        ClassLoader loader = new URLClassLoader("lobby-node-" + port, new URL[] {classes},
+                ClassLoader.getPlatformClassLoader());
+        Method main = loader.loadClass(LobbyServer.class.getName()).getMethod("main", String[].class);
+        Thread thread = new Thread(() -> {
+            try {
+                main.invoke(null, (Object) all.toArray(new String[0]));
+            } catch (ReflectiveOperationException e) {
+                e.printStackTrace();
+            }
+        }, "lobby-node-" + port);
+        thread.setDaemon(true);
+        thread.setContextClassLoader(loader);
+        thread.start();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(STARTUP_TIMEOUT_SEC);
+        while (true) {
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress("127.0.0.1", port), 1_000);
+                return new LobbyNode(port);
+            } catch (IOException e) {
+                if (!thread.isAlive() || System.nanoTime() > deadline) {
+                    throw new IllegalStateException("lobby node did not listen on " + port, e);
+                }
+                TimeUnit.MILLISECONDS.sleep(50);
+            }
+        }
+    }
+
+    TestClient connect(boolean acceptBinary) throws IOException {
+        return TestClient.connect(port, acceptBinary);
+    }
+
+    static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
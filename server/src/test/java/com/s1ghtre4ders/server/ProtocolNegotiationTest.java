@@ -0,0 +1,64 @@
+package com.s1ghtre4ders.server;
+
+import com.s1ghtre4ders.client.net.Command;
+import com.s1ghtre4ders.client.net.Message;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProtocolNegotiationTest {
+    private static LobbyNode server;
+    private static LobbyNode textOnly;
+
+    @BeforeAll
+    static void startServers() throws Exception {
+        server = LobbyNode.start();
+        textOnly = LobbyNode.start("--binaryProtocol=false");
+    }
+
+    @Test
+    void acceptingTheOfferSwitchesBothDirectionsToBinary() throws Exception {
+        try (TestClient alice = server.connect(true).login("neg-alice")) {
+            assertEquals("2", alice.await(Command.PROTO_OFFER).arg(0));
+            assertEquals("2", alice.await(Command.PROTO_SWITCH).arg(0));
+            assertTrue(alice.binaryOut());
+
+            // A newline inside a field only survives binary framing, in and out
+            alice.send(Command.CHAT, "two\nlines: one message");
+            Message chat = alice.await(Command.CHAT, m -> m.arg(0).equals("neg-alice"));
+            assertEquals("two\nlines: one message", chat.arg(1));
+        }
+    }
+
+    @Test
+    void clientsIgnoringTheOfferStayOnText() throws Exception {
+        try (TestClient bob = server.connect(false).login("neg-bob")) {
+            bob.await(Command.PROTO_OFFER);
+            assertFalse(bob.binaryOut());
+
+            bob.send(Command.CHAT, "still text: fine");
+            assertEquals("still text: fine", bob.await(Command.CHAT, m -> m.arg(0).equals("neg-bob")).arg(1));
+        }
+    }
+
+    @Test
+    void textAndBinaryClientsSeeTheSameChat() throws Exception {
+        try (TestClient carol = server.connect(true).login("neg-carol");
+             TestClient dave = server.connect(false).login("neg-dave")) {
+            carol.await(Command.PROTO_SWITCH);
+            dave.await(Command.PLAYER_LIST);
+            carol.send(Command.CHAT, "hello dave");
+            assertEquals("hello dave", dave.await(Command.CHAT, m -> m.arg(0).equals("neg-carol")).arg(1));
+        }
+    }
+
+    @Test
+    void noOfferWhenBinaryIsOff() throws Exception {
+        try (TestClient erin = textOnly.connect(true).login("neg-erin")) {
+            erin.send(Command.CHAT, "anyone?");
+            erin.await(Command.CHAT, m -> m.arg(0).equals("neg-erin"));
+            assertFalse(erin.binaryOut());
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.s1ghtre4ders.server;
+
+import com.s1ghtre4ders.client.net.Command;
+import com.s1ghtre4ders.client.net.Message;
+import com.s1ghtre4ders.client.net.ServerConnection;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * A player for integration tests, speaking through the real client ServerConnection.
+ *
+ * A reader thread answers PING, takes PROTO_OFFER if asked to, and keeps
+ * everything it reads (those included) for await(), which takes the oldest
+ * match whatever arrived before it: tests need not know how messages from
+ * different threads interleave.
+ */
+final class TestClient implements Closeable {
+    private static final long AWAIT_SEC = 10;
+
+    private final ServerConnection connection;
+    private final List<Message> inbox = new LinkedList<>(); // guarded by itself
+    private volatile boolean binaryOut;
+
+    private TestClient(ServerConnection connection) {
+        this.connection = connection;
+    }
+
+    static TestClient connect(int port, boolean acceptBinary) throws IOException {
+        Socket socket = new Socket();
+        socket.connect(new InetSocketAddress("127.0.0.1", port), 5_000);
+        socket.setTcpNoDelay(true);
+        TestClient client = new TestClient(new ServerConnection(socket));
+        Thread reader = new Thread(() -> client.read(acceptBinary), "test-client-" + port);
+        reader.setDaemon(true);
+        reader.start();
+        return client;
+    }
+
+    /**
+     * Register name (password "secret") and log in
+     */
+    TestClient login(String name) throws IOException {
+        send(Command.REGISTER, name, "secret");
+        await(Command.REGISTER_OK);
+        send(Command.LOGIN, name, "secret");
+        await(Command.LOGIN_OK);
+        return this;
+    }
+
+    void send(Command command, String... args) throws IOException {
+        connection.send(Message.of(command, args));
+    }
+
+    boolean binaryOut() {
+        return binaryOut;
+    }
+
+    Message await(Command command) {
+        return await(command, message -> true);
+    }
+
+    Message await(Command command, Predicate<Message> match) {
+        return await(message -> message.command == command && match.test(message), command.name());
+    }
+
+    /**
+     * Take the oldest message that matches, waiting for it if needed
+     * @param what names the message in the failure
+     */
+    Message await(Predicate<Message> match, String what) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(AWAIT_SEC);
+        synchronized (inbox) {
+            while (true) {
+                for (Iterator<Message> it = inbox.iterator(); it.hasNext(); ) {
+                    Message message = it.next();
+                    if (match.test(message)) {
+                        it.remove();
+                        return message;
+                    }
+                }
+                long left = deadline - System.nanoTime();
+                if (left <= 0) {
+                    return fail("no " + what + " within " + AWAIT_SEC + "s");
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(inbox, left);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return fail("interrupted waiting for " + what);
+                }
+            }
+        }
+    }
+
+    /**
+     * Take the oldest message of that kind already received, without waiting
+     * @return null if there is none
+     */
+    Message poll(Command command) {
+        synchronized (inbox) {
+            for (Iterator<Message> it = inbox.iterator(); it.hasNext(); ) {
+                Message message = it.next();
+                if (message.command == command) {
+                    it.remove();
+                    return message;
+                }
+            }
+            return null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        connection.close();
+    }
+
+    private void read(boolean acceptBinary) {
+        try {
+            Message message;
+            while ((message = connection.read()) != null) {
+                if (message.command == Command.PING) {
+                    connection.sendQuietly(Message.of(Command.PONG, message.arg(0)));
+                } else if (message.command == Command.PROTO_OFFER && acceptBinary) {
+                    binaryOut = connection.acceptOffer(message);
+                }
+                synchronized (inbox) {
+                    inbox.add(message);
+                    inbox.notifyAll();
+                }
+            }
+        } catch (IOException e) {
+            // closed
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.s1ghtre4ders.server.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClusterBusTest {
+    private static final long AWAIT_MS = 10_000;
+
+    /**
+     * Everything a bus hands its listener, as "from:TYPE[fields]" / "up:node"
+     */
+    private static final class Recorder implements ClusterBus.Listener {
+        final List<String> events = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onMessage(String fromNode, ClusterMessage message) {
+            events.add(fromNode + ":" + message);
+        }
+
+        @Override
+        public void onPeerUp(String nodeId) {
+            events.add("up:" + nodeId);
+        }
+
+        @Override
+        public void onPeerDown(String nodeId) {
+            events.add("down:" + nodeId);
+        }
+
+        void await(String event) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + AWAIT_MS;
+            while (!events.contains(event)) {
+                assertTrue(System.currentTimeMillis() < deadline, "no " + event + " in " + events);
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+        }
+    }
+
+    @Test
+    void threeNodesReachEachOther() throws Exception {
+        int[] ports = {freePort(), freePort(), freePort()};
+        String[] ids = {"a", "b", "c"};
+        ClusterBus[] buses = new ClusterBus[3];
+        Recorder[] recorders = new Recorder[3];
+        for (int i = 0; i < 3; i++) {
+            Map<String, InetSocketAddress> peers = new LinkedHashMap<>();
+            for (int j = 0; j < 3; j++) {
+                if (j != i) {
+                    peers.put(ids[j], new InetSocketAddress("127.0.0.1", ports[j]));
+                }
+            }
+            buses[i] = new ClusterBus(ids[i], ports[i], peers);
+            recorders[i] = new Recorder();
+            buses[i].start(recorders[i]);
+        }
+
+        buses[0].broadcast(ClusterMessage.of(ClusterMessage.Type.ANNOUNCE, "", "hello"));
+        recorders[1].await("a:ANNOUNCE[, hello]");
+        recorders[2].await("a:ANNOUNCE[, hello]");
+
+        buses[2].send("b", ClusterMessage.of(ClusterMessage.Type.DUEL_ABORT, "duel-1"));
+        recorders[1].await("c:DUEL_ABORT[duel-1]");
+        assertFalse(recorders[0].events.contains("c:DUEL_ABORT[duel-1]"));
+    }
+
+    @Test
+    void queuedMessagesOutliveThePeerBeingDownButPresenceDoesNot() throws Exception {
+        int alonePort = freePort();
+        int latePort = freePort();
+        ClusterBus alone = new ClusterBus("alone", alonePort,
+                Map.of("late", new InetSocketAddress("127.0.0.1", latePort)));
+        alone.start(new Recorder());
+
+        alone.send("late", ClusterMessage.of(ClusterMessage.Type.PLAYER_UP, "alice", "lobby", "LOBBY_AVAILABLE"));
+        alone.send("late", ClusterMessage.of(ClusterMessage.Type.DELIVER, "bob", "CHAT", "alice", "hi"));
+        alone.send("late", ClusterMessage.of(ClusterMessage.Type.DUEL_ACTION, "duel-1", "bob", "ATTACK", ""));
+        TimeUnit.MILLISECONDS.sleep(300); // at least one failed connect
+
+        Recorder late = new Recorder();
+        new ClusterBus("late", latePort, Map.of("alone", new InetSocketAddress("127.0.0.1", alonePort))).start(late);
+        late.await("alone:DUEL_ACTION[duel-1, bob, ATTACK, ]");
+        assertTrue(late.events.contains("alone:DELIVER[bob, CHAT, alice, hi]"), late.events.toString());
+        assertTrue(late.events.stream().noneMatch(e -> e.contains("PLAYER_UP")), late.events.toString());
+    }
+
+    @Test
+    void fieldsBeyondSixtyFourKilobytesOfNonAsciiCrossTheLink() throws Exception {
+        int fromPort = freePort();
+        int toPort = freePort();
+        ClusterBus from = new ClusterBus("from", fromPort, Map.of("to", new InetSocketAddress("127.0.0.1", toPort)));
+        Recorder sender = new Recorder();
+        from.start(sender);
+        Recorder receiver = new Recorder();
+        new ClusterBus("to", toPort, Map.of("from", new InetSocketAddress("127.0.0.1", fromPort))).start(receiver);
+
+        String text = "ü😀".repeat(20_000); // 120 KB of UTF-8, more in modified UTF-8
+        from.send("to", ClusterMessage.of(ClusterMessage.Type.ROOM_CHAT, "lobby", "CHAT", "alice", text));
+        from.send("to", ClusterMessage.of(ClusterMessage.Type.DUEL_ABORT, "after"));
+        receiver.await("from:DUEL_ABORT[after]");
+        assertTrue(receiver.events.contains("from:ROOM_CHAT[lobby, CHAT, alice, " + text + "]"));
+        assertFalse(sender.events.contains("down:to"), sender.events.toString());
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
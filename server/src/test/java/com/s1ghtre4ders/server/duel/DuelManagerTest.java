@@ -0,0 +1,151 @@
+package com.s1ghtre4ders.server.duel;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A duel's opening and its abort go through the duel's lane like every other
+ * step: nothing overtakes the opening, and nothing queued behind an abort
+ * reaches the callbacks. The duel log ends each duel exactly once.
+ */
+class DuelManagerTest {
+    private DuelManager manager;
+    private final Queue<String> events = new ConcurrentLinkedQueue<>();
+
+    @BeforeEach
+    void start() {
+        manager = new DuelManager(1, null);
+    }
+
+    @AfterEach
+    void stop() {
+        manager.shutdown();
+    }
+
+    @Test
+    void openingComesBeforeTheFirstAttack() throws Exception {
+        manager.createDuel("open", "alice", "bob", recording());
+        manager.attack("open", "alice");
+        drainLane();
+        assertEquals(List.of("start alice bob", "turn alice", "qte bob"), List.copyOf(events));
+    }
+
+    @Test
+    void abortedDuelGetsNoFurtherCallbacks() throws Exception {
+        manager.createDuel("abort", "alice", "bob", recording());
+        manager.attack("abort", "alice");
+        manager.endDuel("abort");
+        manager.qteResult("abort", "bob", "MISS");
+        drainLane();
+        assertEquals(List.of("start alice bob", "turn alice", "qte bob"), List.copyOf(events));
+    }
+
+    @Test
+    void leavingDuelistIsReportedOnceInsteadOfAnEnd() throws Exception {
+        manager.createDuel("left", "alice", "bob", recording());
+        manager.attack("left", "alice");
+        manager.endDuel("left", "bob");
+        manager.endDuel("left", "alice");
+        manager.qteResult("left", "bob", "MISS");
+        drainLane();
+        assertEquals(List.of("start alice bob", "turn alice", "qte bob", "aborted bob"), List.copyOf(events));
+    }
+
+    @Test
+    void knockoutThenAbortLogsOneEnd(@TempDir Path dir) throws Exception {
+        manager.shutdown();
+        manager = new DuelManager(1, new DuelLog(dir, 64 * 1024, 2));
+        manager.createDuel("ko", "alice", "bob", recording());
+        for (int hit = 0; hit < 7; hit++) { // 7 x 15 damage knocks bob out
+            manager.attack("ko", "alice");
+            manager.qteResult("ko", "bob", "MISS");
+            manager.attack("ko", "bob");
+            manager.qteResult("ko", "alice", "NONE");
+        }
+        drainLane();
+        manager.endDuel("ko");
+        drainLane();
+        List<String> live = List.copyOf(events);
+        assertEquals("end alice", live.get(live.size() - 1));
+
+        events.clear();
+        assertTrue(new DuelLogReader(dir).replay("ko", recording()));
+        assertEquals(live, new ArrayList<>(events));
+    }
+
+    /**
+     * Wait for everything queued so far: with one lane, a new duel opens after it
+     */
+    private void drainLane() throws InterruptedException {
+        CountDownLatch opened = new CountDownLatch(1);
+        manager.createDuel("fence", "x", "y", new DuelManager.Callbacks() {
+            @Override
+            public void onDuelStart(String p1Id, String p2Id) {
+                opened.countDown();
+            }
+
+            @Override
+            public void onQteStart(String defenderId) {
+            }
+
+            @Override
+            public void onTakeDamage(String playerId, int damage) {
+            }
+
+            @Override
+            public void onTurnChange(String attackerId, String defenderId) {
+            }
+
+            @Override
+            public void onDuelEnd(String winnerId) {
+            }
+        });
+        assertTrue(opened.await(5, TimeUnit.SECONDS), "lane stuck");
+    }
+
+    private DuelManager.Callbacks recording() {
+        return new DuelManager.Callbacks() {
+            @Override
+            public void onDuelStart(String p1Id, String p2Id) {
+                events.add("start " + p1Id + " " + p2Id);
+            }
+
+            @Override
+            public void onQteStart(String defenderId) {
+                events.add("qte " + defenderId);
+            }
+
+            @Override
+            public void onTakeDamage(String playerId, int damage) {
+                events.add("damage " + playerId);
+            }
+
+            @Override
+            public void onTurnChange(String attackerId, String defenderId) {
+                events.add("turn " + attackerId);
+            }
+
+            @Override
+            public void onDuelEnd(String winnerId) {
+                events.add("end " + winnerId);
+            }
+
+            @Override
+            public void onDuelAborted(String leaverId) {
+                events.add("aborted " + leaverId);
+            }
+        };
+    }
+}
@@ -0,0 +1,143 @@
+package com.s1ghtre4ders.server.duel;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.RepeatedTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DuelState stays consistent under contention.
+ *
+ * THREADS threads hammer one duel at a time with no coordination: each
+ * attempt either opens the QTE window for whoever's turn it is (an attack) or
+ * resolves it with random damage, half the time for any window (a result),
+ * half the time for the window it saw (a timeout). Each round is ATTEMPTS per
+ * thread over as many duels as that takes; afterwards every duel must show:
+ * - no window resolved twice (resolutions <= windows opened) or lost
+ * - each player's HP loss matching the damage the winners applied to them
+ * - the turn passed exactly once per resolution that kept the duel going
+ */
+class DuelStateConcurrencyTest {
+    private static final int THREADS = 4;
+    private static final int ATTEMPTS = 20_000;
+    private static final int MAX_HP = 100;
+
+    private static ExecutorService pool;
+
+    @BeforeAll
+    static void startThreads() {
+        pool = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterAll
+    static void stopThreads() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * One duel and what the threads that won its transitions did to it
+     */
+    private static final class Fight {
+        final DuelState state = new DuelState("alice", "bob", MAX_HP);
+        final AtomicInteger opened = new AtomicInteger();
+        final AtomicInteger resolved = new AtomicInteger();
+        final LongAdder damageToAlice = new LongAdder();
+        final LongAdder damageToBob = new LongAdder();
+    }
+
+    @RepeatedTest(5)
+    void racingTransitionsKeepEveryDuelConsistent() throws Exception {
+        Queue<Fight> fights = new ConcurrentLinkedQueue<>();
+        Fight first = new Fight();
+        fights.add(first);
+        AtomicReference<Fight> current = new AtomicReference<>(first);
+
+        List<Callable<Void>> racers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            racers.add(() -> {
+                race(current, fights);
+                return null;
+            });
+        }
+        for (var future : pool.invokeAll(racers)) {
+            future.get();
+        }
+
+        long resolved = 0;
+        for (Fight fight : fights) {
+            resolved += check(fight);
+        }
+        assertTrue(resolved > 0, "no window was ever resolved");
+        assertTrue(fights.size() > 1, "no duel ever ended");
+    }
+
+    private static void race(AtomicReference<Fight> current, Queue<Fight> fights) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < ATTEMPTS; i++) {
+            Fight fight = current.get();
+            DuelState state = fight.state;
+            long seen = state.snapshot();
+            if (DuelState.isEnded(seen)) {
+                Fight next = new Fight();
+                if (current.compareAndSet(fight, next)) {
+                    fights.add(next);
+                }
+            } else if (!DuelState.isQteOpen(seen)) {
+                if (state.openQte(state.attackerOf(seen)) != DuelState.NONE) {
+                    fight.opened.incrementAndGet();
+                }
+            } else {
+                String defender = state.defenderOf(seen);
+                int damage = random.nextInt(0, 21);
+                int window = random.nextBoolean() ? DuelState.windowOf(seen) : DuelState.ANY_WINDOW;
+                long after = state.resolveQte(window, defender, damage);
+                if (after != DuelState.NONE) {
+                    fight.resolved.incrementAndGet();
+                    (defender.equals(state.player1Id) ? fight.damageToAlice : fight.damageToBob).add(damage);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return resolutions in this fight
+     */
+    private static long check(Fight fight) {
+        DuelState state = fight.state;
+        long s = state.snapshot();
+        int opened = fight.opened.get();
+        int resolved = fight.resolved.get();
+        int stillOpen = DuelState.isQteOpen(s) ? 1 : 0;
+        assertEquals(opened, resolved + stillOpen, "windows opened vs resolved + still open");
+        assertHp("alice", DuelState.hp1(s), fight.damageToAlice.sum());
+        assertHp("bob", DuelState.hp2(s), fight.damageToBob.sum());
+        boolean ended = DuelState.isEnded(s);
+        assertEquals(DuelState.hp1(s) == 0 || DuelState.hp2(s) == 0, ended,
+                "ended with HP " + DuelState.hp1(s) + "/" + DuelState.hp2(s));
+        int turnChanges = resolved - (ended ? 1 : 0);
+        String expectedAttacker = turnChanges % 2 == 0 ? state.player1Id : state.player2Id;
+        assertEquals(expectedAttacker, state.attackerOf(s), "attacker after " + turnChanges + " turn changes");
+        return resolved;
+    }
+
+    private static void assertHp(String player, int hp, long damage) {
+        if (hp > 0) {
+            assertEquals(MAX_HP - hp, damage, player + " HP lost vs damage applied");
+        } else {
+            assertTrue(damage >= MAX_HP, player + " knocked out after only " + damage + " damage");
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.s1ghtre4ders.server.net;
+
+import com.s1ghtre4ders.server.protocol.BinaryCodec;
+import com.s1ghtre4ders.server.protocol.Command;
+import com.s1ghtre4ders.server.protocol.Message;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OversizedFrameTest {
+    private static final Message TOO_LARGE = Message.of(Command.CHAT, "alice", "x".repeat(BinaryCodec.MAX_FRAME));
+
+    private static OutboundQueue queue() {
+        return new OutboundQueue(new BackpressurePolicy(1_000, 64L << 20, 60_000, true, true));
+    }
+
+    @Test
+    void isDroppedAtQueueTimeInEitherFormat() {
+        Frame frame = Frame.of(TOO_LARGE);
+        assertEquals(0, frame.bytes(true).length);
+        assertEquals(0, frame.bytes(false).length);
+
+        OutboundQueue queue = queue();
+        assertEquals(OutboundQueue.Offer.DROPPED, assertDoesNotThrow(() -> queue.offer(frame, true)));
+        assertEquals(OutboundQueue.Offer.DROPPED, queue.offer(frame, false));
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void leavesTheRestOfABatchAndTheQueueIntact() {
+        OutboundQueue queue = queue();
+        Frame small = Frame.of(Message.of(Command.CHAT, "bob", "still here"));
+        queue.offer(Frame.of(TOO_LARGE), false);
+        assertEquals(OutboundQueue.Offer.QUEUED, queue.offer(small, false));
+        assertSame(small, queue.poll());
+
+        Frame batch = Frame.concat(new Frame[] {Frame.of(TOO_LARGE), small});
+        assertArrayEquals(small.bytes(true), batch.bytes(true));
+    }
+}
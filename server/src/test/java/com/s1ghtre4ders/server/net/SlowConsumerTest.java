@@ -0,0 +1,86 @@
+package com.s1ghtre4ders.server.net;
+
+import com.s1ghtre4ders.server.protocol.Command;
+import com.s1ghtre4ders.server.protocol.Message;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlowConsumerTest {
+    private static final int FRAME_LIMIT = 4;
+
+    /**
+     * A chat fan-out on the loop overflows a member on the same loop while holding
+     * the room lock: the member's disconnect must not run under that lock.
+     */
+    @Test
+    void overflowOnTheSendersLoopDisconnectsAfterTheSendReturns() throws Exception {
+        NioEventLoop loop = new NioEventLoop("slow-consumer-test",
+                new BackpressurePolicy(FRAME_LIMIT, 64L << 20, 60_000, false, false));
+        loop.start();
+        ReentrantLock roomLock = new ReentrantLock();
+        CompletableFuture<Transport> sleeper = new CompletableFuture<>();
+        CompletableFuture<Boolean> disconnectedUnderRoomLock = new CompletableFuture<>();
+
+        try (ServerSocketChannel server = ServerSocketChannel.open();
+             Socket sleeperSocket = new Socket();
+             Socket chatterSocket = new Socket()) {
+            server.bind(new InetSocketAddress("127.0.0.1", 0));
+
+            sleeperSocket.connect(server.getLocalAddress());
+            loop.register(server.accept(), transport -> {
+                sleeper.complete(transport);
+                return handler(message -> { },
+                        () -> disconnectedUnderRoomLock.complete(roomLock.isHeldByCurrentThread()));
+            }, new AdmissionControl(0, 0));
+            Transport slow = sleeper.get(5, TimeUnit.SECONDS);
+
+            chatterSocket.connect(server.getLocalAddress());
+            loop.register(server.accept(), transport -> handler(message -> {
+                roomLock.lock();
+                try {
+                    // Flushes are posted to the loop, so nothing leaves until this returns
+                    for (int i = 0; i <= FRAME_LIMIT; i++) {
+                        slow.send(Message.of(Command.CHAT, "chatter", "line " + i));
+                    }
+                } finally {
+                    roomLock.unlock();
+                }
+            }, () -> { }), new AdmissionControl(0, 0));
+
+            OutputStream out = chatterSocket.getOutputStream();
+            out.write("CHAT:hello\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+
+            assertFalse(disconnectedUnderRoomLock.get(5, TimeUnit.SECONDS));
+            sleeperSocket.setSoTimeout(5_000);
+            assertEquals(-1, sleeperSocket.getInputStream().read(), "queued frames are dropped with the connection");
+        } finally {
+            loop.shutdown();
+        }
+    }
+
+    private static ConnectionHandler handler(Consumer<Message> onMessage, Runnable onDisconnect) {
+        return new ConnectionHandler() {
+            @Override
+            public void onMessage(Message message) {
+                onMessage.accept(message);
+            }
+
+            @Override
+            public void onDisconnect() {
+                onDisconnect.run();
+            }
+        };
+    }
+}
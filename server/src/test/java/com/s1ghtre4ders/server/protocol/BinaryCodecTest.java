@@ -0,0 +1,75 @@
+package com.s1ghtre4ders.server.protocol;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryCodecTest {
+
+    private static Message roundTrip(Message message) throws IOException {
+        byte[] frame = BinaryCodec.encode(message);
+        assertEquals(frame.length - 4, BinaryCodec.getInt(frame, 0), "length prefix");
+        return BinaryCodec.decode(frame, 4, frame.length - 4);
+    }
+
+    private static void assertSameMessage(Message expected, Message actual) {
+        assertEquals(expected.command, actual.command);
+        assertEquals(expected.argCount(), actual.argCount());
+        for (int i = 0; i < expected.argCount(); i++) {
+            assertEquals(expected.arg(i), actual.arg(i), "field " + i);
+        }
+    }
+
+    @Test
+    void roundTripsFieldsTextCannotCarry() throws IOException {
+        Message chat = Message.of(Command.CHAT, "al:ice", "line one\nline two: still chat 🎮 ñ");
+        assertSameMessage(chat, roundTrip(chat));
+    }
+
+    @Test
+    void roundTripsNoAndEmptyFields() throws IOException {
+        assertSameMessage(Message.of(Command.ATTACK), roundTrip(Message.of(Command.ATTACK)));
+        Message empty = Message.of(Command.DUEL_ACCEPT, "");
+        assertSameMessage(empty, roundTrip(empty));
+    }
+
+    @Test
+    void roundTripsPlayerListPastTheOldU16Limit() throws IOException {
+        StringBuilder list = new StringBuilder("42");
+        for (int i = 0; i < 3_000; i++) {
+            list.append(";player-with-a-long-name-").append(i).append(",LOBBY_AVAILABLE");
+        }
+        assertTrue(list.length() > 0xFFFF);
+        Message snapshot = Message.of(Command.PLAYER_LIST, list.toString());
+        assertSameMessage(snapshot, roundTrip(snapshot));
+    }
+
+    @Test
+    void refusesFramesOverMaxFrame() {
+        Message huge = Message.of(Command.CHAT, "alice", "x".repeat(BinaryCodec.MAX_FRAME));
+        assertThrows(IllegalArgumentException.class, () -> BinaryCodec.encode(huge));
+    }
+
+    @Test
+    void rejectsTruncatedFields() {
+        byte[] frame = BinaryCodec.encode(Message.of(Command.CHAT, "alice", "hello"));
+        byte[] cut = Arrays.copyOf(frame, frame.length - 2);
+        assertThrows(IOException.class, () -> BinaryCodec.decode(cut, 4, cut.length - 4));
+    }
+
+    @Test
+    void rejectsFieldLengthsPastTheFrame() {
+        byte[] frame = BinaryCodec.encode(Message.of(Command.CHAT, "hello"));
+        frame[5] = (byte) 0xFF; // field length now above 2^31
+        assertThrows(IOException.class, () -> BinaryCodec.decode(frame, 4, frame.length - 4));
+    }
+
+    @Test
+    void rejectsEmptyAndUnknownFrames() {
+        assertThrows(IOException.class, () -> BinaryCodec.decode(new byte[0], 0, 0));
+        assertThrows(IOException.class, () -> BinaryCodec.decode(new byte[] {(byte) 0xEE}, 0, 1));
+    }
+}
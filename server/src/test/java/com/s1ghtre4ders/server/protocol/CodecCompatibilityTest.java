@@ -0,0 +1,44 @@
+package com.s1ghtre4ders.server.protocol;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The server's and the client's copies of the protocol must agree byte for byte
+ */
+class CodecCompatibilityTest {
+
+    @Test
+    void commandsAndOpcodesMatchTheClient() {
+        for (Command command : Command.values()) {
+            com.s1ghtre4ders.client.net.Command client = com.s1ghtre4ders.client.net.Command.byName(command.name());
+            assertNotNull(client, command + " missing on the client");
+            assertEquals(command.opcode, client.opcode, command + " opcode");
+        }
+        assertEquals(Command.values().length, com.s1ghtre4ders.client.net.Command.values().length);
+        assertEquals(BinaryCodec.VERSION, com.s1ghtre4ders.client.net.BinaryCodec.VERSION);
+        assertEquals(BinaryCodec.MAX_FRAME, com.s1ghtre4ders.client.net.BinaryCodec.MAX_FRAME);
+    }
+
+    @Test
+    void clientDecodesWhatTheServerEncodes() throws IOException {
+        byte[] frame = BinaryCodec.encode(Message.of(Command.CHAT, "bob", "gg: rematch?\n🎮"));
+        com.s1ghtre4ders.client.net.Message decoded =
+                com.s1ghtre4ders.client.net.BinaryCodec.decode(frame, 4, frame.length - 4);
+        assertEquals(com.s1ghtre4ders.client.net.Command.CHAT, decoded.command);
+        assertEquals("bob", decoded.arg(0));
+        assertEquals("gg: rematch?\n🎮", decoded.arg(1));
+    }
+
+    @Test
+    void serverDecodesWhatTheClientEncodes() throws IOException {
+        byte[] frame = com.s1ghtre4ders.client.net.BinaryCodec.encode(com.s1ghtre4ders.client.net.Message.of(
+                com.s1ghtre4ders.client.net.Command.DUEL_REQUEST, "zoë:2"));
+        Message decoded = BinaryCodec.decode(frame, 4, frame.length - 4);
+        assertEquals(Command.DUEL_REQUEST, decoded.command);
+        assertEquals("zoë:2", decoded.arg(0));
+    }
+}
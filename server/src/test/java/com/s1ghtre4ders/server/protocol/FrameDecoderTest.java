@@ -0,0 +1,70 @@
+package com.s1ghtre4ders.server.protocol;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameDecoderTest {
+
+    @Test
+    void switchesToBinaryInTheMiddleOfAChunk() throws IOException {
+        ByteArrayOutputStream wire = new ByteArrayOutputStream();
+        wire.writeBytes("PROTO_ACCEPT:2\r\n".getBytes(StandardCharsets.UTF_8));
+        wire.writeBytes(BinaryCodec.encode(Message.of(Command.CHAT, "a:b\nc")));
+        wire.writeBytes(BinaryCodec.encode(Message.of(Command.ATTACK)));
+
+        FrameDecoder decoder = new FrameDecoder();
+        List<Message> received = new ArrayList<>();
+        decoder.feed(ByteBuffer.wrap(wire.toByteArray()), message -> {
+            received.add(message);
+            if (message.command == Command.PROTO_ACCEPT) {
+                decoder.switchToBinary();
+            }
+        });
+
+        assertTrue(decoder.isBinary());
+        assertEquals(3, received.size());
+        assertEquals("2", received.get(0).arg(0));
+        assertEquals(Command.CHAT, received.get(1).command);
+        assertEquals("a:b\nc", received.get(1).arg(0));
+        assertEquals(Command.ATTACK, received.get(2).command);
+    }
+
+    @Test
+    void reassemblesFramesFedOneByteAtATime() throws IOException {
+        FrameDecoder decoder = new FrameDecoder();
+        decoder.switchToBinary();
+        byte[] frame = BinaryCodec.encode(Message.of(Command.QTE_RESULT, "PERFECT"));
+        List<Message> received = new ArrayList<>();
+        for (byte b : frame) {
+            decoder.feed(ByteBuffer.wrap(new byte[] {b}), received::add);
+        }
+        assertEquals(1, received.size());
+        assertEquals("PERFECT", received.get(0).arg(0));
+    }
+
+    @Test
+    void refusesOversizedInboundFramesBeforeBuffering() {
+        FrameDecoder decoder = new FrameDecoder();
+        decoder.switchToBinary();
+        int length = FrameDecoder.MAX_INBOUND_BYTES + 1;
+        byte[] prefix = {(byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length};
+        assertThrows(IOException.class, () -> decoder.feed(ByteBuffer.wrap(prefix), message -> fail()));
+    }
+
+    @Test
+    void refusesOversizedInboundLines() {
+        FrameDecoder decoder = new FrameDecoder();
+        byte[] line = new byte[FrameDecoder.MAX_INBOUND_BYTES + 1];
+        Arrays.fill(line, (byte) 'x');
+        assertThrows(IOException.class, () -> decoder.feed(ByteBuffer.wrap(line), message -> fail()));
+    }
+}
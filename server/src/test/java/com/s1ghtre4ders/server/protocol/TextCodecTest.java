@@ -0,0 +1,34 @@
+package com.s1ghtre4ders.server.protocol;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextCodecTest {
+
+    @Test
+    void lastFieldKeepsItsColons() {
+        Message chat = TextCodec.decode("CHAT:see you at 10:30");
+        assertEquals(Command.CHAT, chat.command);
+        assertEquals(1, chat.argCount());
+        assertEquals("see you at 10:30", chat.arg(0));
+    }
+
+    @Test
+    void roundTrips() {
+        Message login = Message.of(Command.LOGIN, "alice", "5e884898da28");
+        Message decoded = TextCodec.decode(TextCodec.encode(login));
+        assertEquals(Command.LOGIN, decoded.command);
+        assertEquals("alice", decoded.arg(0));
+        assertEquals("5e884898da28", decoded.arg(1));
+        assertEquals("ATTACK", TextCodec.encode(TextCodec.decode("ATTACK")));
+    }
+
+    @Test
+    void unknownLinesComeBackWhole() {
+        Message unknown = TextCodec.decode("DANCE:wildly");
+        assertEquals(Command.UNKNOWN, unknown.command);
+        assertEquals("DANCE:wildly", unknown.arg(0));
+        assertEquals("DANCE:wildly", TextCodec.encode(unknown));
+    }
+}
@@ -2,6 +2,7 @@ rootProject.name = "S1ghtRe4ders"
 
 include("server")
 include("client")
+include("loadgen")
 
 pluginManagement {
     repositories {